@@ -0,0 +1,144 @@
+package learn.mastery.bench;
+
+import learn.mastery.api.ApiServer;
+import learn.mastery.data.CachedGuestRepository;
+import learn.mastery.data.CachedHostRepository;
+import learn.mastery.data.GuestFileRepository;
+import learn.mastery.data.HostFileRepository;
+import learn.mastery.data.ReservationFileRepository;
+import learn.mastery.domain.GuestService;
+import learn.mastery.domain.HostService;
+import learn.mastery.domain.ReservationService;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// drives the api with many requests in flight at once and prints throughput, latency percentiles and
+// the status codes seen. without a url it generates data, starts an ApiServer over the csv repositories
+// on a free port and stops it afterwards; with one it targets a server that's already running
+// (App server), whose data has to come from DataGenerator for the emails to exist.
+// the mix is 80% reservation lists, 10% quotes and 10% bookings; 409s from overlapping bookings are expected.
+//
+// usage: ApiLoadTest <concurrent requests> <total requests> <hosts> [url]
+public class ApiLoadTest {
+    private static final int GUESTS = 1000;
+    private static final int RESERVATIONS_PER_HOST = 100;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.out.println("usage: ApiLoadTest <concurrent requests> <total requests> <hosts> [url]");
+            return;
+        }
+        int concurrency = Integer.parseInt(args[0]);
+        int total = Integer.parseInt(args[1]);
+        int hosts = Integer.parseInt(args[2]);
+
+        if (args.length > 3) {
+            run(args[3], concurrency, total, hosts);
+            return;
+        }
+
+        Path directory = DataGenerator.createTempDirectory();
+        ApiServer server = null;
+        try {
+            new DataGenerator(42).generate(directory, GUESTS, hosts, RESERVATIONS_PER_HOST);
+            CachedGuestRepository guests = new CachedGuestRepository(
+                    new GuestFileRepository(directory.resolve("guests.csv").toString()));
+            CachedHostRepository hostRepository = new CachedHostRepository(
+                    new HostFileRepository(directory.resolve("hosts.csv").toString()));
+            ReservationFileRepository reservations = new ReservationFileRepository(
+                    directory.resolve("reservations").toString(), guests, hostRepository);
+            server = new ApiServer(new HostService(hostRepository, reservations), new GuestService(guests),
+                    new ReservationService(reservations, hostRepository, guests), 0);
+            server.start();
+            run("http://localhost:" + server.getPort(), concurrency, total, hosts);
+        } finally {
+            if (server != null) {
+                server.stop(0);
+            }
+            DataGenerator.deleteRecursively(directory);
+        }
+    }
+
+    private static void run(String url, int concurrency, int total, int hosts) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        Semaphore inFlight = new Semaphore(concurrency);
+        long[] latencies = new long[total];
+        AtomicInteger completed = new AtomicInteger();
+        Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+        Random random = new Random(7);
+
+        long started = System.nanoTime();
+        CompletableFuture<?>[] requests = new CompletableFuture<?>[total];
+        for (int i = 0; i < total; i++) {
+            inFlight.acquire();
+            HttpRequest request = nextRequest(url, random, hosts);
+            long sent = System.nanoTime();
+            requests[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .handle((response, error) -> {
+                        latencies[completed.getAndIncrement()] = System.nanoTime() - sent;
+                        String outcome = error == null ? String.valueOf(response.statusCode())
+                                : error.getClass().getSimpleName();
+                        outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+                        inFlight.release();
+                        return null;
+                    });
+        }
+        CompletableFuture.allOf(requests).join();
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        Arrays.sort(latencies);
+        System.out.printf("%d requests, %d in flight, %.2f s, %.0f requests/s%n", total, concurrency, seconds,
+                total / seconds);
+        System.out.printf("latency ms: p50 %.2f, p95 %.2f, p99 %.2f, max %.2f%n", percentile(latencies, 0.50),
+                percentile(latencies, 0.95), percentile(latencies, 0.99), latencies[total - 1] / 1e6);
+        new TreeMap<>(outcomes).forEach((outcome, count) -> System.out.printf("  %s: %d%n", outcome, count.sum()));
+    }
+
+    private static HttpRequest nextRequest(String url, Random random, int hosts) {
+        String hostEmail = DataGenerator.hostEmail(1 + random.nextInt(hosts));
+        int kind = random.nextInt(10);
+        if (kind < 8) {
+            return HttpRequest.newBuilder(URI.create(url + "/api/reservations?hostEmail=" + hostEmail)).build();
+        }
+
+        LocalDate start = LocalDate.now().plusDays(1 + random.nextInt(3650));
+        LocalDate end = start.plusDays(1 + random.nextInt(5));
+        String dates = "\"startDate\": \"" + start + "\", \"endDate\": \"" + end + "\"";
+        if (kind == 8) {
+            return post(url + "/api/quotes", "{\"hostEmail\": \"" + hostEmail + "\", " + dates + "}");
+        }
+        String guestEmail = DataGenerator.guestEmail(1 + random.nextInt(GUESTS));
+        return post(url + "/api/reservations", "{\"hostEmail\": \"" + hostEmail + "\", \"guestEmail\": \""
+                + guestEmail + "\", " + dates + "}");
+    }
+
+    private static HttpRequest post(String url, String body) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(fraction * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,83 @@
+package learn.mastery.bench;
+
+import learn.mastery.data.CachedGuestRepository;
+import learn.mastery.data.CachedHostRepository;
+import learn.mastery.data.GuestFileRepository;
+import learn.mastery.data.HostFileRepository;
+import learn.mastery.data.ReservationFileRepository;
+import learn.mastery.domain.AvailabilityService;
+import learn.mastery.domain.Result;
+import learn.mastery.models.AvailableHost;
+import learn.mastery.models.Reservation;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// "who's free from X to Y" over every host: the occupancy bitmaps versus reading each host's reservations
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AvailabilitySearchBenchmark {
+
+    @Param({"1000"})
+    int hosts;
+
+    @Param({"100"})
+    int rows;
+
+    Path directory;
+    CachedHostRepository hostRepository;
+    ReservationFileRepository repository;
+    AvailabilityService service;
+    LocalDate start;
+    LocalDate end;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = DataGenerator.createTempDirectory();
+        new DataGenerator(42).generate(directory, 1000, hosts, rows);
+
+        hostRepository = new CachedHostRepository(new HostFileRepository(directory.resolve("hosts.csv").toString()));
+        repository = new ReservationFileRepository(directory.resolve("reservations").toString(),
+                new CachedGuestRepository(new GuestFileRepository(directory.resolve("guests.csv").toString())),
+                hostRepository);
+        service = new AvailabilityService(hostRepository, repository);
+        start = LocalDate.now().plusDays(100);
+        end = start.plusDays(4);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        DataGenerator.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public Result<List<AvailableHost>> bitmaps() throws IOException {
+        return service.findAvailableHosts(start, end, null, null, null);
+    }
+
+    @Benchmark
+    public List<String> findByHostId() throws IOException {
+        List<String> free = new ArrayList<>();
+        long startDay = start.toEpochDay();
+        long endDay = end.toEpochDay();
+        hostRepository.findAll().forEach(host -> {
+            for (Reservation reservation : repository.findByHostId(host.getId())) {
+                if (reservation.getStartDate().toEpochDay() <= endDay
+                        && reservation.getEndDate().toEpochDay() >= startDay) {
+                    return;
+                }
+            }
+            free.add(host.getId());
+        });
+        return free;
+    }
+}
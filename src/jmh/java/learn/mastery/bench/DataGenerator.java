@@ -0,0 +1,143 @@
+package learn.mastery.bench;
+
+import learn.mastery.domain.PricingEngine;
+import learn.mastery.models.Host;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+// writes guests.csv, hosts.csv and a reservations directory in the same layout as ./data, at any scale.
+// ids and emails are derived from the row number so benchmarks can look up known records.
+//
+// usage: DataGenerator <output dir> <guests> <hosts> <reservations per host>
+public class DataGenerator {
+    private static final String GUEST_HEADER = "guest_id,first_name,last_name,email,phone,state";
+    private static final String HOST_HEADER = "id,last_name,email,phone,address,city,state,postal_code,standard_rate,weekend_rate";
+    private static final String RESERVATION_HEADER = "id,start_date,end_date,guest_id,total";
+    private static final String[] STATES = {"CA", "TX", "NY", "FL", "WA", "GA", "IL", "MN", "NV", "DC"};
+    private static final String[] CITIES = {"Chino Hills", "Amarillo", "Albany", "Miami", "Seattle",
+            "Macon", "Chicago", "Duluth", "Reno", "Washington"};
+    private static final LocalDate FIRST_STAY = LocalDate.of(2000, 1, 1);
+
+    private final long seed;
+
+    public DataGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4) {
+            System.out.println("usage: DataGenerator <output dir> <guests> <hosts> <reservations per host>");
+            return;
+        }
+        new DataGenerator(42).generate(Paths.get(args[0]), Integer.parseInt(args[1]),
+                Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+    }
+
+    public void generate(Path directory, int guestCount, int hostCount, int reservationsPerHost) throws IOException {
+        Files.createDirectories(directory.resolve("reservations"));
+        writeGuests(directory.resolve("guests.csv"), guestCount);
+        writeHosts(directory.resolve("hosts.csv"), hostCount);
+        for (int n = 1; n <= hostCount; n++) {
+            writeReservations(directory.resolve("reservations"), n, reservationsPerHost, guestCount);
+        }
+    }
+
+    public void writeGuests(Path file, int count) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write(GUEST_HEADER);
+            for (int n = 1; n <= count; n++) {
+                writer.newLine();
+                writer.write(n + ",First" + n + ",Last" + n + "," + guestEmail(n) + ","
+                        + phone(n) + "," + STATES[n % STATES.length]);
+            }
+        }
+    }
+
+    public void writeHosts(Path file, int count) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write(HOST_HEADER);
+            for (int n = 1; n <= count; n++) {
+                Host host = host(n);
+                writer.newLine();
+                writer.write(host.getId() + "," + host.getLastName() + "," + host.getEmail() + ","
+                        + host.getPhone() + "," + host.getAddress() + "," + host.getCity() + ","
+                        + host.getState() + "," + host.getPostalCode() + ","
+                        + host.getStandardRate() + "," + host.getWeekendRate());
+            }
+        }
+    }
+
+    // back-to-back, non-overlapping stays of one to three nights, starting in 2000
+    public void writeReservations(Path directory, int hostNumber, int count, int guestCount) throws IOException {
+        Host host = host(hostNumber);
+        PricingEngine pricingEngine = new PricingEngine();
+        Random random = new Random(seed + hostNumber);
+
+        try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve(host.getId() + ".csv"))) {
+            writer.write(RESERVATION_HEADER);
+            LocalDate startDate = FIRST_STAY;
+            for (int id = 1; id <= count; id++) {
+                LocalDate endDate = startDate.plusDays(1 + random.nextInt(3));
+                int guestId = 1 + random.nextInt(Math.max(1, guestCount));
+                writer.newLine();
+                writer.write(id + "," + startDate + "," + endDate + "," + guestId + ","
+                        + pricingEngine.calculateTotal(startDate, endDate, host));
+                startDate = endDate.plusDays(1);
+            }
+        }
+    }
+
+    public Host host(int n) {
+        BigDecimal standardRate = BigDecimal.valueOf(100 + (n * 37L) % 400);
+        BigDecimal weekendRate = standardRate.multiply(new BigDecimal("1.25"));
+        return new Host(hostId(n), "Host" + n, hostEmail(n), phone(n), n + " Bench St",
+                CITIES[n % CITIES.length], STATES[n % STATES.length], String.format("%05d", n % 100000),
+                standardRate, weekendRate);
+    }
+
+    public static String hostId(int n) {
+        return new UUID(0x5eedL, n).toString();
+    }
+
+    public static String hostEmail(int n) {
+        return "host" + n + "@example.com";
+    }
+
+    public static String guestEmail(int n) {
+        return "guest" + n + "@example.com";
+    }
+
+    public static Path createTempDirectory() {
+        try {
+            return Files.createTempDirectory("mastery-bench");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void deleteRecursively(Path directory) throws IOException {
+        if (directory == null || !Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static String phone(int n) {
+        return String.format("(%03d) %07d", n % 1000, n % 10000000);
+    }
+}
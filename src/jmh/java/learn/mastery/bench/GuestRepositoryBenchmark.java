@@ -0,0 +1,47 @@
+package learn.mastery.bench;
+
+import learn.mastery.data.GuestFileRepository;
+import learn.mastery.models.Guest;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GuestRepositoryBenchmark {
+
+    @Param({"1000", "100000"})
+    int guestCount;
+
+    @Param({"false", "true"})
+    boolean memoryMapped;
+
+    Path directory;
+    GuestFileRepository repository;
+    String lastEmail;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = DataGenerator.createTempDirectory();
+        Path file = directory.resolve("guests.csv");
+        new DataGenerator(42).writeGuests(file, guestCount);
+        repository = new GuestFileRepository(file.toString(), memoryMapped);
+        lastEmail = DataGenerator.guestEmail(guestCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        DataGenerator.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public Guest findByEmail() throws IOException {
+        return repository.findByEmail(lastEmail);
+    }
+}
@@ -0,0 +1,47 @@
+package learn.mastery.bench;
+
+import learn.mastery.data.HostFileRepository;
+import learn.mastery.models.Host;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HostRepositoryBenchmark {
+
+    @Param({"1000", "10000"})
+    int hostCount;
+
+    @Param({"false", "true"})
+    boolean memoryMapped;
+
+    Path directory;
+    HostFileRepository repository;
+    String lastHostId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = DataGenerator.createTempDirectory();
+        Path file = directory.resolve("hosts.csv");
+        new DataGenerator(42).writeHosts(file, hostCount);
+        repository = new HostFileRepository(file.toString(), memoryMapped);
+        lastHostId = DataGenerator.hostId(hostCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        DataGenerator.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public Host findById() throws IOException {
+        return repository.findById(lastHostId);
+    }
+}
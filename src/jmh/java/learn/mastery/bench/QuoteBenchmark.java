@@ -0,0 +1,71 @@
+package learn.mastery.bench;
+
+import learn.mastery.domain.ReservationService;
+import learn.mastery.models.Host;
+import learn.mastery.models.QuoteRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// pricing many stays: one calculateTotal call each versus quoteAll and quoteHostsForRange
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuoteBenchmark {
+
+    @Param({"10000"})
+    int quotes;
+
+    ReservationService service;
+    List<Host> hosts;
+    List<QuoteRequest> requests;
+    LocalDate start;
+    LocalDate end;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // pricing never touches the repositories
+        service = new ReservationService(null, null, null);
+        Random random = new Random(42);
+        hosts = new ArrayList<>();
+        requests = new ArrayList<>();
+        start = LocalDate.of(2030, 1, 1);
+        end = start.plusDays(6);
+        for (int i = 0; i < quotes; i++) {
+            BigDecimal standard = BigDecimal.valueOf(5000 + random.nextInt(50000), 2);
+            Host host = new Host("host-" + i, "Host", "host" + i + "@example.com", "", "", "", "CA", "",
+                    standard, standard.multiply(new BigDecimal("1.25")).setScale(2, RoundingMode.HALF_UP));
+            hosts.add(host);
+            LocalDate from = start.plusDays(random.nextInt(365));
+            requests.add(new QuoteRequest(host, from, from.plusDays(1 + random.nextInt(14))));
+        }
+    }
+
+    @Benchmark
+    public List<BigDecimal> calculateTotalEach() {
+        List<BigDecimal> totals = new ArrayList<>(quotes);
+        for (QuoteRequest request : requests) {
+            totals.add(service.calculateTotal(request.getStartDate(), request.getEndDate(), request.getHost()));
+        }
+        return totals;
+    }
+
+    @Benchmark
+    public List<BigDecimal> quoteAll() {
+        return service.quoteAll(requests);
+    }
+
+    @Benchmark
+    public List<BigDecimal> quoteHostsForRange() {
+        return service.quoteHostsForRange(start, end, hosts);
+    }
+}
@@ -0,0 +1,67 @@
+package learn.mastery.bench;
+
+import learn.mastery.data.CachedGuestRepository;
+import learn.mastery.data.CachedHostRepository;
+import learn.mastery.data.DataException;
+import learn.mastery.data.GuestFileRepository;
+import learn.mastery.data.HostFileRepository;
+import learn.mastery.data.ReservationFileRepository;
+import learn.mastery.models.Reservation;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// loading every host file at once, on one thread versus spread over a pool
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReservationLoadAllBenchmark {
+
+    @Param({"1000"})
+    int hosts;
+
+    @Param({"100"})
+    int rows;
+
+    @Param({"1", "2", "4", "8"})
+    int parallelism;
+
+    Path directory;
+    ReservationFileRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = DataGenerator.createTempDirectory();
+        DataGenerator generator = new DataGenerator(42);
+        generator.generate(directory, 1000, hosts, rows);
+
+        GuestFileRepository guests = new GuestFileRepository(directory.resolve("guests.csv").toString());
+        HostFileRepository hosts = new HostFileRepository(directory.resolve("hosts.csv").toString());
+        // no reservation cache, so every call parses every file
+        repository = new ReservationFileRepository(directory.resolve("reservations").toString(),
+                new CachedGuestRepository(guests), new CachedHostRepository(hosts), 0);
+        repository.setLoadParallelism(parallelism);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        DataGenerator.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public Map<String, List<Reservation>> loadAll() throws DataException {
+        return repository.loadAll();
+    }
+
+    @Benchmark
+    public long streamAll() {
+        return repository.streamAll().count();
+    }
+}
@@ -0,0 +1,57 @@
+package learn.mastery.bench;
+
+import learn.mastery.data.CachedGuestRepository;
+import learn.mastery.data.CachedHostRepository;
+import learn.mastery.data.GuestFileRepository;
+import learn.mastery.data.HostFileRepository;
+import learn.mastery.data.ReservationFileRepository;
+import learn.mastery.models.Reservation;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReservationRepositoryBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    int rows;
+
+    // 0 turns the per-host reservation cache off so every call parses the file
+    @Param({"0", "256"})
+    int cacheCapacity;
+
+    Path directory;
+    ReservationFileRepository repository;
+    String hostId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = DataGenerator.createTempDirectory();
+        DataGenerator generator = new DataGenerator(42);
+        generator.generate(directory, 1000, 1, rows);
+
+        GuestFileRepository guests = new GuestFileRepository(directory.resolve("guests.csv").toString());
+        HostFileRepository hosts = new HostFileRepository(directory.resolve("hosts.csv").toString());
+        repository = new ReservationFileRepository(directory.resolve("reservations").toString(),
+                new CachedGuestRepository(guests), new CachedHostRepository(hosts), cacheCapacity);
+        hostId = DataGenerator.hostId(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        DataGenerator.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public List<Reservation> findByHostId() {
+        return repository.findByHostId(hostId);
+    }
+}
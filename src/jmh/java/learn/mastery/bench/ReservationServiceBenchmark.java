@@ -0,0 +1,102 @@
+package learn.mastery.bench;
+
+import learn.mastery.data.CachedGuestRepository;
+import learn.mastery.data.CachedHostRepository;
+import learn.mastery.data.GuestFileRepository;
+import learn.mastery.data.GuestRepository;
+import learn.mastery.data.HostFileRepository;
+import learn.mastery.data.HostRepository;
+import learn.mastery.data.ReservationFileRepository;
+import learn.mastery.domain.ReservationService;
+import learn.mastery.domain.Result;
+import learn.mastery.models.Guest;
+import learn.mastery.models.Host;
+import learn.mastery.models.Reservation;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReservationServiceBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Pricing {
+        // a long weekend versus two years
+        @Param({"3", "730"})
+        int nights;
+
+        ReservationService service;
+        Host host;
+        LocalDate startDate;
+        LocalDate endDate;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            service = new ReservationService(null, null, null);
+            host = new DataGenerator(42).host(1);
+            startDate = LocalDate.of(2030, 1, 4);
+            endDate = startDate.plusDays(nights - 1);
+        }
+    }
+
+    // a fresh data set per iteration so the host's file doesn't grow without bound
+    @State(Scope.Benchmark)
+    public static class Booking {
+        @Param({"1000"})
+        int existingReservations;
+
+        Path directory;
+        ReservationService service;
+        Host host;
+        Guest guest;
+        LocalDate nextStart;
+
+        @Setup(Level.Iteration)
+        public void setUp() throws IOException {
+            directory = DataGenerator.createTempDirectory();
+            new DataGenerator(42).generate(directory, 1000, 10, existingReservations);
+
+            GuestRepository guests = new CachedGuestRepository(
+                    new GuestFileRepository(directory.resolve("guests.csv").toString()));
+            HostRepository hosts = new CachedHostRepository(
+                    new HostFileRepository(directory.resolve("hosts.csv").toString()));
+            ReservationFileRepository reservations = new ReservationFileRepository(
+                    directory.resolve("reservations").toString(), guests, hosts);
+            service = new ReservationService(reservations, hosts, guests);
+
+            host = hosts.findByEmail(DataGenerator.hostEmail(1));
+            guest = guests.findByEmail(DataGenerator.guestEmail(1));
+            nextStart = LocalDate.now().plusYears(1000);
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws IOException {
+            DataGenerator.deleteRecursively(directory);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal calculateTotal(Pricing pricing) {
+        return pricing.service.calculateTotal(pricing.startDate, pricing.endDate, pricing.host);
+    }
+
+    @Benchmark
+    public Result<Reservation> makeReservation(Booking booking) throws IOException {
+        Reservation reservation = new Reservation();
+        reservation.setHost(booking.host);
+        reservation.setGuest(booking.guest);
+        reservation.setGuestId(booking.guest.getGuestId());
+        reservation.setStartDate(booking.nextStart);
+        reservation.setEndDate(booking.nextStart.plusDays(2));
+        booking.nextStart = booking.nextStart.plusDays(3);
+        return booking.service.makeReservation(reservation);
+    }
+}
@@ -0,0 +1,77 @@
+package learn.mastery.bench;
+
+import learn.mastery.data.CachedGuestRepository;
+import learn.mastery.data.CachedHostRepository;
+import learn.mastery.data.DataException;
+import learn.mastery.data.GuestFileRepository;
+import learn.mastery.data.HostFileRepository;
+import learn.mastery.data.ReservationFileRepository;
+import learn.mastery.models.Reservation;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// rewriting a whole host file: the old in-place String.format writer against the temp file + fsync + rename path
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReservationWriteBenchmark {
+
+    @Param({"100", "10000"})
+    int rows;
+
+    Path directory;
+    ReservationFileRepository repository;
+    List<Reservation> reservations;
+    Reservation toUpdate;
+    Path legacyFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = DataGenerator.createTempDirectory();
+        new DataGenerator(42).generate(directory, 1000, 1, rows);
+
+        GuestFileRepository guests = new GuestFileRepository(directory.resolve("guests.csv").toString());
+        HostFileRepository hosts = new HostFileRepository(directory.resolve("hosts.csv").toString());
+        repository = new ReservationFileRepository(directory.resolve("reservations").toString(),
+                new CachedGuestRepository(guests), new CachedHostRepository(hosts));
+
+        reservations = repository.findByHostId(DataGenerator.hostId(1));
+        toUpdate = reservations.get(reservations.size() / 2);
+        legacyFile = directory.resolve("legacy.csv");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        DataGenerator.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void legacyInPlaceRewrite() throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(legacyFile)) {
+            writer.write("id,start_date,end_date,guest_id,total\n");
+            for (Reservation reservation : reservations) {
+                writer.write(String.format("%d,%s,%s,%d,%s",
+                        reservation.getId(),
+                        reservation.getStartDate(),
+                        reservation.getEndDate(),
+                        reservation.getGuestId(),
+                        reservation.getTotal()));
+                writer.newLine();
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean atomicRewrite() throws DataException {
+        return repository.update(toUpdate);
+    }
+}
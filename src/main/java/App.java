@@ -1,18 +1,159 @@
+import learn.mastery.api.ApiServer;
 import learn.mastery.data.*;
+import learn.mastery.domain.AnalyticsService;
 import learn.mastery.domain.GuestService;
 import learn.mastery.domain.HostService;
+import learn.mastery.domain.ReservationImportService;
 import learn.mastery.domain.ReservationService;
+import learn.mastery.domain.Result;
+import learn.mastery.models.Reservation;
+import learn.mastery.models.ReservationImportRow;
+import learn.mastery.models.ReservationStats;
 import learn.mastery.ui.ConsoleIO;
 import learn.mastery.ui.Controller;
 import learn.mastery.ui.View;
 
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
 public class App {
     public static void main(String[] args) {
         ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext("spring-config.xml");
+
+        if (args.length > 0 && args[0].equals("rebuild-guest-index")) {
+            rebuildGuestIndex(context);
+            return;
+        }
+        if (args.length > 1 && args[0].equals("import-reservations")) {
+            importReservations(context, args[1], args.length > 2 ? args[2] : null);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("analytics")) {
+            runAnalytics(context, args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("server")) {
+            runServer(context);
+            return;
+        }
+
         Controller controller = context.getBean("controller", Controller.class);
         controller.run();
     }
-}
 
+    // serves until the process is stopped; the shutdown hook closes the context, which stops the server
+    private static void runServer(ClassPathXmlApplicationContext context) {
+        ApiServer server = context.getBean("apiServer", ApiServer.class);
+        try {
+            server.start();
+        } catch (IOException e) {
+            System.out.println("Could not start the server: " + e.getMessage());
+            context.close();
+            return;
+        }
+        context.registerShutdownHook();
+        System.out.printf("Listening on port %s.%n", server.getPort());
+    }
+
+    // import-reservations <csv or jsonl file> [report file]: books every row it can and reports each one,
+    // to the report file as csv when there is one and to the console otherwise
+    private static void importReservations(ClassPathXmlApplicationContext context, String filePath,
+                                           String reportPath) {
+        ReservationImportService service = context.getBean("reservationImportService",
+                ReservationImportService.class);
+        List<ReservationImportRow> rows;
+        List<Result<Reservation>> results;
+        try {
+            rows = ReservationImportFile.read(filePath);
+            results = service.importRows(rows);
+        } catch (DataException | IOException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+
+        int accepted = 0;
+        try (PrintStream report = reportPath == null ? null : new PrintStream(reportPath)) {
+            PrintStream out = report == null ? System.out : report;
+            out.println("line,status,host_id,reservation_id,errors");
+            for (int i = 0; i < rows.size(); i++) {
+                Result<Reservation> result = results.get(i);
+                Reservation reservation = result.getPayload();
+                if (result.isSuccess()) {
+                    accepted++;
+                    out.printf("%s,accepted,%s,%s,%n", rows.get(i).getLineNumber(),
+                            reservation.getHost().getId(), reservation.getId());
+                } else {
+                    out.printf("%s,rejected,,,%s%n", rows.get(i).getLineNumber(),
+                            String.join(" ", result.getErrorMessages()).replace(',', ';'));
+                }
+            }
+        } catch (FileNotFoundException e) {
+            System.out.println("Could not write the report: " + e.getMessage());
+        }
+        System.out.printf("Accepted %s of %s reservation(s), rejected %s.%n", accepted, rows.size(),
+                rows.size() - accepted);
+    }
+
+    // analytics [from to] [report file]: occupancy and revenue from one pass over every host's reservations,
+    // this calendar year unless dates are given. csv to the report file when there is one, the console otherwise.
+    private static void runAnalytics(ClassPathXmlApplicationContext context, String[] args) {
+        boolean hasDates = args.length > 2;
+        LocalDate from;
+        LocalDate to;
+        try {
+            from = hasDates ? LocalDate.parse(args[1]) : LocalDate.now().withDayOfYear(1);
+            to = hasDates ? LocalDate.parse(args[2]) : from.plusYears(1).minusDays(1);
+        } catch (DateTimeParseException e) {
+            System.out.println("usage: analytics [yyyy-MM-dd yyyy-MM-dd] [report file]");
+            return;
+        }
+        String reportPath = hasDates ? (args.length > 3 ? args[3] : null) : (args.length > 1 ? args[1] : null);
+
+        Result<List<ReservationStats>> result;
+        try {
+            result = context.getBean("analyticsService", AnalyticsService.class).report(from, to);
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+        if (!result.isSuccess()) {
+            result.getErrorMessages().forEach(System.out::println);
+            return;
+        }
+
+        try (PrintStream report = reportPath == null ? null : new PrintStream(reportPath)) {
+            PrintStream out = report == null ? System.out : report;
+            out.println("scope,key,reservations,booked_nights,available_nights,occupancy_rate,weekend_nights," +
+                    "weekday_nights,average_stay,revenue");
+            for (ReservationStats stats : result.getPayload()) {
+                out.printf("%s,%s,%s,%s,%s,%.4f,%s,%s,%.2f,%s%n", stats.getScope(), stats.getKey(),
+                        stats.getReservations(), stats.getBookedNights(), stats.getAvailableNights(),
+                        stats.getOccupancyRate(), stats.getWeekendNights(), stats.getWeekdayNights(),
+                        stats.getAverageStay(), stats.getRevenue().toPlainString());
+            }
+        } catch (FileNotFoundException e) {
+            System.out.println("Could not write the report: " + e.getMessage());
+            return;
+        }
+        if (reportPath != null) {
+            System.out.printf("Wrote %s row(s) for %s through %s to %s.%n", result.getPayload().size(), from, to,
+                    reportPath);
+        }
+    }
+
+    private static void rebuildGuestIndex(ClassPathXmlApplicationContext context) {
+        ReservationFileRepository repository = context.getBean("reservationFileRepository",
+                ReservationFileRepository.class);
+        try {
+            System.out.printf("Indexed %s reservation(s).%n", repository.rebuildGuestIndex());
+        } catch (DataException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+}
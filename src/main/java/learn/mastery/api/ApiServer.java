@@ -0,0 +1,446 @@
+package learn.mastery.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import learn.mastery.data.DataException;
+import learn.mastery.data.Json;
+import learn.mastery.domain.GuestService;
+import learn.mastery.domain.HostService;
+import learn.mastery.domain.ReservationService;
+import learn.mastery.domain.Result;
+import learn.mastery.models.Guest;
+import learn.mastery.models.Host;
+import learn.mastery.models.Reservation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// a JSON api over the same services the console uses. hosts and guests are named by email, the same as
+// in the console; dates are yyyy-MM-dd.
+//   GET    /api/hosts?email=                  the host
+//   GET    /api/reservations?hostEmail=       the host's reservations
+//   POST   /api/quotes                        {hostEmail, startDate, endDate} -> the total, nothing saved
+//   POST   /api/quotes                        {hostEmails: [...], startDate, endDate} -> every host's total
+//   POST   /api/reservations                  {hostEmail, guestEmail, startDate, endDate}
+//   PUT    /api/reservations/{id}             {hostEmail, startDate, endDate}; a missing date keeps its value
+//   DELETE /api/reservations/{id}?hostEmail=    -> {id, cancelled}
+// failures come back as {"errors": [...]}.
+public class ApiServer {
+    // connections the OS queues while every handler is busy, so a burst of clients isn't refused
+    private static final int BACKLOG = 1024;
+    private static final int DEFAULT_PLATFORM_THREADS = 200;
+
+    private final HostService hostService;
+    private final GuestService guestService;
+    private final ReservationService reservationService;
+    private final int port;
+    private final int platformThreads;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public ApiServer(HostService hostService, GuestService guestService, ReservationService reservationService,
+                     int port) {
+        this(hostService, guestService, reservationService, port, DEFAULT_PLATFORM_THREADS);
+    }
+
+    // platformThreads: handler threads when the JDK has no virtual threads; ignored when it does
+    public ApiServer(HostService hostService, GuestService guestService, ReservationService reservationService,
+                     int port, int platformThreads) {
+        this.hostService = hostService;
+        this.guestService = guestService;
+        this.reservationService = reservationService;
+        this.port = port;
+        this.platformThreads = platformThreads;
+    }
+
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            return;
+        }
+        server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        server.createContext("/api/hosts", exchange -> handle(exchange, this::hosts));
+        server.createContext("/api/reservations", exchange -> handle(exchange, this::reservations));
+        server.createContext("/api/quotes", exchange -> handle(exchange, this::quotes));
+        executor = requestExecutor(platformThreads);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    // lets requests in flight finish for up to a second
+    public synchronized void stop() {
+        stop(1);
+    }
+
+    // waits up to delaySeconds for requests in flight; 0 stops at once
+    public synchronized void stop(int delaySeconds) {
+        if (server == null) {
+            return;
+        }
+        server.stop(delaySeconds);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        server = null;
+        executor = null;
+    }
+
+    // the port actually bound, which differs from the configured one when that was 0
+    public synchronized int getPort() {
+        return server == null ? port : server.getAddress().getPort();
+    }
+
+    // one virtual thread per request on JDKs that have them (21+), looked up by name so this still
+    // compiles and runs on 17; a fixed pool of platform threads otherwise
+    static ExecutorService requestExecutor(int platformThreads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newFixedThreadPool(platformThreads, runnable -> {
+                Thread thread = new Thread(runnable, "api-request-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    // ROUTES ROUTES ROUTES ROUTES ROUTES ROUTES ROUTES ROUTES ROUTES ROUTES ROUTES ROUTES ROUTES
+    private Reply hosts(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET") || hasId(exchange, "/api/hosts")) {
+            return Reply.notAllowed();
+        }
+        Result<Host> hostResult = hostService.findHostByEmail(queryParameter(exchange, "email"));
+        if (!hostResult.isSuccess()) {
+            return Reply.errors(404, hostResult.getErrorMessages());
+        }
+        return Reply.ok(toJson(hostResult.getPayload()));
+    }
+
+    private Reply reservations(HttpExchange exchange) throws IOException, DataException {
+        String method = exchange.getRequestMethod();
+        if (!hasId(exchange, "/api/reservations")) {
+            if (method.equals("GET")) {
+                return listReservations(queryParameter(exchange, "hostEmail"));
+            }
+            if (method.equals("POST")) {
+                return makeReservation(readBody(exchange));
+            }
+            return Reply.notAllowed();
+        }
+
+        int reservationId = pathId(exchange, "/api/reservations");
+        if (method.equals("PUT")) {
+            return editReservation(reservationId, readBody(exchange));
+        }
+        if (method.equals("DELETE")) {
+            return cancelReservation(reservationId, queryParameter(exchange, "hostEmail"));
+        }
+        return Reply.notAllowed();
+    }
+
+    private Reply quotes(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("POST") || hasId(exchange, "/api/quotes")) {
+            return Reply.notAllowed();
+        }
+        Map<String, Object> body = readBody(exchange);
+        if (body.containsKey("hostEmails")) {
+            return compareQuotes(body);
+        }
+        Result<Host> hostResult = hostService.findHostByEmail(requiredString(body, "hostEmail"));
+        if (!hostResult.isSuccess()) {
+            return Reply.errors(404, hostResult.getErrorMessages());
+        }
+        LocalDate startDate = requiredDate(body, "startDate");
+        LocalDate endDate = requiredDate(body, "endDate");
+        if (!startDate.isBefore(endDate)) {
+            return Reply.errors(400, List.of("Start date must come before end date."));
+        }
+
+        Map<String, Object> quote = new LinkedHashMap<>();
+        quote.put("hostId", hostResult.getPayload().getId());
+        quote.put("startDate", startDate);
+        quote.put("endDate", endDate);
+        quote.put("total", reservationService.calculateTotal(startDate, endDate, hostResult.getPayload()));
+        return Reply.ok(quote);
+    }
+
+    // one stay priced at many hosts, for comparing them; any unknown email fails the whole request
+    private Reply compareQuotes(Map<String, Object> body) throws IOException {
+        if (!(body.get("hostEmails") instanceof List)) {
+            throw new BadRequestException("hostEmails must be a list of emails.");
+        }
+        List<Host> hosts = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        for (Object email : (List<?>) body.get("hostEmails")) {
+            Result<Host> hostResult = hostService.findHostByEmail(email instanceof String ? (String) email : "");
+            if (hostResult.isSuccess()) {
+                hosts.add(hostResult.getPayload());
+            } else {
+                errors.addAll(hostResult.getErrorMessages());
+            }
+        }
+        if (!errors.isEmpty()) {
+            return Reply.errors(404, errors);
+        }
+        LocalDate startDate = requiredDate(body, "startDate");
+        LocalDate endDate = requiredDate(body, "endDate");
+        if (!startDate.isBefore(endDate)) {
+            return Reply.errors(400, List.of("Start date must come before end date."));
+        }
+
+        List<BigDecimal> totals = reservationService.quoteHostsForRange(startDate, endDate, hosts);
+        List<Map<String, Object>> quotes = new ArrayList<>();
+        for (int i = 0; i < hosts.size(); i++) {
+            Map<String, Object> quote = new LinkedHashMap<>();
+            quote.put("hostId", hosts.get(i).getId());
+            quote.put("hostEmail", hosts.get(i).getEmail());
+            quote.put("total", totals.get(i));
+            quotes.add(quote);
+        }
+        Map<String, Object> comparison = new LinkedHashMap<>();
+        comparison.put("startDate", startDate);
+        comparison.put("endDate", endDate);
+        comparison.put("quotes", quotes);
+        return Reply.ok(comparison);
+    }
+
+    private Reply listReservations(String hostEmail) throws IOException {
+        Result<Host> hostResult = hostService.findHostByEmail(hostEmail);
+        if (!hostResult.isSuccess()) {
+            return Reply.errors(404, hostResult.getErrorMessages());
+        }
+        List<Object> reservations = new ArrayList<>();
+        for (Reservation reservation : reservationService.findByHostId(hostResult.getPayload().getId())) {
+            reservations.add(toJson(reservation));
+        }
+        return Reply.ok(reservations);
+    }
+
+    private Reply makeReservation(Map<String, Object> body) throws IOException {
+        Result<Host> hostResult = hostService.findHostByEmail(requiredString(body, "hostEmail"));
+        if (!hostResult.isSuccess()) {
+            return Reply.errors(404, hostResult.getErrorMessages());
+        }
+        Result<Guest> guestResult = guestService.findGuestByEmail(requiredString(body, "guestEmail"));
+        if (!guestResult.isSuccess()) {
+            return Reply.errors(404, guestResult.getErrorMessages());
+        }
+
+        Reservation reservation = new Reservation();
+        reservation.setHost(hostResult.getPayload());
+        reservation.setGuest(guestResult.getPayload());
+        reservation.setGuestId(guestResult.getPayload().getGuestId());
+        reservation.setStartDate(requiredDate(body, "startDate"));
+        reservation.setEndDate(requiredDate(body, "endDate"));
+
+        Result<Reservation> saveResult = reservationService.makeReservation(reservation);
+        if (!saveResult.isSuccess()) {
+            return Reply.errors(409, saveResult.getErrorMessages());
+        }
+        return new Reply(201, toJson(saveResult.getPayload()));
+    }
+
+    private Reply editReservation(int reservationId, Map<String, Object> body) throws IOException, DataException {
+        Result<Host> hostResult = hostService.findHostByEmail(requiredString(body, "hostEmail"));
+        if (!hostResult.isSuccess()) {
+            return Reply.errors(404, hostResult.getErrorMessages());
+        }
+        Reservation reservation = reservationService.findReservation(hostResult.getPayload().getId(), reservationId);
+        if (reservation == null) {
+            return Reply.errors(404, List.of("Reservation not found."));
+        }
+        if (body.get("startDate") != null) {
+            reservation.setStartDate(requiredDate(body, "startDate"));
+        }
+        if (body.get("endDate") != null) {
+            reservation.setEndDate(requiredDate(body, "endDate"));
+        }
+
+        Result<Reservation> updateResult = reservationService.updateReservation(reservation);
+        if (!updateResult.isSuccess()) {
+            return Reply.errors(409, updateResult.getErrorMessages());
+        }
+        return Reply.ok(toJson(updateResult.getPayload()));
+    }
+
+    private Reply cancelReservation(int reservationId, String hostEmail) throws IOException {
+        Result<Host> hostResult = hostService.findHostByEmail(hostEmail);
+        if (!hostResult.isSuccess()) {
+            return Reply.errors(404, hostResult.getErrorMessages());
+        }
+        Result<Boolean> cancellationResult = reservationService.deleteReservation(reservationId,
+                hostResult.getPayload().getId());
+        if (!cancellationResult.isSuccess()) {
+            return Reply.errors(409, cancellationResult.getErrorMessages());
+        }
+        Map<String, Object> cancelled = new LinkedHashMap<>();
+        cancelled.put("id", reservationId);
+        cancelled.put("cancelled", true);
+        return Reply.ok(cancelled);
+    }
+
+    // HELPERS HELPERS HELPERS HELPERS HELPERS HELPERS HELPERS HELPERS HELPERS HELPERS HELPERS
+    private static void handle(HttpExchange exchange, Route route) throws IOException {
+        Reply reply;
+        try {
+            reply = route.handle(exchange);
+        } catch (BadRequestException e) {
+            reply = Reply.errors(400, List.of(e.getMessage()));
+        } catch (IOException | DataException | RuntimeException e) {
+            reply = Reply.errors(500, List.of("Something went wrong: " + e.getMessage()));
+        }
+
+        try (exchange) {
+            byte[] bytes = Json.write(reply.body).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(reply.status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            try {
+                return Json.parseObject(text);
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Body isn't a JSON object: " + e.getMessage());
+            }
+        }
+    }
+
+    private static String queryParameter(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                int equals = pair.indexOf('=');
+                String key = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), StandardCharsets.UTF_8);
+                if (key.equals(name)) {
+                    return equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+                }
+            }
+        }
+        throw new BadRequestException(name + " is required.");
+    }
+
+    private static boolean hasId(HttpExchange exchange, String context) {
+        String path = exchange.getRequestURI().getPath();
+        return path.length() > context.length() + 1;
+    }
+
+    private static int pathId(HttpExchange exchange, String context) {
+        String id = exchange.getRequestURI().getPath().substring(context.length() + 1);
+        try {
+            return Integer.parseInt(id);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Reservation id must be a number.");
+        }
+    }
+
+    private static String requiredString(Map<String, Object> body, String name) {
+        Object value = body.get(name);
+        if (!(value instanceof String) || ((String) value).isBlank()) {
+            throw new BadRequestException(name + " is required.");
+        }
+        return (String) value;
+    }
+
+    private static LocalDate requiredDate(Map<String, Object> body, String name) {
+        try {
+            return LocalDate.parse(requiredString(body, name));
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException(name + " must be a date like 2030-01-31.");
+        }
+    }
+
+    private static Map<String, Object> toJson(Host host) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", host.getId());
+        json.put("lastName", host.getLastName());
+        json.put("email", host.getEmail());
+        json.put("phone", host.getPhone());
+        json.put("address", host.getAddress());
+        json.put("city", host.getCity());
+        json.put("state", host.getState());
+        json.put("postalCode", host.getPostalCode());
+        json.put("standardRate", host.getStandardRate());
+        json.put("weekendRate", host.getWeekendRate());
+        return json;
+    }
+
+    private static Map<String, Object> toJson(Reservation reservation) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", reservation.getId());
+        json.put("hostId", reservation.getHost() == null ? null : reservation.getHost().getId());
+        json.put("guestId", reservation.getGuestId());
+        json.put("guestEmail", reservation.getGuest() == null ? null : reservation.getGuest().getEmail());
+        json.put("startDate", reservation.getStartDate());
+        json.put("endDate", reservation.getEndDate());
+        json.put("total", reservation.getTotal());
+        return json;
+    }
+
+    @FunctionalInterface
+    private interface Route {
+        Reply handle(HttpExchange exchange) throws IOException, DataException;
+    }
+
+    // a status and a body to write as JSON. every reply has a body: the JDK server closes the connection
+    // after a bodiless 204, which races with clients that keep it alive for the next request.
+    private static class Reply {
+        private final int status;
+        private final Object body;
+
+        Reply(int status, Object body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        static Reply ok(Object body) {
+            return new Reply(200, body);
+        }
+
+        static Reply errors(int status, List<String> messages) {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("errors", messages);
+            return new Reply(status, body);
+        }
+
+        static Reply notAllowed() {
+            return errors(405, List.of("Method not allowed."));
+        }
+    }
+
+    private static class BadRequestException extends RuntimeException {
+        BadRequestException(String message) {
+            super(message);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ApiServer{" +
+                "port=" + port +
+                '}';
+    }
+}
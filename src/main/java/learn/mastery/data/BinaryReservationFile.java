@@ -0,0 +1,215 @@
+package learn.mastery.data;
+
+import learn.mastery.models.Reservation;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// one host's reservations as fixed-width records, so nothing has to be parsed to read them.
+// layout: an 8 byte header (magic, last id handed out) then 24 byte records sorted by start date:
+//   int id, int start epoch day, int end epoch day, int guest id, long total in cents
+// a total with fractions of a cent can't be stored; writing one fails rather than rounding it.
+final class BinaryReservationFile {
+    static final String EXTENSION = ".bin";
+    static final int MAGIC = 0x52535631; // "RSV1"
+    static final int HEADER_BYTES = 8;
+    static final int RECORD_BYTES = 24;
+
+    // a reservation saved without a total
+    private static final long NO_TOTAL = Long.MIN_VALUE;
+
+    private BinaryReservationFile() {
+    }
+
+    // what's in a file: reservations come back without their Guest and Host filled in
+    static final class Contents {
+        final int lastId;
+        final List<Reservation> reservations;
+
+        Contents(int lastId, List<Reservation> reservations) {
+            this.lastId = lastId;
+            this.reservations = reservations;
+        }
+    }
+
+    // a missing file is an empty one
+    static Contents read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            int count = recordCount(channel, path);
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + count * RECORD_BYTES);
+            readFully(channel, buffer, 0);
+
+            List<Reservation> reservations = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                reservations.add(decode(buffer, HEADER_BYTES + i * RECORD_BYTES));
+            }
+            return new Contents(buffer.getInt(4), reservations);
+        } catch (NoSuchFileException e) {
+            return new Contents(0, new ArrayList<>());
+        }
+    }
+
+    // reservations starting between from and to, inclusive. the start dates are found with a binary search
+    // over the file itself, then only the matching records are read.
+    static List<Reservation> readStartingBetween(Path path, LocalDate from, LocalDate to) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            int count = recordCount(channel, path);
+            int first = firstStartingOnOrAfter(channel, count, from.toEpochDay());
+            int end = firstStartingOnOrAfter(channel, count, to.toEpochDay() + 1);
+
+            List<Reservation> reservations = new ArrayList<>(Math.max(0, end - first));
+            if (end <= first) {
+                return reservations;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((end - first) * RECORD_BYTES);
+            readFully(channel, buffer, offsetOf(first));
+            for (int i = 0; i < end - first; i++) {
+                reservations.add(decode(buffer, i * RECORD_BYTES));
+            }
+            return reservations;
+        } catch (NoSuchFileException e) {
+            return new ArrayList<>();
+        }
+    }
+
+    // replaces the whole file through a synced temp file and a rename, like the csv repository does
+    static void write(Path path, int lastId, List<Reservation> reservations) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + reservations.size() * RECORD_BYTES);
+        buffer.putInt(MAGIC);
+        buffer.putInt(lastId);
+        for (Reservation reservation : reservations) {
+            encode(reservation, buffer);
+        }
+        buffer.flip();
+
+        Path tempPath = path.resolveSibling(path.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+        syncDirectory(path.getParent());
+    }
+
+    // overwrites the record at index without touching the rest of the file
+    static void writeRecord(Path path, int index, Reservation reservation) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_BYTES);
+        encode(reservation, buffer);
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            long position = offsetOf(index);
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            channel.force(false);
+        }
+    }
+
+    // throws ArithmeticException for fractions of a cent or a total too big for a long
+    static long toCents(BigDecimal total) {
+        if (total == null) {
+            return NO_TOTAL;
+        }
+        return total.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    static BigDecimal fromCents(long cents) {
+        return cents == NO_TOTAL ? null : BigDecimal.valueOf(cents, 2);
+    }
+
+    // HELPERS
+    private static int recordCount(FileChannel channel, Path path) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_BYTES || (size - HEADER_BYTES) % RECORD_BYTES != 0) {
+            throw new IOException(path + " is not a reservation file: unexpected size " + size);
+        }
+        ByteBuffer magic = ByteBuffer.allocate(4);
+        readFully(channel, magic, 0);
+        if (magic.getInt(0) != MAGIC) {
+            throw new IOException(path + " is not a reservation file: bad header");
+        }
+        return (int) ((size - HEADER_BYTES) / RECORD_BYTES);
+    }
+
+    private static int firstStartingOnOrAfter(FileChannel channel, int count, long day) throws IOException {
+        ByteBuffer start = ByteBuffer.allocate(4);
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            start.clear();
+            readFully(channel, start, offsetOf(mid) + 4);
+            if (start.getInt(0) < day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static long offsetOf(int index) {
+        return HEADER_BYTES + (long) index * RECORD_BYTES;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("unexpected end of reservation file");
+            }
+            position += read;
+        }
+    }
+
+    private static void encode(Reservation reservation, ByteBuffer buffer) throws IOException {
+        long cents;
+        try {
+            cents = toCents(reservation.getTotal());
+        } catch (ArithmeticException e) {
+            throw new IOException("Reservation " + reservation.getId() + " has a total of "
+                    + reservation.getTotal().toPlainString() + ", which can't be stored in whole cents.", e);
+        }
+        buffer.putInt(reservation.getId());
+        buffer.putInt(Math.toIntExact(reservation.getStartDate().toEpochDay()));
+        buffer.putInt(Math.toIntExact(reservation.getEndDate().toEpochDay()));
+        buffer.putInt(reservation.getGuestId());
+        buffer.putLong(cents);
+    }
+
+    private static Reservation decode(ByteBuffer buffer, int offset) {
+        int id = buffer.getInt(offset);
+        LocalDate startDate = LocalDate.ofEpochDay(buffer.getInt(offset + 4));
+        LocalDate endDate = LocalDate.ofEpochDay(buffer.getInt(offset + 8));
+        int guestId = buffer.getInt(offset + 12);
+        BigDecimal total = fromCents(buffer.getLong(offset + 16));
+        return new Reservation(id, startDate, endDate, null, null, guestId, total);
+    }
+
+    // not every platform lets a directory be opened, which is fine
+    private static void syncDirectory(Path directoryPath) {
+        try (FileChannel channel = FileChannel.open(directoryPath, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+        }
+    }
+}
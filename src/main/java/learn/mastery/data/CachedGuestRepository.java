@@ -0,0 +1,131 @@
+package learn.mastery.data;
+
+import learn.mastery.models.Guest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// keeps guests in memory, indexed by id and email, and only re-reads the file when it changes
+public class CachedGuestRepository implements GuestRepository {
+    // ids are auto-incremented, so an array indexed by id is used unless they are very sparse
+    private static final int MAX_ID_SLACK = 1024;
+
+    private final GuestFileRepository delegate;
+    private final FileStamp stamp;
+    private volatile Snapshot snapshot;
+
+    public CachedGuestRepository(GuestFileRepository delegate) {
+        this.delegate = delegate;
+        this.stamp = new FileStamp(delegate.getFilePath());
+    }
+
+    @Override
+    public List<Guest> findAll() throws IOException {
+        return new ArrayList<>(current().guests);
+    }
+
+    @Override
+    public Guest findById(int guestId) throws IOException {
+        return current().byId(guestId);
+    }
+
+    @Override
+    public Guest findByEmail(String email) throws IOException {
+        if (email == null) {
+            return null;
+        }
+        // toLowerCase returns the same instance when nothing needs lowering
+        return current().byEmail.get(email.toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    public Map<Integer, Guest> findByIds(Set<Integer> guestIds) throws IOException {
+        Snapshot current = current();
+        Map<Integer, Guest> guests = new HashMap<>();
+        for (int guestId : guestIds) {
+            Guest guest = current.byId(guestId);
+            if (guest != null) {
+                guests.put(guestId, guest);
+            }
+        }
+        return guests;
+    }
+
+    // HELPERS
+    private Snapshot current() throws IOException {
+        // stamp before reading so a write that lands mid-read is picked up next time
+        boolean changed = stamp.hasChanged();
+        Snapshot current = snapshot;
+        if (current != null && !changed) {
+            return current;
+        }
+        synchronized (this) {
+            try {
+                current = new Snapshot(delegate.findAll());
+            } catch (IOException e) {
+                stamp.reset();
+                throw e;
+            }
+            snapshot = current;
+            return current;
+        }
+    }
+
+    private static class Snapshot {
+        private final List<Guest> guests;
+        private final Guest[] denseById;
+        private final Map<Integer, Guest> sparseById;
+        private final Map<String, Guest> byEmail;
+
+        Snapshot(List<Guest> guests) {
+            this.guests = guests;
+
+            int maxId = 0;
+            for (Guest guest : guests) {
+                maxId = Math.max(maxId, guest.getGuestId());
+            }
+
+            byEmail = new HashMap<>(guests.size() * 2);
+            if (maxId <= guests.size() * 2 + MAX_ID_SLACK) {
+                denseById = new Guest[maxId + 1];
+                sparseById = null;
+            } else {
+                denseById = null;
+                sparseById = new HashMap<>(guests.size() * 2);
+            }
+
+            for (Guest guest : guests) {
+                int id = guest.getGuestId();
+                if (denseById != null) {
+                    if (id >= 0 && denseById[id] == null) {
+                        denseById[id] = guest;
+                    }
+                } else {
+                    sparseById.putIfAbsent(id, guest);
+                }
+                if (guest.getEmail() != null) {
+                    byEmail.putIfAbsent(guest.getEmail().toLowerCase(Locale.ROOT), guest);
+                }
+            }
+        }
+
+        Guest byId(int guestId) {
+            if (denseById != null) {
+                return guestId >= 0 && guestId < denseById.length ? denseById[guestId] : null;
+            }
+            return sparseById.get(guestId);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CachedGuestRepository{" +
+                "delegate=" + delegate +
+                '}';
+    }
+}
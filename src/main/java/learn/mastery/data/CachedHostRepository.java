@@ -0,0 +1,103 @@
+package learn.mastery.data;
+
+import learn.mastery.models.Host;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// keeps hosts in memory, indexed by id, email, state and city, and only re-reads the file when it changes
+public class CachedHostRepository implements HostRepository {
+    private final HostFileRepository delegate;
+    private final FileStamp stamp;
+    private volatile Snapshot snapshot;
+
+    public CachedHostRepository(HostFileRepository delegate) {
+        this.delegate = delegate;
+        this.stamp = new FileStamp(delegate.getFilePath());
+    }
+
+    @Override
+    public List<Host> findAll() throws IOException {
+        return new ArrayList<>(current().hosts);
+    }
+
+    @Override
+    public Host findById(String hostId) throws IOException {
+        return hostId == null ? null : current().byId.get(key(hostId));
+    }
+
+    @Override
+    public Host findByEmail(String email) throws IOException {
+        return email == null ? null : current().byEmail.get(key(email));
+    }
+
+    @Override
+    public List<Host> findByState(String state) throws IOException {
+        return copyOf(current().byState.get(key(state)));
+    }
+
+    @Override
+    public List<Host> findByCity(String city) throws IOException {
+        return copyOf(current().byCity.get(key(city)));
+    }
+
+    // HELPERS
+    private Snapshot current() throws IOException {
+        // stamp before reading so a write that lands mid-read is picked up next time
+        boolean changed = stamp.hasChanged();
+        Snapshot current = snapshot;
+        if (current != null && !changed) {
+            return current;
+        }
+        synchronized (this) {
+            try {
+                current = new Snapshot(delegate.findAll());
+            } catch (IOException e) {
+                stamp.reset();
+                throw e;
+            }
+            snapshot = current;
+            return current;
+        }
+    }
+
+    private static String key(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static List<Host> copyOf(List<Host> hosts) {
+        return hosts == null ? new ArrayList<>() : new ArrayList<>(hosts);
+    }
+
+    private static class Snapshot {
+        private final List<Host> hosts;
+        private final Map<String, Host> byId;
+        private final Map<String, Host> byEmail;
+        private final Map<String, List<Host>> byState = new HashMap<>();
+        private final Map<String, List<Host>> byCity = new HashMap<>();
+
+        Snapshot(List<Host> hosts) {
+            this.hosts = hosts;
+            byId = new HashMap<>(hosts.size() * 2);
+            byEmail = new HashMap<>(hosts.size() * 2);
+
+            for (Host host : hosts) {
+                byId.putIfAbsent(key(host.getId()), host);
+                byEmail.putIfAbsent(key(host.getEmail()), host);
+                byState.computeIfAbsent(key(host.getState()), k -> new ArrayList<>()).add(host);
+                byCity.computeIfAbsent(key(host.getCity()), k -> new ArrayList<>()).add(host);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CachedHostRepository{" +
+                "delegate=" + delegate +
+                '}';
+    }
+}
@@ -0,0 +1,365 @@
+package learn.mastery.data;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+// walks a comma separated file one line at a time straight out of a byte buffer.
+// a line is only split into field offsets; ints, dates and decimals are parsed from the bytes
+// and a String is only created when a text field is actually asked for.
+// fields are unquoted, the same as every file under ./data.
+class CsvReader implements AutoCloseable {
+    private static final byte COMMA = ',';
+    private static final byte NEWLINE = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+    // openInBlocks reads this much of the file at a time, more only for a line that doesn't fit
+    private static final int BLOCK_BYTES = 8192;
+
+    private ByteBuffer buffer;
+    private byte[] array;
+    private final int arrayOffset;
+    private int limit;
+    // set when the file is read a block at a time; offsets are then into the current block only
+    private final FileChannel channel;
+    private boolean endOfInput;
+
+    private int position;
+    private int lineStart;
+    private int lineEnd;
+    private int fieldCount;
+    // start of field i at [2i], one past its end at [2i + 1]
+    private int[] bounds = new int[32];
+    private byte[] scratch;
+
+    CsvReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.array = buffer.hasArray() ? buffer.array() : null;
+        this.arrayOffset = buffer.hasArray() ? buffer.arrayOffset() : 0;
+        this.position = buffer.position();
+        this.limit = buffer.limit();
+        this.channel = null;
+    }
+
+    private CsvReader(FileChannel channel) {
+        this.array = new byte[BLOCK_BYTES];
+        this.buffer = ByteBuffer.wrap(array);
+        this.arrayOffset = 0;
+        this.position = 0;
+        this.limit = 0;
+        this.channel = channel;
+    }
+
+    static CsvReader open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File is too large to read: " + path);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the file is in memory
+            }
+            buffer.flip();
+            return new CsvReader(buffer);
+        }
+    }
+
+    // reads the file a block at a time as lines are asked for, so a caller that stops early never reads
+    // the rest of it. close it when done. seek and the line offsets only make sense within a block.
+    static CsvReader openInBlocks(Path path) throws IOException {
+        return new CsvReader(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    // moves to the next line and splits it into fields; false once the input is used up.
+    // a read that fails on a reader opened in blocks throws UncheckedIOException.
+    boolean nextLine() {
+        if (channel != null) {
+            fillLine();
+        }
+        if (position >= limit) {
+            return false;
+        }
+        lineStart = position;
+        fieldCount = 0;
+
+        int fieldStart = position;
+        int i = position;
+        while (i < limit) {
+            byte b = byteAt(i);
+            if (b == NEWLINE) {
+                break;
+            }
+            if (b == COMMA) {
+                addField(fieldStart, i);
+                fieldStart = i + 1;
+            }
+            i++;
+        }
+
+        int end = i;
+        if (end > fieldStart && byteAt(end - 1) == CARRIAGE_RETURN) {
+            end--;
+        }
+        addField(fieldStart, end);
+        lineEnd = end;
+        position = i < limit ? i + 1 : limit;
+        return true;
+    }
+
+    int fieldCount() {
+        return fieldCount;
+    }
+
+    // the field count String.split(",") would report: trailing empty fields don't count
+    int fieldCountWithoutTrailingEmpties() {
+        int count = fieldCount;
+        while (count > 0 && isEmpty(count - 1)) {
+            count--;
+        }
+        return count;
+    }
+
+    int lineStart() {
+        return lineStart;
+    }
+
+    int lineEnd() {
+        return lineEnd;
+    }
+
+    // offset just past the current line and its line break
+    int nextLineStart() {
+        return position;
+    }
+
+    // jump to an absolute offset, which must be the start of a line
+    void seek(int offset) {
+        position = offset;
+    }
+
+    int fieldStart(int field) {
+        return bounds[field * 2];
+    }
+
+    int fieldEnd(int field) {
+        return bounds[field * 2 + 1];
+    }
+
+    boolean isEmpty(int field) {
+        return fieldEnd(field) == fieldStart(field);
+    }
+
+    String getString(int field) {
+        int start = fieldStart(field);
+        int length = fieldEnd(field) - start;
+        if (array != null) {
+            return new String(array, arrayOffset + start, length, StandardCharsets.UTF_8);
+        }
+        if (scratch == null || scratch.length < length) {
+            scratch = new byte[Math.max(64, length)];
+        }
+        for (int i = 0; i < length; i++) {
+            scratch[i] = buffer.get(start + i);
+        }
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    int parseInt(int field) {
+        long value = parseWholeNumber(field);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE || value == Long.MIN_VALUE) {
+            return Integer.parseInt(getString(field));
+        }
+        return (int) value;
+    }
+
+    // yyyy-MM-dd; anything else goes through LocalDate.parse so errors look the same as before
+    LocalDate parseDate(int field) {
+        int start = fieldStart(field);
+        if (fieldEnd(field) - start == 10 && byteAt(start + 4) == '-' && byteAt(start + 7) == '-') {
+            int year = digits(start, 4);
+            int month = digits(start + 5, 2);
+            int day = digits(start + 8, 2);
+            if (year >= 0 && month >= 0 && day >= 0) {
+                return LocalDate.of(year, month, day);
+            }
+        }
+        return LocalDate.parse(getString(field));
+    }
+
+    // plain decimals such as 368.75 are built from an unscaled long, which keeps the same scale new BigDecimal(text) would
+    BigDecimal parseDecimal(int field) {
+        int start = fieldStart(field);
+        int end = fieldEnd(field);
+        int i = start;
+        boolean negative = false;
+        if (i < end && (byteAt(i) == '-' || byteAt(i) == '+')) {
+            negative = byteAt(i) == '-';
+            i++;
+        }
+
+        long unscaled = 0;
+        int digitCount = 0;
+        int scale = -1;
+        for (; i < end; i++) {
+            byte b = byteAt(i);
+            if (b == '.' && scale < 0) {
+                scale = 0;
+                continue;
+            }
+            if (b < '0' || b > '9' || digitCount == 18) {
+                return new BigDecimal(getString(field));
+            }
+            unscaled = unscaled * 10 + (b - '0');
+            digitCount++;
+            if (scale >= 0) {
+                scale++;
+            }
+        }
+        if (digitCount == 0) {
+            return new BigDecimal(getString(field));
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, Math.max(scale, 0));
+    }
+
+    boolean fieldEquals(int field, String value) {
+        return compare(field, value, false);
+    }
+
+    boolean fieldEqualsIgnoreCase(int field, String value) {
+        return compare(field, value, true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    // HELPERS
+    // reads blocks until the line starting at position is whole in the array, or the file has run out.
+    // what's still unread moves to the front first, and the array only grows for a line longer than it.
+    private void fillLine() {
+        int scanned = position;
+        while (!endOfInput) {
+            for (; scanned < limit; scanned++) {
+                if (array[scanned] == NEWLINE) {
+                    return;
+                }
+            }
+            int kept = limit - position;
+            if (kept == array.length) {
+                array = Arrays.copyOf(array, array.length * 2);
+                buffer = ByteBuffer.wrap(array);
+            }
+            System.arraycopy(array, position, array, 0, kept);
+            scanned -= position;
+            position = 0;
+            limit = kept;
+            try {
+                int read = channel.read(ByteBuffer.wrap(array, limit, array.length - limit));
+                if (read < 0) {
+                    endOfInput = true;
+                } else {
+                    limit += read;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount * 2 + 2 > bounds.length) {
+            bounds = Arrays.copyOf(bounds, bounds.length * 2);
+        }
+        bounds[fieldCount * 2] = start;
+        bounds[fieldCount * 2 + 1] = end;
+        fieldCount++;
+    }
+
+    private byte byteAt(int offset) {
+        return array != null ? array[arrayOffset + offset] : buffer.get(offset);
+    }
+
+    // sign and digits only; Long.MIN_VALUE when the field isn't a whole number
+    private long parseWholeNumber(int field) {
+        int start = fieldStart(field);
+        int end = fieldEnd(field);
+        int i = start;
+        boolean negative = false;
+        if (i < end && (byteAt(i) == '-' || byteAt(i) == '+')) {
+            negative = byteAt(i) == '-';
+            i++;
+        }
+        if (i == end || end - i > 18) {
+            return Long.MIN_VALUE;
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            byte b = byteAt(i);
+            if (b < '0' || b > '9') {
+                return Long.MIN_VALUE;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    private int digits(int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            byte b = byteAt(i);
+            if (b < '0' || b > '9') {
+                return -1;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    private boolean compare(int field, String value, boolean ignoreCase) {
+        int start = fieldStart(field);
+        int length = fieldEnd(field) - start;
+        if (value == null || length != value.length()) {
+            // lengths can only differ for the same text when it isn't plain ascii
+            return value != null && !isAscii(start, length) && matchesDecoded(field, value, ignoreCase);
+        }
+        for (int i = 0; i < length; i++) {
+            int b = byteAt(start + i) & 0xFF;
+            char c = value.charAt(i);
+            if (b >= 0x80 || c >= 0x80) {
+                return matchesDecoded(field, value, ignoreCase);
+            }
+            if (b != c && (!ignoreCase || toLower(b) != toLower(c))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matchesDecoded(int field, String value, boolean ignoreCase) {
+        String decoded = getString(field);
+        return ignoreCase ? decoded.equalsIgnoreCase(value) : decoded.equals(value);
+    }
+
+    private boolean isAscii(int start, int length) {
+        for (int i = start; i < start + length; i++) {
+            if (byteAt(i) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int toLower(int c) {
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+}
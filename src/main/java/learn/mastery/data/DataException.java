@@ -2,6 +2,10 @@ package learn.mastery.data;
 
 public class DataException extends Throwable {
     public DataException(String message) {
-        super();
+        super(message);
+    }
+
+    public DataException(String message, Throwable cause) {
+        super(message, cause);
     }
 }
@@ -0,0 +1,102 @@
+package learn.mastery.data;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// an embedded H2 database holding guests, hosts and reservations in one file (<filePath>.mv.db).
+// H2 stores every table and index as a B-tree inside that single page-structured file, so there's
+// no file per host to open and close. the file and its schema are created on first use.
+public class Database implements AutoCloseable {
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS guests (" +
+                    "guest_id INT PRIMARY KEY, " +
+                    "first_name VARCHAR(100), " +
+                    "last_name VARCHAR(100), " +
+                    "email VARCHAR_IGNORECASE(255) NOT NULL, " +
+                    "phone VARCHAR(50), " +
+                    "state VARCHAR_IGNORECASE(50))",
+            "CREATE INDEX IF NOT EXISTS guests_email ON guests (email)",
+
+            "CREATE TABLE IF NOT EXISTS hosts (" +
+                    "id VARCHAR_IGNORECASE(64) PRIMARY KEY, " +
+                    "last_name VARCHAR(100), " +
+                    "email VARCHAR_IGNORECASE(255) NOT NULL, " +
+                    "phone VARCHAR(50), " +
+                    "address VARCHAR(255), " +
+                    "city VARCHAR_IGNORECASE(100), " +
+                    "state VARCHAR_IGNORECASE(50), " +
+                    "postal_code VARCHAR(20), " +
+                    "standard_rate DECIMAL(12, 2), " +
+                    "weekend_rate DECIMAL(12, 2))",
+            "CREATE INDEX IF NOT EXISTS hosts_email ON hosts (email)",
+            "CREATE INDEX IF NOT EXISTS hosts_state ON hosts (state)",
+            "CREATE INDEX IF NOT EXISTS hosts_city ON hosts (city)",
+
+            "CREATE TABLE IF NOT EXISTS reservations (" +
+                    "host_id VARCHAR_IGNORECASE(64) NOT NULL, " +
+                    "id INT NOT NULL, " +
+                    "start_date DATE NOT NULL, " +
+                    "end_date DATE NOT NULL, " +
+                    "guest_id INT NOT NULL, " +
+                    "total DECIMAL(14, 2), " +
+                    "PRIMARY KEY (host_id, id))",
+            "CREATE INDEX IF NOT EXISTS reservations_host_start ON reservations (host_id, start_date)",
+            "CREATE INDEX IF NOT EXISTS reservations_guest ON reservations (guest_id)",
+
+            // the last id handed out per host, so a deleted reservation's id is never reused
+            "CREATE TABLE IF NOT EXISTS reservation_ids (" +
+                    "host_id VARCHAR_IGNORECASE(64) PRIMARY KEY, " +
+                    "last_id INT NOT NULL)"
+    };
+
+    private final String filePath;
+    private JdbcConnectionPool pool;
+
+    // filePath is without the .mv.db H2 adds, e.g. ./data/mastery
+    public Database(String filePath) {
+        this.filePath = filePath;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    Connection getConnection() throws SQLException {
+        return pool().getConnection();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (pool != null) {
+            pool.dispose();
+            pool = null;
+        }
+    }
+
+    private synchronized JdbcConnectionPool pool() throws SQLException {
+        if (pool == null) {
+            JdbcConnectionPool created = JdbcConnectionPool.create("jdbc:h2:file:" + filePath, "sa", "");
+            try (Connection connection = created.getConnection();
+                 Statement statement = connection.createStatement()) {
+                for (String sql : SCHEMA) {
+                    statement.execute(sql);
+                }
+            } catch (SQLException e) {
+                created.dispose();
+                throw e;
+            }
+            pool = created;
+        }
+        return pool;
+    }
+
+    @Override
+    public String toString() {
+        return "Database{" +
+                "filePath='" + filePath + '\'' +
+                '}';
+    }
+}
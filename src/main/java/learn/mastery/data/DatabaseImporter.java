@@ -0,0 +1,138 @@
+package learn.mastery.data;
+
+import learn.mastery.models.Guest;
+import learn.mastery.models.Host;
+import learn.mastery.models.Reservation;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+// copies the csv data into a Database. guests and hosts are merged by id; a host's reservations
+// replace whatever the database had for that host. safe to run again on the same database.
+// usage: <database file> <guests.csv> <hosts.csv> <reservations directory>
+public class DatabaseImporter {
+    private static final int BATCH_SIZE = 1000;
+
+    public static void main(String[] args) throws DataException {
+        if (args.length != 4) {
+            System.out.println("usage: <database file> <guests.csv> <hosts.csv> <reservations directory>");
+            return;
+        }
+        try (Database database = new Database(args[0])) {
+            System.out.printf("Imported %s guest(s).%n", importGuests(database, args[1]));
+            System.out.printf("Imported %s host(s).%n", importHosts(database, args[2]));
+            System.out.printf("Imported %s reservation(s).%n", importReservations(database, args[3]));
+        }
+    }
+
+    public static int importGuests(Database database, String guestsFile) throws DataException {
+        try (Connection connection = database.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "MERGE INTO guests (guest_id, first_name, last_name, email, phone, state) " +
+                             "KEY (guest_id) VALUES (?, ?, ?, ?, ?, ?)")) {
+            connection.setAutoCommit(false);
+            int count = 0;
+            for (Guest guest : new GuestFileRepository(guestsFile).findAll()) {
+                statement.setInt(1, guest.getGuestId());
+                statement.setString(2, guest.getFirstName());
+                statement.setString(3, guest.getLastName());
+                statement.setString(4, guest.getEmail());
+                statement.setString(5, guest.getPhone());
+                statement.setString(6, guest.getState());
+                addToBatch(statement, ++count);
+            }
+            statement.executeBatch();
+            connection.commit();
+            connection.setAutoCommit(true);
+            return count;
+        } catch (IOException | SQLException e) {
+            throw new DataException("Could not import guests from " + guestsFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    public static int importHosts(Database database, String hostsFile) throws DataException {
+        try (Connection connection = database.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "MERGE INTO hosts (id, last_name, email, phone, address, city, state, postal_code, " +
+                             "standard_rate, weekend_rate) KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            connection.setAutoCommit(false);
+            int count = 0;
+            for (Host host : new HostFileRepository(hostsFile).findAll()) {
+                statement.setString(1, host.getId());
+                statement.setString(2, host.getLastName());
+                statement.setString(3, host.getEmail());
+                statement.setString(4, host.getPhone());
+                statement.setString(5, host.getAddress());
+                // trimmed so the city and state indexes can be used as is
+                statement.setString(6, host.getCity() == null ? null : host.getCity().trim());
+                statement.setString(7, host.getState() == null ? null : host.getState().trim());
+                statement.setString(8, host.getPostalCode());
+                statement.setBigDecimal(9, host.getStandardRate());
+                statement.setBigDecimal(10, host.getWeekendRate());
+                addToBatch(statement, ++count);
+            }
+            statement.executeBatch();
+            connection.commit();
+            connection.setAutoCommit(true);
+            return count;
+        } catch (IOException | SQLException e) {
+            throw new DataException("Could not import hosts from " + hostsFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    // one <host id>.csv per host, in the same layout ReservationFileRepository reads (append-only logs included)
+    public static int importReservations(Database database, String reservationsDirectory) throws DataException {
+        try (Connection connection = database.getConnection();
+             DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(reservationsDirectory), "*.csv");
+             PreparedStatement delete = connection.prepareStatement("DELETE FROM reservations WHERE host_id = ?");
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO reservations (host_id, id, start_date, end_date, guest_id, total) " +
+                             "VALUES (?, ?, ?, ?, ?, ?)");
+             PreparedStatement lastId = connection.prepareStatement(
+                     "MERGE INTO reservation_ids (host_id, last_id) KEY (host_id) VALUES (?, ?)")) {
+            connection.setAutoCommit(false);
+            int count = 0;
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String hostId = name.substring(0, name.length() - ".csv".length());
+                BinaryReservationFile.Contents contents = ReservationFormatConverter.readCsv(file);
+
+                delete.setString(1, hostId);
+                delete.executeUpdate();
+                for (Reservation reservation : contents.reservations) {
+                    insert.setString(1, hostId);
+                    insert.setInt(2, reservation.getId());
+                    insert.setDate(3, Date.valueOf(reservation.getStartDate()));
+                    insert.setDate(4, Date.valueOf(reservation.getEndDate()));
+                    insert.setInt(5, reservation.getGuestId());
+                    insert.setBigDecimal(6, reservation.getTotal());
+                    addToBatch(insert, ++count);
+                }
+                insert.executeBatch();
+                lastId.setString(1, hostId);
+                lastId.setInt(2, contents.lastId);
+                lastId.executeUpdate();
+            }
+            connection.commit();
+            connection.setAutoCommit(true);
+            return count;
+        } catch (IOException | SQLException e) {
+            throw new DataException("Could not import reservations from " + reservationsDirectory + ": "
+                    + e.getMessage(), e);
+        }
+    }
+
+    private static void addToBatch(PreparedStatement statement, int count) throws SQLException {
+        statement.addBatch();
+        if (count % BATCH_SIZE == 0) {
+            statement.executeBatch();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package learn.mastery.data;
+
+import java.io.File;
+
+// remembers a file's last-modified time and size so caches can tell when it changed on disk
+class FileStamp {
+    private final File file;
+    private long lastModified = -1;
+    private long length = -1;
+
+    FileStamp(String filePath) {
+        this.file = new File(filePath);
+    }
+
+    // true when the file differs from the last time this was called (always true the first time)
+    synchronized boolean hasChanged() {
+        long currentModified = file.lastModified();
+        long currentLength = file.length();
+        if (currentModified == lastModified && currentLength == length) {
+            return false;
+        }
+        lastModified = currentModified;
+        length = currentLength;
+        return true;
+    }
+
+    synchronized void reset() {
+        lastModified = -1;
+        length = -1;
+    }
+}
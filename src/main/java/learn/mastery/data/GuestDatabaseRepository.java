@@ -0,0 +1,86 @@
+package learn.mastery.data;
+
+import learn.mastery.models.Guest;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// guests from the embedded database; ids and emails are looked up through their indexes
+public class GuestDatabaseRepository implements GuestRepository {
+    private static final String COLUMNS = "guest_id, first_name, last_name, email, phone, state";
+
+    private final Database database;
+
+    public GuestDatabaseRepository(Database database) {
+        this.database = database;
+    }
+
+    @Override
+    public List<Guest> findAll() throws IOException {
+        return query("SELECT " + COLUMNS + " FROM guests ORDER BY guest_id", null);
+    }
+
+    @Override
+    public Guest findById(int guestId) throws IOException {
+        return first(query("SELECT " + COLUMNS + " FROM guests WHERE guest_id = ?", guestId));
+    }
+
+    // emails aren't unique in guests.csv, so this keeps its answer: the lowest id wins
+    @Override
+    public Guest findByEmail(String email) throws IOException {
+        return first(query("SELECT " + COLUMNS + " FROM guests WHERE email = ? ORDER BY guest_id FETCH FIRST 1 ROW ONLY",
+                email));
+    }
+
+    @Override
+    public Map<Integer, Guest> findByIds(Set<Integer> guestIds) throws IOException {
+        Map<Integer, Guest> guests = new HashMap<>();
+        if (guestIds.isEmpty()) {
+            return guests;
+        }
+        for (Guest guest : query("SELECT " + COLUMNS + " FROM guests WHERE guest_id = ANY(?)",
+                guestIds.toArray(new Integer[0]))) {
+            guests.put(guest.getGuestId(), guest);
+        }
+        return guests;
+    }
+
+    // HELPERS
+    private List<Guest> query(String sql, Object parameter) throws IOException {
+        try (Connection connection = database.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            if (parameter != null) {
+                statement.setObject(1, parameter);
+            }
+            List<Guest> guests = new ArrayList<>();
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    guests.add(new Guest(rows.getInt(1), rows.getString(2), rows.getString(3),
+                            rows.getString(4), rows.getString(5), rows.getString(6)));
+                }
+            }
+            return guests;
+        } catch (SQLException e) {
+            throw new IOException("Could not read guests: " + e.getMessage(), e);
+        }
+    }
+
+    private static Guest first(List<Guest> guests) {
+        return guests.isEmpty() ? null : guests.get(0);
+    }
+
+    @Override
+    public String toString() {
+        return "GuestDatabaseRepository{" +
+                "database=" + database +
+                '}';
+    }
+}
@@ -2,35 +2,45 @@ package learn.mastery.data;
 
 import learn.mastery.models.Guest;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class GuestFileRepository implements GuestRepository {
     private static final String HEADER = "guest_id,first_name,last_name,email,phone,state";
-    private static final String DELIMITER = ",";
     private final String filePath;
+    // set when lookups should go through a memory-mapped, indexed copy of the file
+    private final MappedCsvFile mappedFile;
 
     public GuestFileRepository(String filePath) {
+        this(filePath, false);
+    }
+
+    public GuestFileRepository(String filePath, boolean memoryMapped) {
         this.filePath = filePath;
+        this.mappedFile = memoryMapped ? new MappedCsvFile(filePath, this::isGuestLine,
+                MappedCsvFile.Fields.text(3).numbers(0)) : null;
+    }
+
+    public String getFilePath() {
+        return filePath;
     }
 
     // FINDING ALL GUESTS
     public List<Guest> findAll() throws IOException {
         List<Guest> guests = new ArrayList<>();
-        try (BufferedReader reader = Files.newBufferedReader(Paths.get(filePath))) {
-            reader.readLine();
-
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] fields = line.split(DELIMITER);
-                if (fields.length == 6) {
-                    Guest guest = deserialize(fields);
-                    guests.add(guest);
-                }
+        if (mappedFile != null) {
+            mappedFile.forEachRecord(reader -> guests.add(deserialize(reader)));
+            return guests;
+        }
+        CsvReader reader = openWithoutHeader();
+        while (reader.nextLine()) {
+            if (isGuestLine(reader)) {
+                guests.add(deserialize(reader));
             }
         }
         return guests;
@@ -38,33 +48,82 @@ public class GuestFileRepository implements GuestRepository {
 
     // FIND ONE GUEST BY ID
     public Guest findById(int guestId) throws IOException {
-        List<Guest> guests = findAll();
-        for (Guest guest : guests) {
-            if (guest.getGuestId() == guestId) {
-                return guest;
+        if (mappedFile != null) {
+            return deserializeOrNull(mappedFile.find(0, guestId));
+        }
+        CsvReader reader = openWithoutHeader();
+        while (reader.nextLine()) {
+            if (isGuestLine(reader) && reader.parseInt(0) == guestId) {
+                return deserialize(reader);
             }
         }
         return null;
     }
 
     public Guest findByEmail(String email) throws IOException {
-        List<Guest> guests = findAll();
-        for (Guest guest : guests) {
-            if (guest.getEmail().equalsIgnoreCase(email)) {
-                return guest;
+        if (mappedFile != null) {
+            return deserializeOrNull(mappedFile.find(3, email));
+        }
+        CsvReader reader = openWithoutHeader();
+        while (reader.nextLine()) {
+            if (isGuestLine(reader) && reader.fieldEqualsIgnoreCase(3, email)) {
+                return deserialize(reader);
             }
         }
         return null;
     }
 
+    // FIND MANY GUESTS BY ID IN ONE PASS OVER THE FILE
+    public Map<Integer, Guest> findByIds(Set<Integer> guestIds) throws IOException {
+        Map<Integer, Guest> guests = new HashMap<>();
+        if (guestIds.isEmpty()) {
+            return guests;
+        }
+        if (mappedFile != null) {
+            for (int guestId : guestIds) {
+                Guest guest = findById(guestId);
+                if (guest != null) {
+                    guests.put(guestId, guest);
+                }
+            }
+            return guests;
+        }
+        CsvReader reader = openWithoutHeader();
+        while (reader.nextLine() && guests.size() < guestIds.size()) {
+            if (isGuestLine(reader)) {
+                int id = reader.parseInt(0);
+                if (guestIds.contains(id)) {
+                    guests.putIfAbsent(id, deserialize(reader));
+                }
+            }
+        }
+        return guests;
+    }
+
+    // HELPERS
+    private CsvReader openWithoutHeader() throws IOException {
+        CsvReader reader = CsvReader.open(Paths.get(filePath));
+        reader.nextLine();
+        return reader;
+    }
+
+    // lines with a missing trailing field have always been skipped
+    private boolean isGuestLine(CsvReader reader) {
+        return reader.fieldCountWithoutTrailingEmpties() == 6;
+    }
+
+    private Guest deserializeOrNull(CsvReader reader) {
+        return reader == null ? null : deserialize(reader);
+    }
+
     // DESERIALIZE HELPER
-    private Guest deserialize(String[] fields) {
-        int id = Integer.parseInt(fields[0]);
-        String firstName = fields[1];
-        String lastName = fields[2];
-        String email = fields[3];
-        String phone = fields[4];
-        String state = fields[5];
+    private Guest deserialize(CsvReader reader) {
+        int id = reader.parseInt(0);
+        String firstName = reader.getString(1);
+        String lastName = reader.getString(2);
+        String email = reader.getString(3);
+        String phone = reader.getString(4);
+        String state = reader.getString(5);
 
         return new Guest(id, firstName, lastName, email, phone, state);
     }
@@ -73,6 +132,7 @@ public class GuestFileRepository implements GuestRepository {
     public String toString() {
         return "GuestFileRepository{" +
                 "filePath='" + filePath + '\'' +
+                ", memoryMapped=" + (mappedFile != null) +
                 '}';
     }
 }
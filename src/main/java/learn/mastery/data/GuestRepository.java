@@ -3,6 +3,8 @@ package learn.mastery.data;
 import learn.mastery.models.Guest;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public interface GuestRepository {
     List<Guest> findAll() throws IOException;
@@ -10,4 +12,6 @@ public interface GuestRepository {
     Guest findById(int guestId) throws IOException;
 
     Guest findByEmail(String email) throws IOException;
+
+    Map<Integer, Guest> findByIds(Set<Integer> guestIds) throws IOException;
 }
@@ -0,0 +1,219 @@
+package learn.mastery.data;
+
+import learn.mastery.models.Reservation;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+// which hosts hold reservations for each guest, so a guest's history doesn't mean opening every host file.
+// on disk it's a log of "A" (added) and "D" (removed) lines: op,guest_id,host_id,reservation_id.
+// the log is read once, on first use, and rewritten without its dead lines once they outnumber the live
+// ones, checked on load and after every append.
+// entries are hints: callers still check the host's reservations, so a stale one is harmless.
+public class GuestReservationIndex {
+    private static final String HEADER = "op,guest_id,host_id,reservation_id";
+    private static final int COMPACTION_MIN_LINES = 1000;
+
+    private final String filePath;
+    // guest id -> host id -> reservation ids
+    private Map<Integer, Map<String, Set<Integer>>> entries;
+    // lines in the log, and how many of them are live entries
+    private int lines;
+    private int live;
+
+    public GuestReservationIndex(String filePath) {
+        this.filePath = filePath;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    // false until the first entry or rebuild is written
+    public boolean exists() {
+        return Files.exists(Paths.get(filePath));
+    }
+
+    // host id -> reservation ids for one guest
+    public synchronized Map<String, Set<Integer>> findByGuestId(int guestId) throws IOException {
+        Map<String, Set<Integer>> hosts = load().get(guestId);
+        Map<String, Set<Integer>> copy = new HashMap<>();
+        if (hosts != null) {
+            hosts.forEach((hostId, ids) -> copy.put(hostId, new LinkedHashSet<>(ids)));
+        }
+        return copy;
+    }
+
+    public synchronized void add(int guestId, String hostId, int reservationId) throws IOException {
+        load();
+        append(List.of("A," + guestId + "," + hostId + "," + reservationId));
+        put(guestId, hostId, reservationId);
+        compactIfNeeded();
+    }
+
+    // a batch of one host's new reservations, appended and synced once
+    public synchronized void addAll(String hostId, List<Reservation> reservations) throws IOException {
+        load();
+        List<String> added = new ArrayList<>(reservations.size());
+        for (Reservation reservation : reservations) {
+            added.add("A," + reservation.getGuestId() + "," + hostId + "," + reservation.getId());
+        }
+        append(added);
+        for (Reservation reservation : reservations) {
+            put(reservation.getGuestId(), hostId, reservation.getId());
+        }
+        compactIfNeeded();
+    }
+
+    public synchronized void remove(int guestId, String hostId, int reservationId) throws IOException {
+        load();
+        append(List.of("D," + guestId + "," + hostId + "," + reservationId));
+        delete(guestId, hostId, reservationId);
+        compactIfNeeded();
+    }
+
+    // replaces the whole index, e.g. after scanning every host file
+    public synchronized void replaceAll(Map<Integer, Map<String, Set<Integer>>> rebuilt) throws IOException {
+        entries = new HashMap<>();
+        live = 0;
+        rebuilt.forEach((guestId, hosts) -> hosts.forEach((hostId, ids) ->
+                ids.forEach(id -> put(guestId, hostId, id))));
+        rewrite();
+    }
+
+    // HELPERS
+    private Map<Integer, Map<String, Set<Integer>>> load() throws IOException {
+        if (entries != null) {
+            return entries;
+        }
+        entries = new HashMap<>();
+        lines = 0;
+        live = 0;
+        try {
+            CsvReader reader = CsvReader.open(Paths.get(filePath));
+            reader.nextLine();
+            while (reader.nextLine()) {
+                if (reader.fieldCount() != 4) {
+                    continue;
+                }
+                lines++;
+                int guestId = reader.parseInt(1);
+                String hostId = reader.getString(2);
+                int reservationId = reader.parseInt(3);
+                if (reader.fieldEquals(0, "D")) {
+                    delete(guestId, hostId, reservationId);
+                } else {
+                    put(guestId, hostId, reservationId);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return entries;
+        }
+        compactIfNeeded();
+        return entries;
+    }
+
+    private void compactIfNeeded() throws IOException {
+        if (lines >= COMPACTION_MIN_LINES && lines > live * 2) {
+            rewrite();
+        }
+    }
+
+    private boolean put(int guestId, String hostId, int reservationId) {
+        boolean added = entries.computeIfAbsent(guestId, id -> new HashMap<>())
+                .computeIfAbsent(hostId, id -> new LinkedHashSet<>())
+                .add(reservationId);
+        live += added ? 1 : 0;
+        return added;
+    }
+
+    private boolean delete(int guestId, String hostId, int reservationId) {
+        Map<String, Set<Integer>> hosts = entries.get(guestId);
+        if (hosts == null) {
+            return false;
+        }
+        Set<Integer> ids = hosts.get(hostId);
+        boolean removed = ids != null && ids.remove(reservationId);
+        live -= removed ? 1 : 0;
+        if (ids != null && ids.isEmpty()) {
+            hosts.remove(hostId);
+            if (hosts.isEmpty()) {
+                entries.remove(guestId);
+            }
+        }
+        return removed;
+    }
+
+    private void append(List<String> entries) throws IOException {
+        Path path = Paths.get(filePath);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            StringBuilder text = new StringBuilder(channel.size() == 0 ? HEADER + System.lineSeparator() : "");
+            for (String entry : entries) {
+                text.append(entry).append(System.lineSeparator());
+            }
+            ByteBuffer bytes = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(false);
+        }
+        lines += entries.size();
+    }
+
+    // writes only the live entries to a temp file and renames it over the log
+    private void rewrite() throws IOException {
+        Path path = Paths.get(filePath);
+        Path tempPath = path.resolveSibling(path.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        int written = 0;
+        try {
+            try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE);
+                 BufferedWriter writer = new BufferedWriter(
+                         new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8))) {
+                writer.write(HEADER);
+                writer.newLine();
+                for (Map.Entry<Integer, Map<String, Set<Integer>>> guest : entries.entrySet()) {
+                    for (Map.Entry<String, Set<Integer>> host : guest.getValue().entrySet()) {
+                        for (int reservationId : host.getValue()) {
+                            writer.write("A," + guest.getKey() + "," + host.getKey() + "," + reservationId);
+                            writer.newLine();
+                            written++;
+                        }
+                    }
+                }
+                writer.flush();
+                channel.force(true);
+            }
+            Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+        lines = written;
+    }
+
+    @Override
+    public String toString() {
+        return "GuestReservationIndex{" +
+                "filePath='" + filePath + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,81 @@
+package learn.mastery.data;
+
+import learn.mastery.models.Host;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+// hosts from the embedded database; id, email, state and city each have an index.
+// those columns compare ignoring case, like the csv repository does.
+public class HostDatabaseRepository implements HostRepository {
+    private static final String COLUMNS =
+            "id, last_name, email, phone, address, city, state, postal_code, standard_rate, weekend_rate";
+
+    private final Database database;
+
+    public HostDatabaseRepository(Database database) {
+        this.database = database;
+    }
+
+    @Override
+    public List<Host> findAll() throws IOException {
+        return query("SELECT " + COLUMNS + " FROM hosts", null);
+    }
+
+    @Override
+    public Host findById(String hostId) throws IOException {
+        return first(query("SELECT " + COLUMNS + " FROM hosts WHERE id = ?", hostId));
+    }
+
+    @Override
+    public Host findByEmail(String email) throws IOException {
+        return first(query("SELECT " + COLUMNS + " FROM hosts WHERE email = ? FETCH FIRST 1 ROW ONLY", email));
+    }
+
+    @Override
+    public List<Host> findByState(String state) throws IOException {
+        return query("SELECT " + COLUMNS + " FROM hosts WHERE state = ?", state.trim());
+    }
+
+    @Override
+    public List<Host> findByCity(String city) throws IOException {
+        return query("SELECT " + COLUMNS + " FROM hosts WHERE city = ?", city.trim());
+    }
+
+    // HELPERS
+    private List<Host> query(String sql, String parameter) throws IOException {
+        try (Connection connection = database.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            if (parameter != null) {
+                statement.setString(1, parameter);
+            }
+            List<Host> hosts = new ArrayList<>();
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    hosts.add(new Host(rows.getString(1), rows.getString(2), rows.getString(3), rows.getString(4),
+                            rows.getString(5), rows.getString(6), rows.getString(7), rows.getString(8),
+                            rows.getBigDecimal(9), rows.getBigDecimal(10)));
+                }
+            }
+            return hosts;
+        } catch (SQLException e) {
+            throw new IOException("Could not read hosts: " + e.getMessage(), e);
+        }
+    }
+
+    private static Host first(List<Host> hosts) {
+        return hosts.isEmpty() ? null : hosts.get(0);
+    }
+
+    @Override
+    public String toString() {
+        return "HostDatabaseRepository{" +
+                "database=" + database +
+                '}';
+    }
+}
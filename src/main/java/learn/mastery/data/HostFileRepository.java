@@ -1,74 +1,116 @@
 package learn.mastery.data;
 
 import learn.mastery.models.Host;
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 
 public class HostFileRepository implements HostRepository {
-    private static final String DELIMITER = ",";
     private static final String HEADER = "id,last_name,email,phone,address,city,state,postal_code,standard_rate,weekend_rate";
 
     private final String filePath;
+    // set when lookups should go through a memory-mapped, indexed copy of the file
+    private final MappedCsvFile mappedFile;
 
     public HostFileRepository(String filePath) {
+        this(filePath, false);
+    }
+
+    public HostFileRepository(String filePath, boolean memoryMapped) {
         this.filePath = filePath;
+        this.mappedFile = memoryMapped ? new MappedCsvFile(filePath, reader -> reader.fieldCount() == 10,
+                MappedCsvFile.Fields.text(0, 2)) : null;
     }
 
 
+    public String getFilePath() {
+        return filePath;
+    }
+
     public List<Host> findAll() throws IOException {
         List<Host> hosts = new ArrayList<>();
-        try (BufferedReader reader = Files.newBufferedReader(Paths.get(filePath))) {
-            reader.readLine();
-
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] fields = line.split(DELIMITER, -1);
-                if (fields.length == 10) {
-                    Host host = deserialize(fields);
-                    hosts.add(host);
-                }
+        if (mappedFile != null) {
+            mappedFile.forEachRecord(reader -> hosts.add(deserialize(reader)));
+            return hosts;
+        }
+        CsvReader reader = openWithoutHeader();
+        while (reader.nextLine()) {
+            if (reader.fieldCount() == 10) {
+                hosts.add(deserialize(reader));
             }
         }
         return hosts;
     }
 
     public Host findById(String hostId) throws IOException {
-        List<Host> hosts = findAll();
-        for (Host host : hosts) {
-            if (host.getId().equalsIgnoreCase(hostId)) {
-                return host;
+        if (mappedFile != null) {
+            return deserializeOrNull(mappedFile.find(0, hostId));
+        }
+        CsvReader reader = openWithoutHeader();
+        while (reader.nextLine()) {
+            if (reader.fieldCount() == 10 && reader.fieldEqualsIgnoreCase(0, hostId)) {
+                return deserialize(reader);
             }
         }
         return null;
     }
 
     public Host findByEmail(String email) throws IOException {
-        List<Host> hosts = findAll();
-        for (Host host : hosts) {
-            if (host.getEmail().equalsIgnoreCase(email)) {
-                return host;
+        if (mappedFile != null) {
+            return deserializeOrNull(mappedFile.find(2, email));
+        }
+        CsvReader reader = openWithoutHeader();
+        while (reader.nextLine()) {
+            if (reader.fieldCount() == 10 && reader.fieldEqualsIgnoreCase(2, email)) {
+                return deserialize(reader);
             }
         }
         return null;
     }
 
-    private Host deserialize(String[] fields) {
-        String id = fields[0];
-        String lastName = fields[1];
-        String email = fields[2];
-        String phone = fields[3];
-        String address = fields[4];
-        String city = fields[5];
-        String state = fields[6];
-        String postalCode = fields[7];
-        BigDecimal standardRate = new BigDecimal(fields[8]);
-        BigDecimal weekendRate = new BigDecimal(fields[9]);
+    public List<Host> findByState(String state) throws IOException {
+        List<Host> result = new ArrayList<>();
+        for (Host host : findAll()) {
+            if (host.getState() != null && host.getState().trim().equalsIgnoreCase(state.trim())) {
+                result.add(host);
+            }
+        }
+        return result;
+    }
+
+    public List<Host> findByCity(String city) throws IOException {
+        List<Host> result = new ArrayList<>();
+        for (Host host : findAll()) {
+            if (host.getCity() != null && host.getCity().trim().equalsIgnoreCase(city.trim())) {
+                result.add(host);
+            }
+        }
+        return result;
+    }
+
+    private CsvReader openWithoutHeader() throws IOException {
+        CsvReader reader = CsvReader.open(Paths.get(filePath));
+        reader.nextLine();
+        return reader;
+    }
+
+    private Host deserializeOrNull(CsvReader reader) {
+        return reader == null ? null : deserialize(reader);
+    }
+
+    private Host deserialize(CsvReader reader) {
+        String id = reader.getString(0);
+        String lastName = reader.getString(1);
+        String email = reader.getString(2);
+        String phone = reader.getString(3);
+        String address = reader.getString(4);
+        String city = reader.getString(5);
+        String state = reader.getString(6);
+        String postalCode = reader.getString(7);
+        BigDecimal standardRate = reader.parseDecimal(8);
+        BigDecimal weekendRate = reader.parseDecimal(9);
 
         return new Host(id, lastName, email, phone, address, city, state, postalCode, standardRate, weekendRate);
     }
@@ -77,6 +119,7 @@ public class HostFileRepository implements HostRepository {
     public String toString() {
         return "HostFileRepository{" +
                 "filePath='" + filePath + '\'' +
+                ", memoryMapped=" + (mappedFile != null) +
                 '}';
     }
 }
@@ -0,0 +1,41 @@
+package learn.mastery.data;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// a fixed set of read/write locks shared out by hashing the host id.
+// reads of a host run in parallel, writes to one host are serialized,
+// and hosts that land on different stripes never wait on each other.
+public class HostLocks {
+    private static final int DEFAULT_STRIPES = 64;
+
+    private final ReentrantReadWriteLock[] stripes;
+    private final int mask;
+
+    public HostLocks() {
+        this(DEFAULT_STRIPES);
+    }
+
+    // stripes is rounded up to a power of two
+    public HostLocks(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReentrantReadWriteLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantReadWriteLock();
+        }
+        this.mask = size - 1;
+    }
+
+    public ReadWriteLock lockFor(String hostId) {
+        int hash = hostId == null ? 0 : hostId.hashCode();
+        // spread the high bits down, the same way HashMap does
+        return stripes[(hash ^ (hash >>> 16)) & mask];
+    }
+
+    @Override
+    public String toString() {
+        return "HostLocks{" +
+                "stripes=" + stripes.length +
+                '}';
+    }
+}
@@ -8,4 +8,6 @@ public interface HostRepository {
     List<Host> findAll() throws IOException;
     Host findById(String hostId) throws IOException;
     Host findByEmail(String email) throws IOException;
+    List<Host> findByState(String state) throws IOException;
+    List<Host> findByCity(String city) throws IOException;
 }
\ No newline at end of file
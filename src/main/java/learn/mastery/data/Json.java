@@ -0,0 +1,282 @@
+package learn.mastery.data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// just enough JSON for the api and the import files: writes maps, collections, strings, numbers, booleans,
+// dates and null, and reads objects back into maps, lists, strings, BigDecimals, booleans and null.
+public final class Json {
+
+    private Json() {
+    }
+
+    public static String write(Object value) {
+        StringBuilder out = new StringBuilder();
+        write(value, out);
+        return out.toString();
+    }
+
+    // the text has to be a single object
+    public static Map<String, Object> parseObject(String text) {
+        Parser parser = new Parser(text);
+        parser.skipWhitespace();
+        if (!parser.peek('{')) {
+            throw new IllegalArgumentException("Expected a JSON object.");
+        }
+        Object value = parser.readValue();
+        parser.skipWhitespace();
+        if (!parser.atEnd()) {
+            throw new IllegalArgumentException("Unexpected text after the JSON object.");
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Object> object = (Map<String, Object>) value;
+        return object;
+    }
+
+    // HELPERS
+    private static void write(Object value, StringBuilder out) {
+        if (value == null) {
+            out.append("null");
+        } else if (value instanceof String || value instanceof LocalDate) {
+            writeString(value.toString(), out);
+        } else if (value instanceof BigDecimal) {
+            out.append(((BigDecimal) value).toPlainString());
+        } else if (value instanceof Number || value instanceof Boolean) {
+            out.append(value);
+        } else if (value instanceof Map) {
+            out.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (!first) {
+                    out.append(',');
+                }
+                first = false;
+                writeString(String.valueOf(entry.getKey()), out);
+                out.append(':');
+                write(entry.getValue(), out);
+            }
+            out.append('}');
+        } else if (value instanceof Collection) {
+            out.append('[');
+            boolean first = true;
+            for (Object item : (Collection<?>) value) {
+                if (!first) {
+                    out.append(',');
+                }
+                first = false;
+                write(item, out);
+            }
+            out.append(']');
+        } else {
+            throw new IllegalArgumentException("Can't write " + value.getClass().getName() + " as JSON.");
+        }
+    }
+
+    private static void writeString(String value, StringBuilder out) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+
+    private static class Parser {
+        private final String text;
+        private int position;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Object readValue() {
+            skipWhitespace();
+            if (atEnd()) {
+                throw error("Unexpected end of JSON.");
+            }
+            char c = text.charAt(position);
+            switch (c) {
+                case '{':
+                    return readObject();
+                case '[':
+                    return readArray();
+                case '"':
+                    return readString();
+                case 't':
+                    return readLiteral("true", Boolean.TRUE);
+                case 'f':
+                    return readLiteral("false", Boolean.FALSE);
+                case 'n':
+                    return readLiteral("null", null);
+                default:
+                    return readNumber();
+            }
+        }
+
+        private Map<String, Object> readObject() {
+            Map<String, Object> object = new LinkedHashMap<>();
+            position++;
+            skipWhitespace();
+            if (consume('}')) {
+                return object;
+            }
+            do {
+                skipWhitespace();
+                if (!peek('"')) {
+                    throw error("Expected a quoted name.");
+                }
+                String name = readString();
+                skipWhitespace();
+                expect(':');
+                object.put(name, readValue());
+                skipWhitespace();
+            } while (consume(','));
+            expect('}');
+            return object;
+        }
+
+        private List<Object> readArray() {
+            List<Object> array = new ArrayList<>();
+            position++;
+            skipWhitespace();
+            if (consume(']')) {
+                return array;
+            }
+            do {
+                array.add(readValue());
+                skipWhitespace();
+            } while (consume(','));
+            expect(']');
+            return array;
+        }
+
+        private String readString() {
+            StringBuilder value = new StringBuilder();
+            position++;
+            while (!atEnd()) {
+                char c = text.charAt(position++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (atEnd()) {
+                    break;
+                }
+                char escaped = text.charAt(position++);
+                switch (escaped) {
+                    case 'b':
+                        value.append('\b');
+                        break;
+                    case 'f':
+                        value.append('\f');
+                        break;
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 't':
+                        value.append('\t');
+                        break;
+                    case 'u':
+                        if (position + 4 > text.length()) {
+                            throw error("Bad unicode escape.");
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("Bad unicode escape.");
+                        }
+                        position += 4;
+                        break;
+                    default:
+                        value.append(escaped);
+                }
+            }
+            throw error("Unterminated string.");
+        }
+
+        private BigDecimal readNumber() {
+            int start = position;
+            while (!atEnd() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+                position++;
+            }
+            try {
+                return new BigDecimal(text.substring(start, position));
+            } catch (NumberFormatException e) {
+                throw error("Expected a value.");
+            }
+        }
+
+        private Object readLiteral(String literal, Object value) {
+            if (!text.startsWith(literal, position)) {
+                throw error("Expected a value.");
+            }
+            position += literal.length();
+            return value;
+        }
+
+        void skipWhitespace() {
+            while (!atEnd() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        boolean atEnd() {
+            return position >= text.length();
+        }
+
+        boolean peek(char c) {
+            return !atEnd() && text.charAt(position) == c;
+        }
+
+        private boolean consume(char c) {
+            if (peek(c)) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!consume(c)) {
+                throw error("Expected '" + c + "'.");
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " (at character " + position + ")");
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package learn.mastery.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+// a csv file mapped into memory with the offset of every record and a key -> offset index for the
+// chosen fields, so a lookup only decodes the one matching line. text fields are keyed lower-cased,
+// number fields by their parsed value so 007 and 7 are the same key, as they are to parseInt.
+// the mapping and indexes are rebuilt when the file changes on disk.
+class MappedCsvFile {
+    private final String filePath;
+    private final Predicate<CsvReader> isRecord;
+    private final int[] indexedFields;
+    private final int[] numberFields;
+    private final FileStamp stamp;
+    private volatile Snapshot snapshot;
+
+    // e.g. new MappedCsvFile(path, isRecord, Fields.text(3).numbers(0))
+    MappedCsvFile(String filePath, Predicate<CsvReader> isRecord, Fields fields) {
+        this.filePath = filePath;
+        this.isRecord = isRecord;
+        this.indexedFields = fields.text;
+        this.numberFields = fields.numbers;
+        this.stamp = new FileStamp(filePath);
+    }
+
+    // the fields to index, named by how their keys match
+    static final class Fields {
+        private final int[] text;
+        private final int[] numbers;
+
+        private Fields(int[] text, int[] numbers) {
+            this.text = text;
+            this.numbers = numbers;
+        }
+
+        // matched as text, ignoring case
+        static Fields text(int... fields) {
+            return new Fields(fields, new int[0]);
+        }
+
+        // matched by parsed int value, in addition to the text fields
+        Fields numbers(int... fields) {
+            return new Fields(text, fields);
+        }
+    }
+
+    // a reader sitting on the first record whose field matches key (ignoring case), or null
+    CsvReader find(int field, String key) throws IOException {
+        if (key == null) {
+            return null;
+        }
+        return lookUp(field, key.toLowerCase(Locale.ROOT));
+    }
+
+    // a reader sitting on the first record whose number field parses to key, or null
+    CsvReader find(int field, int key) throws IOException {
+        return lookUp(field, key);
+    }
+
+    void forEachRecord(Consumer<CsvReader> action) throws IOException {
+        Snapshot current = current();
+        CsvReader reader = new CsvReader(current.buffer);
+        for (int i = 0; i < current.recordCount; i++) {
+            reader.seek(current.recordOffsets[i]);
+            reader.nextLine();
+            action.accept(reader);
+        }
+    }
+
+    // HELPERS
+    private CsvReader lookUp(int field, Object key) throws IOException {
+        Snapshot current = current();
+        Integer offset = current.indexes.get(field).get(key);
+        if (offset == null) {
+            return null;
+        }
+        CsvReader reader = new CsvReader(current.buffer);
+        reader.seek(offset);
+        reader.nextLine();
+        return reader;
+    }
+
+    private Snapshot current() throws IOException {
+        // stamp before mapping so a write that lands mid-build is picked up next time
+        boolean changed = stamp.hasChanged();
+        Snapshot current = snapshot;
+        if (current != null && !changed) {
+            return current;
+        }
+        synchronized (this) {
+            try {
+                current = build();
+            } catch (IOException e) {
+                stamp.reset();
+                throw e;
+            }
+            snapshot = current;
+            return current;
+        }
+    }
+
+    private Snapshot build() throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        Map<Integer, Map<Object, Integer>> indexes = new HashMap<>();
+        for (int field : indexedFields) {
+            indexes.put(field, new HashMap<>());
+        }
+        for (int field : numberFields) {
+            indexes.put(field, new HashMap<>());
+        }
+
+        int[] recordOffsets = new int[256];
+        int recordCount = 0;
+        CsvReader reader = new CsvReader(buffer);
+        reader.nextLine();
+        while (reader.nextLine()) {
+            if (!isRecord.test(reader)) {
+                continue;
+            }
+            if (recordCount == recordOffsets.length) {
+                recordOffsets = Arrays.copyOf(recordOffsets, recordCount * 2);
+            }
+            recordOffsets[recordCount++] = reader.lineStart();
+            for (int field : indexedFields) {
+                indexes.get(field).putIfAbsent(reader.getString(field).toLowerCase(Locale.ROOT), reader.lineStart());
+            }
+            for (int field : numberFields) {
+                indexes.get(field).putIfAbsent(reader.parseInt(field), reader.lineStart());
+            }
+        }
+        return new Snapshot(buffer, recordOffsets, recordCount, indexes);
+    }
+
+    private static class Snapshot {
+        private final ByteBuffer buffer;
+        private final int[] recordOffsets;
+        private final int recordCount;
+        private final Map<Integer, Map<Object, Integer>> indexes;
+
+        Snapshot(ByteBuffer buffer, int[] recordOffsets, int recordCount, Map<Integer, Map<Object, Integer>> indexes) {
+            this.buffer = buffer;
+            this.recordOffsets = recordOffsets;
+            this.recordCount = recordCount;
+            this.indexes = indexes;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MappedCsvFile{" +
+                "filePath='" + filePath + '\'' +
+                '}';
+    }
+}
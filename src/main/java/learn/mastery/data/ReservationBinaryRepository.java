@@ -0,0 +1,375 @@
+package learn.mastery.data;
+
+import learn.mastery.models.Guest;
+import learn.mastery.models.Host;
+import learn.mastery.models.Reservation;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.stream.Stream;
+
+// keeps each host's reservations in a <host id>.bin file of fixed-width records sorted by start date
+// (see BinaryReservationFile). reads decode records straight out of the bytes, date range lookups
+// binary-search the file, and an update that keeps the sort order rewrites only its own record.
+public class ReservationBinaryRepository implements ReservationRepository {
+    private final String directory;
+    private final GuestRepository guestRepository;
+    private final HostRepository hostRepository;
+    private final HostLocks locks = new HostLocks();
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+    // each host file as this repository last saw it, so a file written by another process moves the version
+    private final Map<String, FileStamp> seenStamps = new ConcurrentHashMap<>();
+
+    public ReservationBinaryRepository(String directory, GuestRepository guestRepository,
+                                       HostRepository hostRepository) {
+        this.directory = directory;
+        this.guestRepository = guestRepository;
+        this.hostRepository = hostRepository;
+    }
+
+    @Override
+    public List<Reservation> findByHostId(String hostId) {
+        Lock lock = locks.lockFor(hostId).readLock();
+        lock.lock();
+        try {
+            List<Reservation> reservations = BinaryReservationFile.read(getFilePath(hostId)).reservations;
+            return ReservationReferences.resolve(hostId, reservations, hostRepository, guestRepository);
+        } catch (IOException e) {
+            return new ArrayList<>();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // every reservation the guest holds, with any host, ordered by host and then start date.
+    // there's no guest index for this format, so every host file is read.
+    @Override
+    public List<Reservation> findByGuestId(int guestId) {
+        List<Reservation> reservations = new ArrayList<>();
+        for (String hostId : listHostIds()) {
+            for (Reservation reservation : findByHostId(hostId)) {
+                if (reservation.getGuestId() == guestId) {
+                    reservations.add(reservation);
+                }
+            }
+        }
+        return reservations;
+    }
+
+    // keys in host id order. hosts and guests are looked up once each for the whole data set, and a file
+    // that can't be read or a lookup that fails throws instead of coming back as a host with no bookings.
+    @Override
+    public Map<String, List<Reservation>> loadAll() throws DataException {
+        Map<String, List<Reservation>> loaded = new LinkedHashMap<>();
+        Set<Integer> guestIds = new HashSet<>();
+        for (String hostId : listHostIds()) {
+            Lock lock = locks.lockFor(hostId).readLock();
+            lock.lock();
+            try {
+                List<Reservation> reservations = readForWrite(hostId, getFilePath(hostId)).reservations;
+                reservations.forEach(reservation -> guestIds.add(reservation.getGuestId()));
+                loaded.put(hostId, reservations);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        try {
+            Map<Integer, Guest> guests = guestRepository.findByIds(guestIds);
+            Map<String, Host> hosts = new HashMap<>();
+            for (Host host : hostRepository.findAll()) {
+                hosts.put(host.getId().toLowerCase(Locale.ROOT), host);
+            }
+            for (Map.Entry<String, List<Reservation>> entry : loaded.entrySet()) {
+                entry.setValue(ReservationReferences.resolve(entry.getValue(),
+                        hosts.get(entry.getKey().toLowerCase(Locale.ROOT)), guests));
+            }
+        } catch (IOException e) {
+            throw new DataException("Could not load guests and hosts for reservations: " + e.getMessage(), e);
+        }
+        return loaded;
+    }
+
+    @Override
+    public Stream<Reservation> streamAll() {
+        return listHostIds().stream().flatMap(hostId -> findByHostId(hostId).stream());
+    }
+
+    // reservations for a host that start between from and to, inclusive, in start date order
+    public List<Reservation> findByHostIdStartingBetween(String hostId, LocalDate from, LocalDate to) {
+        Lock lock = locks.lockFor(hostId).readLock();
+        lock.lock();
+        try {
+            List<Reservation> reservations = BinaryReservationFile.readStartingBetween(getFilePath(hostId), from, to);
+            return ReservationReferences.resolve(hostId, reservations, hostRepository, guestRepository);
+        } catch (IOException e) {
+            return new ArrayList<>();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Reservation add(Reservation reservation) throws DataException {
+        String hostId = reservation.getHost().getId();
+        Lock lock = locks.lockFor(hostId).writeLock();
+        lock.lock();
+        try {
+            return add(reservation, getVersion(hostId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Reservation add(Reservation reservation, long expectedVersion) throws DataException {
+        String hostId = reservation.getHost().getId();
+        Lock lock = locks.lockFor(hostId).writeLock();
+        lock.lock();
+        try {
+            checkVersion(hostId, expectedVersion);
+            Path path = getFilePath(hostId);
+            BinaryReservationFile.Contents contents = readForWrite(hostId, path);
+
+            // the header remembers the last id handed out, so ids stay unique even after deletes and restarts
+            reservation.setId(contents.lastId + 1);
+            List<Reservation> reservations = contents.reservations;
+            reservations.add(insertionPoint(reservations, reservation), reservation);
+
+            write(hostId, path, reservation.getId(), reservations);
+            bumpVersion(hostId);
+            return reservation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // the whole batch goes into one rewrite of the file
+    @Override
+    public List<Reservation> addAll(String hostId, List<Reservation> added) throws DataException {
+        if (added.isEmpty()) {
+            return added;
+        }
+        Lock lock = locks.lockFor(hostId).writeLock();
+        lock.lock();
+        try {
+            Path path = getFilePath(hostId);
+            BinaryReservationFile.Contents contents = readForWrite(hostId, path);
+            List<Reservation> reservations = contents.reservations;
+            int lastId = contents.lastId;
+            for (Reservation reservation : added) {
+                reservation.setId(++lastId);
+                reservations.add(insertionPoint(reservations, reservation), reservation);
+            }
+
+            write(hostId, path, lastId, reservations);
+            bumpVersion(hostId);
+            return added;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean update(Reservation reservation) throws DataException {
+        String hostId = reservation.getHost().getId();
+        Lock lock = locks.lockFor(hostId).writeLock();
+        lock.lock();
+        try {
+            return update(reservation, getVersion(hostId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean update(Reservation reservation, long expectedVersion) throws DataException {
+        String hostId = reservation.getHost().getId();
+        Lock lock = locks.lockFor(hostId).writeLock();
+        lock.lock();
+        try {
+            checkVersion(hostId, expectedVersion);
+            Path path = getFilePath(hostId);
+            BinaryReservationFile.Contents contents = readForWrite(hostId, path);
+            List<Reservation> reservations = contents.reservations;
+
+            int index = indexOf(reservations, reservation.getId());
+            if (index < 0) {
+                return false;
+            }
+
+            if (staysInOrder(reservations, index, reservation)) {
+                try {
+                    BinaryReservationFile.writeRecord(path, index, reservation);
+                } catch (IOException e) {
+                    throw new DataException("Could not save reservations for host " + hostId + ": " + e.getMessage(), e);
+                }
+                seenStamp(hostId).hasChanged();
+            } else {
+                reservations.remove(index);
+                reservations.add(insertionPoint(reservations, reservation), reservation);
+                write(hostId, path, contents.lastId, reservations);
+            }
+            bumpVersion(hostId);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean delete(Reservation reservation) throws DataException {
+        String hostId = reservation.getHost().getId();
+        Lock lock = locks.lockFor(hostId).writeLock();
+        lock.lock();
+        try {
+            Path path = getFilePath(hostId);
+            BinaryReservationFile.Contents contents = readForWrite(hostId, path);
+            List<Reservation> reservations = contents.reservations;
+
+            int index = indexOf(reservations, reservation.getId());
+            if (index < 0) {
+                return false;
+            }
+            reservations.remove(index);
+
+            write(hostId, path, contents.lastId, reservations);
+            bumpVersion(hostId);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getVersion(String hostId) {
+        FileStamp seen = seenStamp(hostId);
+        synchronized (seen) {
+            if (seen.hasChanged()) {
+                bumpVersion(hostId);
+            }
+        }
+        return versions.getOrDefault(hostId, 0L);
+    }
+
+    @Override
+    public ReadWriteLock lockFor(String hostId) {
+        return locks.lockFor(hostId);
+    }
+
+    // HELPERS HELPERS HELPERS HELPERS HELPERS HELPERS HELPERS HELPERS HELPERS HELPERS HELPERS
+    private Path getFilePath(String hostId) {
+        return Paths.get(directory, hostId + BinaryReservationFile.EXTENSION);
+    }
+
+    // host ids with a .bin file, sorted
+    private List<String> listHostIds() {
+        List<String> hostIds = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(directory),
+                "*" + BinaryReservationFile.EXTENSION)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                hostIds.add(name.substring(0, name.length() - BinaryReservationFile.EXTENSION.length()));
+            }
+        } catch (IOException e) {
+            return new ArrayList<>();
+        }
+        Collections.sort(hostIds);
+        return hostIds;
+    }
+
+    private BinaryReservationFile.Contents readForWrite(String hostId, Path path) throws DataException {
+        try {
+            return BinaryReservationFile.read(path);
+        } catch (IOException e) {
+            throw new DataException("Could not read reservations for host " + hostId + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void write(String hostId, Path path, int lastId, List<Reservation> reservations) throws DataException {
+        try {
+            BinaryReservationFile.write(path, lastId, reservations);
+        } catch (IOException e) {
+            throw new DataException("Could not save reservations for host " + hostId + ": " + e.getMessage(), e);
+        }
+        // our own write; the caller bumps the version for it
+        seenStamp(hostId).hasChanged();
+    }
+
+    // callers hold the host's write lock
+    private void checkVersion(String hostId, long expectedVersion) throws StaleVersionException {
+        long version = getVersion(hostId);
+        if (version != expectedVersion) {
+            throw new StaleVersionException(hostId, expectedVersion, version);
+        }
+    }
+
+    private void bumpVersion(String hostId) {
+        versions.merge(hostId, 1L, Long::sum);
+    }
+
+    // the first look at a host only remembers its file as it is now
+    private FileStamp seenStamp(String hostId) {
+        return seenStamps.computeIfAbsent(hostId, id -> {
+            FileStamp stamp = new FileStamp(getFilePath(id).toString());
+            stamp.hasChanged();
+            return stamp;
+        });
+    }
+
+    private static int indexOf(List<Reservation> reservations, int id) {
+        for (int i = 0; i < reservations.size(); i++) {
+            if (reservations.get(i).getId() == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // after every reservation starting on or before this one, so equal start dates keep the order they were added in
+    private static int insertionPoint(List<Reservation> reservations, Reservation reservation) {
+        int low = 0;
+        int high = reservations.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (!reservations.get(mid).getStartDate().isAfter(reservation.getStartDate())) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // can the record at index take the new start date without moving?
+    private static boolean staysInOrder(List<Reservation> reservations, int index, Reservation reservation) {
+        LocalDate start = reservation.getStartDate();
+        return (index == 0 || !reservations.get(index - 1).getStartDate().isAfter(start))
+                && (index == reservations.size() - 1 || !reservations.get(index + 1).getStartDate().isBefore(start));
+    }
+
+    @Override
+    public String toString() {
+        return "ReservationBinaryRepository{" +
+                "directory='" + directory + '\'' +
+                ", guestRepository=" + guestRepository +
+                ", hostRepository=" + hostRepository +
+                '}';
+    }
+}
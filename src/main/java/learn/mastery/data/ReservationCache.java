@@ -0,0 +1,67 @@
+package learn.mastery.data;
+
+import learn.mastery.models.Reservation;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// bounded, least-recently-used cache of each host's reservations, keyed by host id.
+// an entry is dropped as soon as its file changes on disk behind our back.
+class ReservationCache {
+    private final int capacity;
+    private final LinkedHashMap<String, Entry> entries;
+
+    ReservationCache(int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > ReservationCache.this.capacity;
+            }
+        };
+    }
+
+    synchronized List<Reservation> get(String hostId) {
+        Entry entry = entries.get(hostId);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.stamp.hasChanged()) {
+            entries.remove(hostId);
+            return null;
+        }
+        return entry.reservations;
+    }
+
+    synchronized void put(String hostId, List<Reservation> reservations, FileStamp stamp) {
+        if (capacity > 0) {
+            entries.put(hostId, new Entry(reservations, stamp));
+        }
+    }
+
+    synchronized void evict(String hostId) {
+        entries.remove(hostId);
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private static class Entry {
+        private final List<Reservation> reservations;
+        private final FileStamp stamp;
+
+        Entry(List<Reservation> reservations, FileStamp stamp) {
+            this.reservations = reservations;
+            this.stamp = stamp;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ReservationCache{" +
+                "capacity=" + capacity +
+                '}';
+    }
+}
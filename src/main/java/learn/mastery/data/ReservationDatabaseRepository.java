@@ -0,0 +1,379 @@
+package learn.mastery.data;
+
+import learn.mastery.models.Guest;
+import learn.mastery.models.Reservation;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.stream.Stream;
+
+// reservations from the embedded database, keyed by (host id, id) with an index on (host id, start date).
+// each change is one transaction; the host locks and versions work the same as the file repositories'.
+public class ReservationDatabaseRepository implements ReservationRepository {
+    private static final String COLUMNS = "id, start_date, end_date, guest_id, total";
+
+    private final Database database;
+    private final GuestRepository guestRepository;
+    private final HostRepository hostRepository;
+    private final HostLocks locks = new HostLocks();
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+
+    public ReservationDatabaseRepository(Database database, GuestRepository guestRepository,
+                                         HostRepository hostRepository) {
+        this.database = database;
+        this.guestRepository = guestRepository;
+        this.hostRepository = hostRepository;
+    }
+
+    @Override
+    public List<Reservation> findByHostId(String hostId) {
+        return query(hostId, "SELECT " + COLUMNS + " FROM reservations WHERE host_id = ? ORDER BY id");
+    }
+
+    // the lowest id is enough to know, the same row findByHostId would start with
+    @Override
+    public boolean existsForHost(String hostId) {
+        return !query(hostId, "SELECT " + COLUMNS + " FROM reservations WHERE host_id = ? ORDER BY id LIMIT 1")
+                .isEmpty();
+    }
+
+    // a primary key lookup
+    @Override
+    public Reservation findOne(String hostId, int reservationId) {
+        List<Reservation> reservations = query(hostId, "SELECT " + COLUMNS + " FROM reservations " +
+                "WHERE host_id = ? AND id = ?", reservationId);
+        return reservations.isEmpty() ? null : reservations.get(0);
+    }
+
+    // every reservation the guest holds, with any host, ordered by host and then id; uses the guest_id index
+    @Override
+    public List<Reservation> findByGuestId(int guestId) {
+        Map<String, List<Reservation>> byHost = new TreeMap<>();
+        try (Connection connection = database.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT host_id, " + COLUMNS + " FROM reservations WHERE guest_id = ? ORDER BY host_id, id")) {
+            statement.setInt(1, guestId);
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    byHost.computeIfAbsent(rows.getString(1), id -> new ArrayList<>()).add(new Reservation(
+                            rows.getInt(2), rows.getDate(3).toLocalDate(), rows.getDate(4).toLocalDate(),
+                            null, null, rows.getInt(5), rows.getBigDecimal(6)));
+                }
+            }
+        } catch (SQLException e) {
+            return new ArrayList<>();
+        }
+
+        List<Reservation> reservations = new ArrayList<>();
+        byHost.forEach((hostId, rows) -> reservations.addAll(
+                ReservationReferences.resolve(hostId, rows, hostRepository, guestRepository)));
+        return reservations;
+    }
+
+    // one query for the whole table, grouped by host, and one guest lookup for all of it; keys in host id order
+    @Override
+    public Map<String, List<Reservation>> loadAll() throws DataException {
+        Map<String, List<Reservation>> byHost = new TreeMap<>();
+        try (Connection connection = database.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT host_id, " + COLUMNS + " FROM reservations ORDER BY host_id, id");
+             ResultSet rows = statement.executeQuery()) {
+            while (rows.next()) {
+                byHost.computeIfAbsent(rows.getString(1), id -> new ArrayList<>()).add(new Reservation(
+                        rows.getInt(2), rows.getDate(3).toLocalDate(), rows.getDate(4).toLocalDate(),
+                        null, null, rows.getInt(5), rows.getBigDecimal(6)));
+            }
+        } catch (SQLException e) {
+            throw new DataException("Could not load reservations: " + e.getMessage(), e);
+        }
+        try {
+            Set<Integer> guestIds = new HashSet<>();
+            byHost.values().forEach(rows -> rows.forEach(reservation -> guestIds.add(reservation.getGuestId())));
+            Map<Integer, Guest> guests = guestRepository.findByIds(guestIds);
+            for (Map.Entry<String, List<Reservation>> entry : byHost.entrySet()) {
+                entry.setValue(ReservationReferences.resolve(entry.getValue(),
+                        hostRepository.findById(entry.getKey()), guests));
+            }
+        } catch (IOException e) {
+            throw new DataException("Could not load guests and hosts for reservations: " + e.getMessage(), e);
+        }
+        return byHost;
+    }
+
+    // one host at a time, so only the host ids are held up front
+    @Override
+    public Stream<Reservation> streamAll() {
+        List<String> hostIds = new ArrayList<>();
+        try (Connection connection = database.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT DISTINCT host_id FROM reservations ORDER BY host_id");
+             ResultSet rows = statement.executeQuery()) {
+            while (rows.next()) {
+                hostIds.add(rows.getString(1));
+            }
+        } catch (SQLException e) {
+            return Stream.empty();
+        }
+        return hostIds.stream().flatMap(hostId -> findByHostId(hostId).stream());
+    }
+
+    // reservations for a host that start between from and to, inclusive, in start date order
+    public List<Reservation> findByHostIdStartingBetween(String hostId, LocalDate from, LocalDate to) {
+        return query(hostId, "SELECT " + COLUMNS + " FROM reservations " +
+                "WHERE host_id = ? AND start_date BETWEEN ? AND ? ORDER BY start_date, id", from, to);
+    }
+
+    @Override
+    public Reservation add(Reservation reservation) throws DataException {
+        String hostId = reservation.getHost().getId();
+        Lock lock = locks.lockFor(hostId).writeLock();
+        lock.lock();
+        try {
+            return add(reservation, getVersion(hostId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Reservation add(Reservation reservation, long expectedVersion) throws DataException {
+        String hostId = reservation.getHost().getId();
+        Lock lock = locks.lockFor(hostId).writeLock();
+        lock.lock();
+        try (Connection connection = database.getConnection()) {
+            checkVersion(hostId, expectedVersion);
+            connection.setAutoCommit(false);
+            try {
+                int id = nextId(connection, hostId, 1);
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "INSERT INTO reservations (host_id, " + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?)")) {
+                    statement.setString(1, hostId);
+                    statement.setInt(2, id);
+                    setFields(statement, 3, reservation);
+                    statement.executeUpdate();
+                }
+                connection.commit();
+                reservation.setId(id);
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            bumpVersion(hostId);
+            return reservation;
+        } catch (SQLException e) {
+            throw new DataException("Could not save reservations for host " + hostId + ": " + e.getMessage(), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // one transaction and one batched insert for the whole batch
+    @Override
+    public List<Reservation> addAll(String hostId, List<Reservation> added) throws DataException {
+        if (added.isEmpty()) {
+            return added;
+        }
+        Lock lock = locks.lockFor(hostId).writeLock();
+        lock.lock();
+        try (Connection connection = database.getConnection()) {
+            int firstId;
+            connection.setAutoCommit(false);
+            try {
+                firstId = nextId(connection, hostId, added.size()) - added.size() + 1;
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "INSERT INTO reservations (host_id, " + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?)")) {
+                    for (int i = 0; i < added.size(); i++) {
+                        statement.setString(1, hostId);
+                        statement.setInt(2, firstId + i);
+                        setFields(statement, 3, added.get(i));
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            for (int i = 0; i < added.size(); i++) {
+                added.get(i).setId(firstId + i);
+            }
+            bumpVersion(hostId);
+            return added;
+        } catch (SQLException e) {
+            throw new DataException("Could not save reservations for host " + hostId + ": " + e.getMessage(), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean update(Reservation reservation) throws DataException {
+        String hostId = reservation.getHost().getId();
+        Lock lock = locks.lockFor(hostId).writeLock();
+        lock.lock();
+        try {
+            return update(reservation, getVersion(hostId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean update(Reservation reservation, long expectedVersion) throws DataException {
+        String hostId = reservation.getHost().getId();
+        Lock lock = locks.lockFor(hostId).writeLock();
+        lock.lock();
+        try (Connection connection = database.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "UPDATE reservations SET start_date = ?, end_date = ?, guest_id = ?, total = ? " +
+                             "WHERE host_id = ? AND id = ?")) {
+            checkVersion(hostId, expectedVersion);
+            setFields(statement, 1, reservation);
+            statement.setString(5, hostId);
+            statement.setInt(6, reservation.getId());
+            if (statement.executeUpdate() == 0) {
+                return false;
+            }
+            bumpVersion(hostId);
+            return true;
+        } catch (SQLException e) {
+            throw new DataException("Could not save reservations for host " + hostId + ": " + e.getMessage(), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean delete(Reservation reservation) throws DataException {
+        String hostId = reservation.getHost().getId();
+        Lock lock = locks.lockFor(hostId).writeLock();
+        lock.lock();
+        try (Connection connection = database.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "DELETE FROM reservations WHERE host_id = ? AND id = ?")) {
+            statement.setString(1, hostId);
+            statement.setInt(2, reservation.getId());
+            if (statement.executeUpdate() == 0) {
+                return false;
+            }
+            bumpVersion(hostId);
+            return true;
+        } catch (SQLException e) {
+            throw new DataException("Could not save reservations for host " + hostId + ": " + e.getMessage(), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getVersion(String hostId) {
+        return versions.getOrDefault(hostId, 0L);
+    }
+
+    @Override
+    public ReadWriteLock lockFor(String hostId) {
+        return locks.lockFor(hostId);
+    }
+
+    // HELPERS HELPERS HELPERS HELPERS HELPERS HELPERS HELPERS HELPERS HELPERS HELPERS HELPERS
+    // hostId is bound to the first ?, then parameters to the rest in order
+    private List<Reservation> query(String hostId, String sql, Object... parameters) {
+        Lock lock = locks.lockFor(hostId).readLock();
+        lock.lock();
+        try (Connection connection = database.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, hostId);
+            for (int i = 0; i < parameters.length; i++) {
+                if (parameters[i] instanceof LocalDate) {
+                    statement.setDate(i + 2, Date.valueOf((LocalDate) parameters[i]));
+                } else {
+                    statement.setObject(i + 2, parameters[i]);
+                }
+            }
+            List<Reservation> reservations = new ArrayList<>();
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    reservations.add(new Reservation(rows.getInt(1), rows.getDate(2).toLocalDate(),
+                            rows.getDate(3).toLocalDate(), null, null, rows.getInt(4), rows.getBigDecimal(5)));
+                }
+            }
+            return ReservationReferences.resolve(hostId, reservations, hostRepository, guestRepository);
+        } catch (SQLException e) {
+            return new ArrayList<>();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // start_date, end_date, guest_id, total from position on
+    private static void setFields(PreparedStatement statement, int position, Reservation reservation)
+            throws SQLException {
+        statement.setDate(position, Date.valueOf(reservation.getStartDate()));
+        statement.setDate(position + 1, Date.valueOf(reservation.getEndDate()));
+        statement.setInt(position + 2, reservation.getGuestId());
+        statement.setBigDecimal(position + 3, reservation.getTotal());
+    }
+
+    // reserves count ids and returns the last of them. seeded from the highest id on record the first time
+    // a host gets a new reservation.
+    private static int nextId(Connection connection, String hostId, int count) throws SQLException {
+        int lastId;
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT GREATEST(COALESCE((SELECT last_id FROM reservation_ids WHERE host_id = ?), 0), " +
+                        "COALESCE((SELECT MAX(id) FROM reservations WHERE host_id = ?), 0))")) {
+            statement.setString(1, hostId);
+            statement.setString(2, hostId);
+            try (ResultSet rows = statement.executeQuery()) {
+                rows.next();
+                lastId = rows.getInt(1);
+            }
+        }
+        try (PreparedStatement statement = connection.prepareStatement(
+                "MERGE INTO reservation_ids (host_id, last_id) KEY (host_id) VALUES (?, ?)")) {
+            statement.setString(1, hostId);
+            statement.setInt(2, lastId + count);
+            statement.executeUpdate();
+        }
+        return lastId + count;
+    }
+
+    // callers hold the host's write lock
+    private void checkVersion(String hostId, long expectedVersion) throws StaleVersionException {
+        long version = getVersion(hostId);
+        if (version != expectedVersion) {
+            throw new StaleVersionException(hostId, expectedVersion, version);
+        }
+    }
+
+    private void bumpVersion(String hostId) {
+        versions.merge(hostId, 1L, Long::sum);
+    }
+
+    @Override
+    public String toString() {
+        return "ReservationDatabaseRepository{" +
+                "database=" + database +
+                ", guestRepository=" + guestRepository +
+                ", hostRepository=" + hostRepository +
+                '}';
+    }
+}
@@ -5,101 +5,477 @@ import learn.mastery.models.Host;
 import learn.mastery.models.Reservation;
 import java.io.*;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 
-public class ReservationFileRepository implements ReservationRepository {
+public class ReservationFileRepository implements ReservationRepository, AutoCloseable {
+    private static final int DEFAULT_CACHE_CAPACITY = 256;
+    // in append-only mode a host file is compacted once at least this share of its records are dead
+    private static final double COMPACTION_DEAD_RATIO = 0.5;
+    private static final int COMPACTION_MIN_RECORDS = 16;
+    // loadAll hands each worker at most this many host files before it splits the work again
+    private static final int LOAD_HOSTS_PER_TASK = 8;
+    // forEachByHostId resolves the guests of one row with its first findByIds, then twice as many rows
+    // each time up to this many, so a walk that stops early only looks up the guests it got to
+    private static final int SCAN_ROWS_PER_LOOKUP = 256;
+
     private final String directory;
     private final GuestRepository guestRepository;
     private final HostRepository hostRepository;
+    private final ReservationCache cache;
+    private final boolean appendOnly;
+    // lines in each host file that hold a record, live or dead, as of the last read or write
+    private final Map<String, Integer> recordCounts = new ConcurrentHashMap<>();
+    private final Set<String> pendingCompactions = ConcurrentHashMap.newKeySet();
+    private final ExecutorService compactor;
+    private final HostLocks locks = new HostLocks();
+    // bumped under the host's write lock after every successful change, and whenever a host file turns out
+    // to have changed on disk since this repository last read or wrote it
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+    // each host file as this repository last saw it
+    private final Map<String, FileStamp> seenStamps = new ConcurrentHashMap<>();
+    // highest id handed out or seen on disk per host; ids only go up, so a deleted one is never reused
+    private final Map<String, AtomicInteger> lastIds = new ConcurrentHashMap<>();
+    // optional guest id -> host lookup kept up to date by add, update and delete
+    private final GuestReservationIndex guestIndex;
+    private volatile boolean guestIndexReady;
+    private volatile int loadParallelism = Runtime.getRuntime().availableProcessors();
 
-    private static final String DELIMITER = ",";
-    private static final String HEADER = "id,start_date,end_date,guest_id,total";
+    static final String HEADER = "id,start_date,end_date,guest_id,total";
 
     public ReservationFileRepository(String directory, GuestRepository guestRepository, HostRepository hostRepository) {
+        this(directory, guestRepository, hostRepository, DEFAULT_CACHE_CAPACITY);
+    }
+
+    public ReservationFileRepository(String directory, GuestRepository guestRepository, HostRepository hostRepository,
+                                     int cacheCapacity) {
+        this(directory, guestRepository, hostRepository, cacheCapacity, false);
+    }
+
+    // appendOnly: adds, updates and deletes are appended to the host file as single lines
+    // instead of rewriting it, and a background thread compacts files that pile up dead lines
+    public ReservationFileRepository(String directory, GuestRepository guestRepository, HostRepository hostRepository,
+                                     int cacheCapacity, boolean appendOnly) {
+        this(directory, guestRepository, hostRepository, cacheCapacity, appendOnly, null);
+    }
+
+    // guestIndex: when set, findByGuestId only opens the hosts it lists instead of every file
+    public ReservationFileRepository(String directory, GuestRepository guestRepository, HostRepository hostRepository,
+                                     int cacheCapacity, boolean appendOnly, GuestReservationIndex guestIndex) {
         this.directory = directory;
+        this.guestIndex = guestIndex;
         this.guestRepository = guestRepository;
         this.hostRepository = hostRepository;
+        this.cache = new ReservationCache(cacheCapacity);
+        this.appendOnly = appendOnly;
+        this.compactor = appendOnly ? Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reservation-compactor");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
     }
 
     @Override
     public List<Reservation> findByHostId(String hostId) {
-        List<Reservation> reservations = new ArrayList<>();
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(getFilePath(hostId)))) {
-
-            reader.readLine();
+        Lock lock = locks.lockFor(hostId).readLock();
+        lock.lock();
+        try {
+            return resolve(hostId, loadReservations(hostId));
+        } finally {
+            lock.unlock();
+        }
+    }
 
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] fields = line.split(DELIMITER, -1);
-                if (fields.length == 5) {
-                        Reservation reservation = deserialize(fields, hostId);
-                        reservations.add(reservation);
+    // a cached host is walked from memory. otherwise a plain file is read a block at a time and parsed in
+    // batches of 1, 2, 4 ... up to SCAN_ROWS_PER_LOOKUP rows: the host is looked up once, the guests new to
+    // each batch with one findByIds, and nothing past the batch holding the row that ends the walk is read
+    // or resolved. rows are cut off at the first guest or host that can't be found, the same as findByHostId.
+    @Override
+    public void forEachByHostId(String hostId, Predicate<Reservation> visitor) {
+        Lock lock = locks.lockFor(hostId).readLock();
+        lock.lock();
+        try {
+            List<Reservation> loaded = cachedOrFolded(hostId);
+            if (loaded != null) {
+                for (Reservation reservation : resolve(hostId, loaded)) {
+                    if (!visitor.test(reservation)) {
+                        return;
+                    }
                 }
+                return;
             }
-        } catch (IOException ignored) {
+
+            scanByHostId(hostId, visitor);
+        } catch (IOException | UncheckedIOException ignored) {
+        } finally {
+            lock.unlock();
         }
-        return reservations;
     }
 
     @Override
     public Reservation add(Reservation reservation) throws DataException {
-        List<Reservation> reservations = findByHostId(reservation.getHost().getId());
-        reservation.setId(generateNewId(reservations));
-        reservations.add(reservation);
+        String hostId = reservation.getHost().getId();
+        Lock lock = locks.lockFor(hostId).writeLock();
+        lock.lock();
+        try {
+            return add(reservation, getVersion(hostId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Reservation add(Reservation reservation, long expectedVersion) throws DataException {
+        String hostId = reservation.getHost().getId();
+        Lock lock = locks.lockFor(hostId).writeLock();
+        lock.lock();
+        try {
+            checkVersion(hostId, expectedVersion);
+            List<Reservation> reservations = new ArrayList<>(loadReservations(hostId));
+            reservation.setId(generateNewId(hostId));
+            reservations.add(reservation);
 
-        writeReservations(reservation.getHost().getId(), reservations);
+            if (appendOnly) {
+                appendRecords(hostId, List.of(reservation), false, reservations);
+            } else {
+                writeReservations(hostId, reservations);
+            }
+            bumpVersion(hostId);
+            indexAdded(reservation.getGuestId(), hostId, reservation.getId());
 
-        return reservation;
+            return reservation;
+        } finally {
+            lock.unlock();
+        }
     }
 
+    // one file write for the whole batch, or one append of all its lines in append-only mode
+    @Override
+    public List<Reservation> addAll(String hostId, List<Reservation> added) throws DataException {
+        if (added.isEmpty()) {
+            return added;
+        }
+        Lock lock = locks.lockFor(hostId).writeLock();
+        lock.lock();
+        try {
+            List<Reservation> reservations = new ArrayList<>(loadReservations(hostId));
+            for (Reservation reservation : added) {
+                reservation.setId(generateNewId(hostId));
+                reservations.add(reservation);
+            }
+
+            if (appendOnly) {
+                appendRecords(hostId, added, false, reservations);
+            } else {
+                writeReservations(hostId, reservations);
+            }
+            bumpVersion(hostId);
+            indexAdded(hostId, added);
+            return added;
+        } finally {
+            lock.unlock();
+        }
+    }
 
     @Override
     public boolean update(Reservation reservation) throws DataException {
-        List<Reservation> reservations = findByHostId(reservation.getHost().getId());
-        boolean found = false;
+        String hostId = reservation.getHost().getId();
+        Lock lock = locks.lockFor(hostId).writeLock();
+        lock.lock();
+        try {
+            return update(reservation, getVersion(hostId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean update(Reservation reservation, long expectedVersion) throws DataException {
+        String hostId = reservation.getHost().getId();
+        Lock lock = locks.lockFor(hostId).writeLock();
+        lock.lock();
+        try {
+            checkVersion(hostId, expectedVersion);
+            List<Reservation> reservations = new ArrayList<>(loadReservations(hostId));
+            boolean found = false;
+
+            int previousGuestId = 0;
+
+            for (int i = 0; i < reservations.size(); i++) {
+                if (reservations.get(i).getId() == reservation.getId()) {
+                    previousGuestId = reservations.get(i).getGuestId();
+                    reservations.set(i, reservation);
+                    found = true;
+                    break;
+                }
+            }
+
+            if (!found) {
+                return false;
+            }
+
+            if (appendOnly) {
+                appendRecords(hostId, List.of(reservation), false, reservations);
+            } else {
+                writeReservations(hostId, reservations);
+            }
+            bumpVersion(hostId);
+            if (previousGuestId != reservation.getGuestId()) {
+                indexRemoved(previousGuestId, hostId, reservation.getId());
+                indexAdded(reservation.getGuestId(), hostId, reservation.getId());
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean delete(Reservation reservation) throws DataException {
+        String hostId = reservation.getHost().getId();
+        Lock lock = locks.lockFor(hostId).writeLock();
+        lock.lock();
+        try {
+            List<Reservation> reservations = new ArrayList<>(loadReservations(hostId));
+            boolean found = false;
+
+            int guestId = 0;
+
+            for (Iterator<Reservation> iterator = reservations.iterator(); iterator.hasNext(); ) {
+                Reservation currentReservation = iterator.next();
+                if (currentReservation.getId() == reservation.getId()) {
+                    guestId = currentReservation.getGuestId();
+                    iterator.remove();
+                    found = true;
+                    break;
+                }
+            }
+
+            if (!found) {
+                return false;
+            }
 
-        for (int i = 0; i < reservations.size(); i++) {
-            if (reservations.get(i).getId() == reservation.getId()) {
-                reservations.set(i, reservation);
-                found = true;
-                break;
+            if (appendOnly) {
+                appendRecords(hostId, List.of(reservation), true, reservations);
+            } else {
+                writeReservations(hostId, reservations);
             }
+            bumpVersion(hostId);
+            indexRemoved(guestId, hostId, reservation.getId());
+            return true;
+        } finally {
+            lock.unlock();
         }
+    }
 
-        if (!found) {
-            return false;
+    // reads of a host share its lock, writes hold it alone. hosts on different stripes never block each other.
+    @Override
+    public ReadWriteLock lockFor(String hostId) {
+        return locks.lockFor(hostId);
+    }
+
+    // every reservation the guest holds, with any host, ordered by host and then id
+    @Override
+    public List<Reservation> findByGuestId(int guestId) {
+        Collection<String> hostIds = null;
+        if (guestIndex != null) {
+            try {
+                ensureGuestIndex();
+                hostIds = new TreeSet<>(guestIndex.findByGuestId(guestId).keySet());
+            } catch (IOException | DataException ignored) {
+                // fall back to looking at every host
+            }
+        }
+        if (hostIds == null) {
+            hostIds = listHostIds();
         }
 
-        writeReservations(reservation.getHost().getId(), reservations);
-        return true;
+        List<Reservation> reservations = new ArrayList<>();
+        for (String hostId : hostIds) {
+            for (Reservation reservation : findByHostId(hostId)) {
+                if (reservation.getGuestId() == guestId) {
+                    reservations.add(reservation);
+                }
+            }
+        }
+        return reservations;
+    }
+
+    // threads loadAll parses files on; defaults to the number of cores
+    public int getLoadParallelism() {
+        return loadParallelism;
+    }
+
+    public void setLoadParallelism(int loadParallelism) {
+        if (loadParallelism < 1) {
+            throw new IllegalArgumentException("loadParallelism must be at least 1");
+        }
+        this.loadParallelism = loadParallelism;
     }
 
+    // parses every host file in parallel on a work-stealing pool, then fills in hosts and guests with one
+    // lookup each for the whole data set instead of one per host. keys come back in host id order.
+    // a host file that can't be read fails the whole load rather than coming back as a host with no bookings.
     @Override
-    public boolean delete(Reservation reservation) throws DataException {
-        List<Reservation> reservations = findByHostId(reservation.getHost().getId());
-        boolean found = false;
+    public Map<String, List<Reservation>> loadAll() throws DataException {
+        List<String> hostIds = listHostIds();
+        Map<String, List<Reservation>> parsed = new ConcurrentHashMap<>();
+        ForkJoinPool pool = new ForkJoinPool(loadParallelism);
+        try {
+            pool.invoke(new LoadTask(hostIds, 0, hostIds.size(), parsed));
+        } catch (UncheckedIOException e) {
+            throw new DataException("Could not load reservations: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdown();
+        }
 
-        for (Iterator<Reservation> iterator = reservations.iterator(); iterator.hasNext(); ) {
-            Reservation currentReservation = iterator.next();
-            if (currentReservation.getId() == reservation.getId()) {
-                iterator.remove();
-                found = true;
-                break;
+        Map<String, List<Reservation>> loaded = new LinkedHashMap<>();
+        try {
+            Set<Integer> guestIds = new HashSet<>();
+            parsed.values().forEach(reservations -> reservations.forEach(r -> guestIds.add(r.getGuestId())));
+            Map<Integer, Guest> guests = guestRepository.findByIds(guestIds);
+            Map<String, Host> hosts = new HashMap<>();
+            for (Host host : hostRepository.findAll()) {
+                hosts.put(host.getId().toLowerCase(Locale.ROOT), host);
+            }
+            for (String hostId : hostIds) {
+                loaded.put(hostId, ReservationReferences.resolve(parsed.get(hostId),
+                        hosts.get(hostId.toLowerCase(Locale.ROOT)), guests));
             }
+        } catch (IOException e) {
+            throw new DataException("Could not load guests and hosts for reservations: " + e.getMessage(), e);
         }
+        return loaded;
+    }
 
-        if (!found) {
-            return false;
+    @Override
+    public Stream<Reservation> streamAll() {
+        return listHostIds().stream().flatMap(hostId -> findByHostId(hostId).stream());
+    }
+
+    // splits the host list in half until a piece is small enough to parse on one thread
+    private class LoadTask extends RecursiveAction {
+        private final List<String> hostIds;
+        private final int from;
+        private final int to;
+        private final Map<String, List<Reservation>> parsed;
+
+        LoadTask(List<String> hostIds, int from, int to, Map<String, List<Reservation>> parsed) {
+            this.hostIds = hostIds;
+            this.from = from;
+            this.to = to;
+            this.parsed = parsed;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LOAD_HOSTS_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    String hostId = hostIds.get(i);
+                    Lock lock = locks.lockFor(hostId).readLock();
+                    lock.lock();
+                    try {
+                        parsed.put(hostId, readReservations(hostId, getFilePath(hostId)));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Could not read reservations for host " + hostId + ": "
+                                + e.getMessage(), e);
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new LoadTask(hostIds, from, middle, parsed), new LoadTask(hostIds, middle, to, parsed));
+        }
+    }
+
+    // rebuilds the guest index from every host file; returns how many reservations it now holds.
+    // run it when the index is new, lost, or the files were changed by hand.
+    public int rebuildGuestIndex() throws DataException {
+        if (guestIndex == null) {
+            throw new DataException("No guest index is configured.");
+        }
+        Map<Integer, Map<String, Set<Integer>>> rebuilt = new HashMap<>();
+        int count = 0;
+        try {
+            for (String hostId : listHostIds()) {
+                for (Reservation reservation : ReservationFormatConverter.readCsv(
+                        Paths.get(getFilePath(hostId))).reservations) {
+                    rebuilt.computeIfAbsent(reservation.getGuestId(), id -> new HashMap<>())
+                            .computeIfAbsent(hostId, id -> new TreeSet<>())
+                            .add(reservation.getId());
+                    count++;
+                }
+            }
+            guestIndex.replaceAll(rebuilt);
+        } catch (IOException e) {
+            throw new DataException("Could not rebuild the guest index: " + e.getMessage(), e);
+        }
+        guestIndexReady = true;
+        return count;
+    }
+
+    // a file changed by another process or by hand counts as a change too, so whatever a caller keeps at
+    // an older version, like ReservationService's availability index, gets rebuilt from the new file
+    @Override
+    public long getVersion(String hostId) {
+        noticeOutsideChange(hostId);
+        return versions.getOrDefault(hostId, 0L);
+    }
+
+    // rewrites a host file with only its live reservations
+    public void compact(String hostId) throws DataException {
+        Lock lock = locks.lockFor(hostId).writeLock();
+        lock.lock();
+        try {
+            writeReservations(hostId, new ArrayList<>(loadReservations(hostId)));
+        } finally {
+            lock.unlock();
         }
+    }
 
-        writeReservations(reservation.getHost().getId(), reservations);
-        return true;
+    // waits for any background compaction to finish
+    @Override
+    public void close() {
+        if (compactor == null) {
+            return;
+        }
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     // HELPERS HELPERS HELPERS HELPERS HELPERS HELPERS HELPERS HELPERS HELPERS HELPERS
@@ -107,53 +483,390 @@ public class ReservationFileRepository implements ReservationRepository {
         return Paths.get(directory, hostId + ".csv").toString();
     }
 
-    private int generateNewId(List<Reservation> reservations) {
-        return reservations.stream()
-                .mapToInt(Reservation::getId)
-                .max()
-                .orElse(0) + 1;
+    // returns the cached reservations for a host, reading the file only on a miss or when it changed on disk.
+    // the rows hold ids only; resolve fills in the Guest and Host on the copies handed to callers, so the
+    // cache never pins its own copies and picks up edits to guests.csv and hosts.csv on the next read.
+    // the returned list is shared with the cache and must not be modified.
+    private List<Reservation> loadReservations(String hostId) {
+        String filePath = getFilePath(hostId);
+        List<Reservation> cached = cache.get(hostId);
+        if (cached != null) {
+            return cached;
+        }
+
+        FileStamp stamp = new FileStamp(filePath);
+        stamp.hasChanged();
+        List<Reservation> reservations = Collections.unmodifiableList(parseReservations(hostId, filePath));
+        cache.put(hostId, reservations, stamp);
+        return reservations;
+    }
+
+    // copies of the rows with the host looked up once and each guest once, so every reservation of a host
+    // points at the same Host. with the cached guest and host repositories those are the single shared
+    // instances, across hosts and across calls.
+    private List<Reservation> resolve(String hostId, List<Reservation> reservations) {
+        return ReservationReferences.resolve(hostId, copyOf(reservations), hostRepository, guestRepository);
+    }
+
+    // the host's reservations if they can be had without a row by row scan: from the cache, or, in
+    // append-only mode, by folding the whole file, since a later line can replace or remove any row.
+    // null means the plain file can be scanned. callers hold the host's read lock.
+    private List<Reservation> cachedOrFolded(String hostId) {
+        List<Reservation> cached = cache.get(hostId);
+        if (cached != null) {
+            return cached;
+        }
+        return appendOnly ? loadReservations(hostId) : null;
+    }
+
+    // the uncached walk behind forEachByHostId. callers hold the host's read lock.
+    private void scanByHostId(String hostId, Predicate<Reservation> visitor) throws IOException {
+        try (CsvReader reader = CsvReader.openInBlocks(Paths.get(getFilePath(hostId)))) {
+            reader.nextLine();
+            Host host = null;
+            Map<Integer, Guest> guests = new HashMap<>();
+            List<Reservation> batch = new ArrayList<>();
+            int batchSize = 1;
+            boolean more = true;
+            while (more) {
+                batch.clear();
+                Set<Integer> newGuestIds = new HashSet<>();
+                while (batch.size() < batchSize && (more = reader.nextLine())) {
+                    if (reader.fieldCount() != 5 || reader.isEmpty(1)) {
+                        continue;
+                    }
+                    Reservation reservation = deserialize(reader);
+                    batch.add(reservation);
+                    if (!guests.containsKey(reservation.getGuestId())) {
+                        newGuestIds.add(reservation.getGuestId());
+                    }
+                }
+                if (batch.isEmpty()) {
+                    return;
+                }
+                if (host == null) {
+                    host = hostRepository.findById(hostId);
+                }
+                if (!newGuestIds.isEmpty()) {
+                    guests.putAll(guestRepository.findByIds(newGuestIds));
+                }
+
+                for (Reservation reservation : batch) {
+                    Guest guest = guests.get(reservation.getGuestId());
+                    if (host == null || guest == null) {
+                        return;
+                    }
+                    reservation.setHost(host);
+                    reservation.setGuest(guest);
+                    if (!visitor.test(reservation)) {
+                        return;
+                    }
+                }
+                batchSize = Math.min(batchSize * 2, SCAN_ROWS_PER_LOOKUP);
+            }
+        }
+    }
+
+    // a host without a readable file has no reservations as far as the single-host reads are concerned
+    private List<Reservation> parseReservations(String hostId, String filePath) {
+        try {
+            return readReservations(hostId, filePath);
+        } catch (IOException e) {
+            recordCounts.put(hostId, 0);
+            return new ArrayList<>();
+        }
+    }
+
+    // folds the file into its live reservations, without their Guest and Host filled in: a later line for
+    // the same id replaces the earlier one and a tombstone (an id with empty fields) removes it. plain files
+    // never repeat an id, so for them this is just a read.
+    private List<Reservation> readReservations(String hostId, String filePath) throws IOException {
+        // a re-read because the file changed on disk is a change, even if getVersion hasn't been asked yet
+        noticeOutsideChange(hostId);
+        Map<Integer, Reservation> reservations = new LinkedHashMap<>();
+        int records = 0;
+        int maxId = 0;
+
+        CsvReader reader = CsvReader.open(Paths.get(filePath));
+        reader.nextLine();
+
+        while (reader.nextLine()) {
+            if (reader.fieldCount() == 5) {
+                records++;
+                maxId = Math.max(maxId, reader.parseInt(0));
+                if (reader.isEmpty(1)) {
+                    reservations.remove(reader.parseInt(0));
+                } else {
+                    Reservation reservation = deserialize(reader);
+                    reservations.put(reservation.getId(), reservation);
+                }
+            }
+        }
+
+        recordCounts.put(hostId, records);
+        // raised, never lowered, so a file edited by hand can't make us hand out an id twice
+        lastIdFor(hostId).accumulateAndGet(maxId, Math::max);
+        return new ArrayList<>(reservations.values());
+    }
+
+    // callers get their own Reservation objects so edits never leak into the cache before they're saved.
+    // the copies drop the Guest and Host; only the ids are kept.
+    private static List<Reservation> copyOf(List<Reservation> reservations) {
+        List<Reservation> copies = new ArrayList<>(reservations.size());
+        for (Reservation reservation : reservations) {
+            copies.add(new Reservation(reservation.getId(), reservation.getStartDate(), reservation.getEndDate(),
+                    null, null, reservation.getGuestId(), reservation.getTotal()));
+        }
+        return copies;
+    }
+
+    private List<String> listHostIds() {
+        List<String> hostIds = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(directory), "*.csv")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                hostIds.add(name.substring(0, name.length() - ".csv".length()));
+            }
+        } catch (IOException ignored) {
+        }
+        Collections.sort(hostIds);
+        return hostIds;
+    }
+
+    // an index file that isn't there yet hasn't been built, which isn't the same as empty
+    private void ensureGuestIndex() throws DataException {
+        if (guestIndexReady) {
+            return;
+        }
+        synchronized (guestIndex) {
+            if (!guestIndexReady && !guestIndex.exists()) {
+                rebuildGuestIndex();
+            }
+            guestIndexReady = true;
+        }
+    }
+
+    // the reservation itself is already saved, so a failure here only leaves the index missing an entry,
+    // which rebuildGuestIndex repairs
+    private void indexAdded(int guestId, String hostId, int reservationId) {
+        if (guestIndex == null) {
+            return;
+        }
+        try {
+            ensureGuestIndex();
+            guestIndex.add(guestId, hostId, reservationId);
+        } catch (IOException | DataException ignored) {
+        }
+    }
+
+    private void indexAdded(String hostId, List<Reservation> added) {
+        if (guestIndex == null) {
+            return;
+        }
+        try {
+            ensureGuestIndex();
+            guestIndex.addAll(hostId, added);
+        } catch (IOException | DataException ignored) {
+        }
     }
 
+    private void indexRemoved(int guestId, String hostId, int reservationId) {
+        if (guestIndex == null) {
+            return;
+        }
+        try {
+            ensureGuestIndex();
+            guestIndex.remove(guestId, hostId, reservationId);
+        } catch (IOException | DataException ignored) {
+        }
+    }
+
+    // callers hold the host's write lock
+    private void checkVersion(String hostId, long expectedVersion) throws StaleVersionException {
+        long version = getVersion(hostId);
+        if (version != expectedVersion) {
+            throw new StaleVersionException(hostId, expectedVersion, version);
+        }
+    }
+
+    private void bumpVersion(String hostId) {
+        versions.merge(hostId, 1L, Long::sum);
+    }
+
+    // moves the version if the host's file differs from the last time this repository read or wrote it.
+    // the check and the bump happen together, so nobody reads the old version once the change is seen.
+    private void noticeOutsideChange(String hostId) {
+        FileStamp seen = seenStamp(hostId);
+        synchronized (seen) {
+            if (seen.hasChanged()) {
+                bumpVersion(hostId);
+            }
+        }
+    }
+
+    // the first look at a host only remembers its file as it is now
+    private FileStamp seenStamp(String hostId) {
+        return seenStamps.computeIfAbsent(hostId, id -> {
+            FileStamp stamp = new FileStamp(getFilePath(id));
+            stamp.hasChanged();
+            return stamp;
+        });
+    }
+
+    // the file has always been read by the time a host gets here, so the counter is already seeded
+    private int generateNewId(String hostId) {
+        return lastIdFor(hostId).incrementAndGet();
+    }
+
+    private AtomicInteger lastIdFor(String hostId) {
+        return lastIds.computeIfAbsent(hostId, id -> new AtomicInteger());
+    }
+
+    // writes the whole file to a temp file next to it, syncs it, then renames it over the old one,
+    // so a crash leaves either the old file or the new one and never half of each.
+    // the cache entry is refreshed afterwards so the next read doesn't touch the file.
     private void writeReservations(String hostId, List<Reservation> reservations) throws DataException {
         Path path = Paths.get(getFilePath(hostId));
-        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
-            writer.write("id,start_date,end_date,guest_id,total\n");
-            for (Reservation reservation : reservations) {
-                String line = serialize(reservation);
-                writer.write(line);
+        Path tempPath = null;
+        try {
+            // not Files.createTempFile, which would leave the renamed file readable by its owner only
+            tempPath = path.resolveSibling(path.getFileName() + "." + UUID.randomUUID() + ".tmp");
+            try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                 BufferedWriter writer = new BufferedWriter(
+                         new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8))) {
+                writer.write(HEADER);
                 writer.newLine();
+                for (Reservation reservation : reservations) {
+                    serialize(reservation, writer);
+                    writer.newLine();
+                }
+                writer.flush();
+                channel.force(true);
             }
+            Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            syncDirectory(path.getParent());
+        } catch (IOException e) {
+            cache.evict(hostId);
+            deleteQuietly(tempPath);
+            throw new DataException("Could not save reservations for host " + hostId + ": " + e.getMessage(), e);
+        }
+
+        FileStamp stamp = new FileStamp(path.toString());
+        stamp.hasChanged();
+        cache.put(hostId, Collections.unmodifiableList(copyOf(reservations)), stamp);
+        // our own write; the caller decides whether it's a change
+        seenStamp(hostId).hasChanged();
+        recordCounts.put(hostId, reservations.size());
+    }
+
+    // appends records (or tombstones) to the host file; live is the host's reservations after the change
+    private void appendRecords(String hostId, List<Reservation> records, boolean tombstone, List<Reservation> live)
+            throws DataException {
+        Path path = Paths.get(getFilePath(hostId));
+        // READ can't be combined with APPEND, so writes go to the end explicitly; the host's write lock is held
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            StringWriter lines = new StringWriter();
+            if (channel.size() == 0) {
+                lines.write(HEADER);
+                lines.write(System.lineSeparator());
+            } else if (!endsWithNewline(channel)) {
+                lines.write(System.lineSeparator());
+            }
+            for (Reservation reservation : records) {
+                if (tombstone) {
+                    lines.write(reservation.getId() + ",,,,");
+                } else {
+                    serialize(reservation, lines);
+                }
+                lines.write(System.lineSeparator());
+            }
+
+            ByteBuffer bytes = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            channel.position(channel.size());
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            cache.evict(hostId);
+            recordCounts.remove(hostId);
+            throw new DataException("Could not save reservations for host " + hostId + ": " + e.getMessage(), e);
+        }
+
+        FileStamp stamp = new FileStamp(path.toString());
+        stamp.hasChanged();
+        cache.put(hostId, Collections.unmodifiableList(copyOf(live)), stamp);
+        seenStamp(hostId).hasChanged();
+
+        int recordCount = recordCounts.merge(hostId, records.size(), Integer::sum);
+        if (recordCount >= COMPACTION_MIN_RECORDS
+                && recordCount - live.size() >= recordCount * COMPACTION_DEAD_RATIO) {
+            scheduleCompaction(hostId);
+        }
+    }
+
+    private boolean endsWithNewline(FileChannel channel) throws IOException {
+        ByteBuffer last = ByteBuffer.allocate(1);
+        channel.read(last, channel.size() - 1);
+        return last.get(0) == '\n';
+    }
+
+    private void scheduleCompaction(String hostId) {
+        if (!pendingCompactions.add(hostId)) {
+            return;
+        }
+        compactor.execute(() -> {
+            pendingCompactions.remove(hostId);
+            try {
+                compact(hostId);
+            } catch (DataException ignored) {
+                // the log is still complete; the next append will try again
+            }
+        });
+    }
+
+    // makes the rename itself durable; not every platform lets a directory be opened, which is fine
+    private void syncDirectory(Path directoryPath) {
+        try (FileChannel channel = FileChannel.open(directoryPath, StandardOpenOption.READ)) {
+            channel.force(true);
         } catch (IOException ignored) {
+        }
+    }
 
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
         }
     }
 
     // SERIALIZE
-    private String serialize(Reservation reservation) {
+    private void serialize(Reservation reservation, Writer writer) throws IOException {
         // format = "1,2020-07-01,2020-07-02,18,870"
-        return String.format("%d,%s,%s,%d,%s",
-                reservation.getId(),
-                reservation.getStartDate(),
-                reservation.getEndDate(),
-                reservation.getGuestId(),
-                reservation.getTotal());
+        writer.write(Integer.toString(reservation.getId()));
+        writer.write(',');
+        writer.write(reservation.getStartDate().toString());
+        writer.write(',');
+        writer.write(reservation.getEndDate().toString());
+        writer.write(',');
+        writer.write(Integer.toString(reservation.getGuestId()));
+        writer.write(',');
+        writer.write(String.valueOf(reservation.getTotal()));
     }
 
     // DESERIALIZE
-    private Reservation deserialize(String[] fields, String hostId) throws IOException {
-        int id = Integer.parseInt(fields[0]);
-        LocalDate startDate = LocalDate.parse(fields[1]);
-        LocalDate endDate = LocalDate.parse(fields[2]);
-        int guestId = Integer.parseInt(fields[3]);
-        BigDecimal total = new BigDecimal(fields[4]);
-
-        Guest guest = guestRepository.findById(guestId);
-        Host host = hostRepository.findById(hostId);
+    private Reservation deserialize(CsvReader reader) {
+        int id = reader.parseInt(0);
+        LocalDate startDate = reader.parseDate(1);
+        LocalDate endDate = reader.parseDate(2);
+        int guestId = reader.parseInt(3);
+        BigDecimal total = reader.parseDecimal(4);
 
-        if (guest == null || host == null) {
-            throw new IOException("Failed to find guest or host for reservation id " + id);
-        }
-        return new Reservation(id, startDate, endDate, guest, host, guestId, total);
+        return new Reservation(id, startDate, endDate, null, null, guestId, total);
     }
 
     @Override
@@ -162,6 +875,9 @@ public class ReservationFileRepository implements ReservationRepository {
                 "directory='" + directory + '\'' +
                 ", guestRepository=" + guestRepository +
                 ", hostRepository=" + hostRepository +
+                ", cache=" + cache +
+                ", appendOnly=" + appendOnly +
+                ", guestIndex=" + guestIndex +
                 '}';
     }
 }
\ No newline at end of file
@@ -0,0 +1,116 @@
+package learn.mastery.data;
+
+import learn.mastery.models.Reservation;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// converts a whole reservations directory between the csv layout (data/reservations/<host id>.csv)
+// and the binary one used by ReservationBinaryRepository (<host id>.bin).
+// usage: to-binary <csv directory> <binary directory>
+//        to-csv <binary directory> <csv directory>
+public class ReservationFormatConverter {
+    private static final String CSV_EXTENSION = ".csv";
+
+    public static void main(String[] args) throws DataException {
+        if (args.length != 3 || !(args[0].equals("to-binary") || args[0].equals("to-csv"))) {
+            System.out.println("usage: to-binary <csv directory> <binary directory>");
+            System.out.println("       to-csv <binary directory> <csv directory>");
+            return;
+        }
+        int hosts = args[0].equals("to-binary") ? csvToBinary(args[1], args[2]) : binaryToCsv(args[1], args[2]);
+        System.out.printf("Converted %s host file(s).%n", hosts);
+    }
+
+    // returns how many host files were written
+    public static int csvToBinary(String csvDirectory, String binaryDirectory) throws DataException {
+        int hosts = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(csvDirectory), "*" + CSV_EXTENSION)) {
+            Files.createDirectories(Paths.get(binaryDirectory));
+            for (Path csv : files) {
+                String hostId = stripExtension(csv, CSV_EXTENSION);
+                BinaryReservationFile.Contents contents = readCsv(csv);
+                BinaryReservationFile.write(Paths.get(binaryDirectory, hostId + BinaryReservationFile.EXTENSION),
+                        contents.lastId, contents.reservations);
+                hosts++;
+            }
+        } catch (IOException e) {
+            throw new DataException("Could not convert " + csvDirectory + " to binary: " + e.getMessage(), e);
+        }
+        return hosts;
+    }
+
+    public static int binaryToCsv(String binaryDirectory, String csvDirectory) throws DataException {
+        int hosts = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(binaryDirectory),
+                "*" + BinaryReservationFile.EXTENSION)) {
+            Files.createDirectories(Paths.get(csvDirectory));
+            for (Path binary : files) {
+                String hostId = stripExtension(binary, BinaryReservationFile.EXTENSION);
+                writeCsv(BinaryReservationFile.read(binary).reservations, Paths.get(csvDirectory, hostId + CSV_EXTENSION));
+                hosts++;
+            }
+        } catch (IOException e) {
+            throw new DataException("Could not convert " + binaryDirectory + " to csv: " + e.getMessage(), e);
+        }
+        return hosts;
+    }
+
+    // reads one host's csv file, folding an append-only log the same way ReservationFileRepository does.
+    // lastId is the highest id ever written, dead or alive, so it's never handed out again.
+    // reservations come back sorted by start date, without their Guest and Host filled in.
+    static BinaryReservationFile.Contents readCsv(Path csv) throws IOException {
+        Map<Integer, Reservation> reservations = new LinkedHashMap<>();
+        int lastId = 0;
+
+        CsvReader reader = CsvReader.open(csv);
+        reader.nextLine();
+        while (reader.nextLine()) {
+            if (reader.fieldCount() != 5) {
+                continue;
+            }
+            int id = reader.parseInt(0);
+            lastId = Math.max(lastId, id);
+            if (reader.isEmpty(1)) {
+                reservations.remove(id);
+            } else {
+                reservations.put(id, new Reservation(id, reader.parseDate(1), reader.parseDate(2), null, null,
+                        reader.parseInt(3), reader.parseDecimal(4)));
+            }
+        }
+
+        List<Reservation> sorted = new ArrayList<>(reservations.values());
+        sorted.sort(Comparator.comparing(Reservation::getStartDate));
+        return new BinaryReservationFile.Contents(lastId, sorted);
+    }
+
+    // HELPERS
+    private static void writeCsv(List<Reservation> reservations, Path csv) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+            writer.write(ReservationFileRepository.HEADER);
+            writer.newLine();
+            for (Reservation reservation : reservations) {
+                BigDecimal total = reservation.getTotal();
+                writer.write(String.format("%s,%s,%s,%s,%s", reservation.getId(), reservation.getStartDate(),
+                        reservation.getEndDate(), reservation.getGuestId(), total == null ? "" : total.toPlainString()));
+                writer.newLine();
+            }
+        }
+    }
+
+    private static String stripExtension(Path path, String extension) {
+        String name = path.getFileName().toString();
+        return name.substring(0, name.length() - extension.length());
+    }
+}
@@ -0,0 +1,85 @@
+package learn.mastery.data;
+
+import learn.mastery.models.ReservationImportRow;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// reads bookings to import. a .jsonl file has one object per line with hostEmail, guestEmail, startDate and
+// endDate, the same names the api takes; anything else is csv in that column order, with an optional
+// host_email,guest_email,start_date,end_date header. blank lines are skipped. a line that can't be read
+// still comes back, with its problem set, so the import can report it against its line number.
+public final class ReservationImportFile {
+    private static final String[] JSON_FIELDS = {"hostEmail", "guestEmail", "startDate", "endDate"};
+
+    private ReservationImportFile() {
+    }
+
+    public static List<ReservationImportRow> read(String filePath) throws DataException {
+        Path path = Paths.get(filePath);
+        try {
+            return filePath.toLowerCase().endsWith(".jsonl") ? readJsonLines(path) : readCsv(path);
+        } catch (IOException e) {
+            throw new DataException("Could not read " + filePath + ": " + e.getMessage(), e);
+        }
+    }
+
+    // HELPERS
+    private static List<ReservationImportRow> readCsv(Path path) throws IOException {
+        List<ReservationImportRow> rows = new ArrayList<>();
+        CsvReader reader = CsvReader.open(path);
+        int lineNumber = 0;
+        while (reader.nextLine()) {
+            lineNumber++;
+            if (reader.fieldCount() == 1 && reader.getString(0).isBlank()) {
+                continue;
+            }
+            if (lineNumber == 1 && reader.fieldEqualsIgnoreCase(0, "host_email")) {
+                continue;
+            }
+            if (reader.fieldCount() != 4) {
+                rows.add(ReservationImportRow.unreadable(lineNumber,
+                        "Expected 4 fields but found " + reader.fieldCount() + "."));
+                continue;
+            }
+            rows.add(new ReservationImportRow(lineNumber, reader.getString(0).trim(), reader.getString(1).trim(),
+                    reader.getString(2).trim(), reader.getString(3).trim()));
+        }
+        return rows;
+    }
+
+    private static List<ReservationImportRow> readJsonLines(Path path) throws IOException {
+        List<ReservationImportRow> rows = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            int lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                Map<String, Object> object;
+                try {
+                    object = Json.parseObject(line);
+                } catch (IllegalArgumentException e) {
+                    rows.add(ReservationImportRow.unreadable(lineNumber, e.getMessage()));
+                    continue;
+                }
+                String[] values = new String[JSON_FIELDS.length];
+                for (int i = 0; i < JSON_FIELDS.length; i++) {
+                    Object value = object.get(JSON_FIELDS[i]);
+                    values[i] = value == null ? null : value.toString().trim();
+                }
+                rows.add(new ReservationImportRow(lineNumber, values[0], values[1], values[2], values[3]));
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,58 @@
+package learn.mastery.data;
+
+import learn.mastery.models.Guest;
+import learn.mastery.models.Host;
+import learn.mastery.models.Reservation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// fills in the Guest and Host on reservations read from storage, which only hold their ids
+final class ReservationReferences {
+
+    private ReservationReferences() {
+    }
+
+    // looks the host up once and every guest in a single pass, instead of once per row.
+    // rows are kept up to the first one whose guest or host can't be found.
+    static List<Reservation> resolve(String hostId, List<Reservation> reservations,
+                                     HostRepository hostRepository, GuestRepository guestRepository) {
+        if (reservations.isEmpty()) {
+            return reservations;
+        }
+
+        Set<Integer> guestIds = new HashSet<>();
+        for (Reservation reservation : reservations) {
+            guestIds.add(reservation.getGuestId());
+        }
+
+        Host host;
+        Map<Integer, Guest> guests;
+        try {
+            host = hostRepository.findById(hostId);
+            guests = guestRepository.findByIds(guestIds);
+        } catch (IOException e) {
+            return new ArrayList<>();
+        }
+        return resolve(reservations, host, guests);
+    }
+
+    // the same, with the host and guests already looked up, e.g. once for a whole batch of hosts
+    static List<Reservation> resolve(List<Reservation> reservations, Host host, Map<Integer, Guest> guests) {
+        List<Reservation> resolved = new ArrayList<>(reservations.size());
+        for (Reservation reservation : reservations) {
+            Guest guest = guests.get(reservation.getGuestId());
+            if (guest == null || host == null) {
+                break;
+            }
+            reservation.setGuest(guest);
+            reservation.setHost(host);
+            resolved.add(reservation);
+        }
+        return resolved;
+    }
+}
@@ -2,10 +2,78 @@ package learn.mastery.data;
 
 import learn.mastery.models.Reservation;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 public interface ReservationRepository {
     List<Reservation> findByHostId(String hostId);
+    List<Reservation> findByGuestId(int guestId);
+
+    // hands the host's reservations to visitor in findByHostId order until it returns false.
+    // implementations may stop reading there; this default still loads the whole list.
+    default void forEachByHostId(String hostId, Predicate<Reservation> visitor) {
+        for (Reservation reservation : findByHostId(hostId)) {
+            if (!visitor.test(reservation)) {
+                return;
+            }
+        }
+    }
+
+    // same answer as !findByHostId(hostId).isEmpty(), but only needs the first reservation
+    default boolean existsForHost(String hostId) {
+        boolean[] found = {false};
+        forEachByHostId(hostId, reservation -> {
+            found[0] = true;
+            return false;
+        });
+        return found[0];
+    }
+
+    // null if the host has no reservation with that id
+    default Reservation findOne(String hostId, int reservationId) {
+        Reservation[] match = {null};
+        forEachByHostId(hostId, reservation -> {
+            if (reservation.getId() != reservationId) {
+                return true;
+            }
+            match[0] = reservation;
+            return false;
+        });
+        return match[0];
+    }
+
+    // every host's reservations, keyed by host id. throws rather than hand back empty lists when the
+    // reservations, or the guests and hosts they point at, can't be read.
+    Map<String, List<Reservation>> loadAll() throws DataException;
+
+    // every reservation, read one host at a time so the whole data set is never in memory at once
+    Stream<Reservation> streamAll();
+
     Reservation add(Reservation reservation) throws DataException;
+
+    // adds a batch of reservations for one host, giving each an id. implementations save the whole
+    // batch in one write and count it as one change for getVersion; this default adds them one by one.
+    default List<Reservation> addAll(String hostId, List<Reservation> reservations) throws DataException {
+        for (Reservation reservation : reservations) {
+            add(reservation);
+        }
+        return reservations;
+    }
+
     boolean update(Reservation reservation) throws DataException;
     boolean delete(Reservation reservation) throws DataException;
+
+    // goes up by exactly one with every successful add, update or delete for the host, and also when the
+    // host's stored reservations were changed some other way, like another process writing its file.
+    // read it before findByHostId; the reservations seen are then at least that new.
+    long getVersion(String hostId);
+
+    // saves only if the host is still at expectedVersion, otherwise throws StaleVersionException
+    Reservation add(Reservation reservation, long expectedVersion) throws DataException;
+    boolean update(Reservation reservation, long expectedVersion) throws DataException;
+
+    // the lock guarding one host's reservations; hold its write lock to check and change them as one step
+    ReadWriteLock lockFor(String hostId);
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package learn.mastery.data;
+
+// thrown by a conditional write when someone else changed the host's reservations first
+public class StaleVersionException extends DataException {
+    private final String hostId;
+    private final long expectedVersion;
+    private final long actualVersion;
+
+    public StaleVersionException(String hostId, long expectedVersion, long actualVersion) {
+        super("Reservations for host " + hostId + " changed: expected version " + expectedVersion
+                + " but found " + actualVersion + ".");
+        this.hostId = hostId;
+        this.expectedVersion = expectedVersion;
+        this.actualVersion = actualVersion;
+    }
+
+    public String getHostId() {
+        return hostId;
+    }
+
+    public long getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    public long getActualVersion() {
+        return actualVersion;
+    }
+}
@@ -0,0 +1,254 @@
+package learn.mastery.domain;
+
+import learn.mastery.data.HostRepository;
+import learn.mastery.data.ReservationRepository;
+import learn.mastery.models.Host;
+import learn.mastery.models.Reservation;
+import learn.mastery.models.ReservationStats;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// occupancy, revenue, length of stay and weekend/weekday mix over a date range, in one pass over every
+// host's reservations. hosts are read in parallel with forEachByHostId, which the file repository
+// answers a row at a time, and each host keeps only its own totals and one per month, so memory grows
+// with hosts and months rather than with reservations.
+// only nights inside the range count. a stay's revenue is its total, split across the months it touches
+// in proportion to what the host's rates charge for the nights in each; the rates are also used for a
+// reservation that has no total.
+public class AnalyticsService {
+    private static final int HOSTS_PER_TASK = 16;
+
+    private final HostRepository hostRepository;
+    private final ReservationRepository reservationRepository;
+    private final PricingEngine pricingEngine;
+    private volatile int reportParallelism = Runtime.getRuntime().availableProcessors();
+
+    public AnalyticsService(HostRepository hostRepository, ReservationRepository reservationRepository) {
+        this(hostRepository, reservationRepository, new PricingEngine());
+    }
+
+    public AnalyticsService(HostRepository hostRepository, ReservationRepository reservationRepository,
+                            PricingEngine pricingEngine) {
+        this.hostRepository = hostRepository;
+        this.reservationRepository = reservationRepository;
+        this.pricingEngine = pricingEngine;
+    }
+
+    public int getReportParallelism() {
+        return reportParallelism;
+    }
+
+    public void setReportParallelism(int reportParallelism) {
+        if (reportParallelism < 1) {
+            throw new IllegalArgumentException("reportParallelism must be at least 1");
+        }
+        this.reportParallelism = reportParallelism;
+    }
+
+    // the whole range first, then each state, each month and each host, in that order
+    public Result<List<ReservationStats>> report(LocalDate from, LocalDate to) throws IOException {
+        Result<List<ReservationStats>> result = new Result<>();
+        if (from == null || to == null) {
+            result.addErrorMessage("Start and end dates are required.");
+            return result;
+        }
+        if (to.isBefore(from)) {
+            result.addErrorMessage("Start date must not come after end date.");
+            return result;
+        }
+
+        List<Host> hosts = hostRepository.findAll();
+        Range range = new Range(from, to);
+        ForkJoinPool pool = new ForkJoinPool(reportParallelism);
+        List<HostStats> perHost;
+        try {
+            perHost = pool.invoke(new ReportTask(hosts, 0, hosts.size(), range));
+        } finally {
+            pool.shutdown();
+        }
+
+        ReservationStats total = new ReservationStats("total", "all");
+        Map<String, ReservationStats> states = new TreeMap<>();
+        ReservationStats[] months = new ReservationStats[range.months];
+        for (int month = 0; month < range.months; month++) {
+            YearMonth yearMonth = range.firstMonth.plusMonths(month);
+            months[month] = new ReservationStats("month", yearMonth.toString());
+            months[month].setAvailableNights(hosts.size() * pricingEngine.countDays(range.monthStart(yearMonth),
+                    range.monthEnd(yearMonth)));
+        }
+        List<ReservationStats> hostRows = new ArrayList<>();
+        for (HostStats stats : perHost) {
+            merge(total, stats.total);
+            merge(states.computeIfAbsent(stats.host.getState(), state -> new ReservationStats("state", state)),
+                    stats.total);
+            for (int month = 0; month < range.months; month++) {
+                merge(months[month], stats.months[month]);
+            }
+            hostRows.add(stats.total);
+        }
+        hostRows.sort((a, b) -> a.getKey().compareTo(b.getKey()));
+
+        List<ReservationStats> report = new ArrayList<>();
+        report.add(total);
+        report.addAll(states.values());
+        report.addAll(List.of(months));
+        report.addAll(hostRows);
+        result.setPayload(report);
+        return result;
+    }
+
+    // HELPERS
+    private HostStats hostStats(Host host, Range range) {
+        HostStats stats = new HostStats(host, range);
+        long standardCents = weightCents(host.getStandardRate());
+        long weekendCents = weightCents(host.getWeekendRate());
+        reservationRepository.forEachByHostId(host.getId(), reservation -> {
+            addStay(stats, reservation, range, standardCents, weekendCents);
+            return true;
+        });
+        return stats;
+    }
+
+    private void addStay(HostStats stats, Reservation reservation, Range range, long standardCents,
+                         long weekendCents) {
+        LocalDate start = reservation.getStartDate();
+        LocalDate end = reservation.getEndDate();
+        if (start == null || end == null || end.isBefore(start)) {
+            return;
+        }
+        LocalDate firstNight = start.isBefore(range.from) ? range.from : start;
+        LocalDate lastNight = end.isAfter(range.to) ? range.to : end;
+        if (lastNight.isBefore(firstNight)) {
+            return;
+        }
+
+        long stayNights = pricingEngine.countDays(start, end);
+        long stayCents = pricingEngine.calculateTotalCents(start, end, standardCents, weekendCents);
+        long totalCents = reservation.getTotal() == null ? stayCents : weightCents(reservation.getTotal());
+
+        count(stats.total, 1, stayNights, 0, 0, 0);
+        for (YearMonth month = YearMonth.from(firstNight); !month.isAfter(YearMonth.from(lastNight));
+             month = month.plusMonths(1)) {
+            LocalDate monthStart = month.atDay(1).isBefore(firstNight) ? firstNight : month.atDay(1);
+            LocalDate monthEnd = month.atEndOfMonth().isAfter(lastNight) ? lastNight : month.atEndOfMonth();
+            long nights = pricingEngine.countDays(monthStart, monthEnd);
+            long weekendNights = pricingEngine.countWeekendDays(monthStart, monthEnd);
+            long revenueCents = stayCents == 0
+                    ? Math.round((double) totalCents * nights / stayNights)
+                    : Math.round((double) totalCents * pricingEngine.calculateTotalCents(monthStart, monthEnd,
+                    standardCents, weekendCents) / stayCents);
+
+            // a stay that spans months counts as a stay in each of them
+            count(stats.months[range.monthIndex(month)], 1, stayNights, nights, weekendNights, revenueCents);
+            count(stats.total, 0, 0, nights, weekendNights, revenueCents);
+        }
+    }
+
+    private static void count(ReservationStats stats, long reservations, long stayNights, long nights,
+                              long weekendNights, long revenueCents) {
+        stats.setReservations(stats.getReservations() + reservations);
+        stats.setStayNights(stats.getStayNights() + stayNights);
+        stats.setBookedNights(stats.getBookedNights() + nights);
+        stats.setWeekendNights(stats.getWeekendNights() + weekendNights);
+        stats.setRevenueCents(stats.getRevenueCents() + revenueCents);
+    }
+
+    private static void merge(ReservationStats into, ReservationStats from) {
+        into.setReservations(into.getReservations() + from.getReservations());
+        into.setStayNights(into.getStayNights() + from.getStayNights());
+        into.setBookedNights(into.getBookedNights() + from.getBookedNights());
+        into.setAvailableNights(into.getAvailableNights() + from.getAvailableNights());
+        into.setWeekendNights(into.getWeekendNights() + from.getWeekendNights());
+        into.setRevenueCents(into.getRevenueCents() + from.getRevenueCents());
+    }
+
+    // whole cents for weighing and adding up; unlike PricingEngine.toCents, fractions of a cent are rounded
+    private static long weightCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    private static class Range {
+        private final LocalDate from;
+        private final LocalDate to;
+        private final YearMonth firstMonth;
+        private final int months;
+
+        Range(LocalDate from, LocalDate to) {
+            this.from = from;
+            this.to = to;
+            firstMonth = YearMonth.from(from);
+            months = monthIndex(YearMonth.from(to)) + 1;
+        }
+
+        int monthIndex(YearMonth month) {
+            return (month.getYear() - firstMonth.getYear()) * 12 + month.getMonthValue() - firstMonth.getMonthValue();
+        }
+
+        LocalDate monthStart(YearMonth month) {
+            return month.atDay(1).isBefore(from) ? from : month.atDay(1);
+        }
+
+        LocalDate monthEnd(YearMonth month) {
+            return month.atEndOfMonth().isAfter(to) ? to : month.atEndOfMonth();
+        }
+    }
+
+    // one host's totals for the whole range and for each month in it
+    private class HostStats {
+        private final Host host;
+        private final ReservationStats total;
+        private final ReservationStats[] months;
+
+        HostStats(Host host, Range range) {
+            this.host = host;
+            total = new ReservationStats("host", host.getId());
+            total.setAvailableNights(pricingEngine.countDays(range.from, range.to));
+            months = new ReservationStats[range.months];
+            for (int month = 0; month < range.months; month++) {
+                months[month] = new ReservationStats("month", range.firstMonth.plusMonths(month).toString());
+            }
+        }
+    }
+
+    // splits the hosts in half until a piece is small enough to read on one thread
+    private class ReportTask extends RecursiveTask<List<HostStats>> {
+        private final List<Host> hosts;
+        private final int from;
+        private final int to;
+        private final Range range;
+
+        ReportTask(List<Host> hosts, int from, int to, Range range) {
+            this.hosts = hosts;
+            this.from = from;
+            this.to = to;
+            this.range = range;
+        }
+
+        @Override
+        protected List<HostStats> compute() {
+            if (to - from <= HOSTS_PER_TASK) {
+                List<HostStats> stats = new ArrayList<>();
+                for (int i = from; i < to; i++) {
+                    stats.add(hostStats(hosts.get(i), range));
+                }
+                return stats;
+            }
+            int middle = (from + to) >>> 1;
+            ReportTask left = new ReportTask(hosts, from, middle, range);
+            left.fork();
+            List<HostStats> stats = new ReportTask(hosts, middle, to, range).compute();
+            stats.addAll(0, left.join());
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package learn.mastery.domain;
+
+import learn.mastery.models.Reservation;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+// one host's booked date ranges, sorted by start date, with a running "latest end date so far"
+// so overlap checks are a binary search instead of a scan over every reservation.
+// ranges are inclusive on both ends, the same way the console has always treated them.
+// the index also carries the repository version it was built at; every change applied to it moves
+// that forward by one, matching the repository's own count of changes.
+class AvailabilityIndex {
+    private static final int NO_ID = Integer.MIN_VALUE;
+
+    private long version;
+    private int size;
+    private long[] starts;
+    private long[] ends;
+    private int[] ids;
+
+    // for the first i + 1 ranges: the latest end, the id that owns it,
+    // and the latest end belonging to any other id (so one reservation can be skipped)
+    private long[] maxEnd;
+    private int[] maxEndId;
+    private long[] otherMaxEnd;
+
+    AvailabilityIndex(List<Reservation> reservations) {
+        this(reservations, 0);
+    }
+
+    AvailabilityIndex(List<Reservation> reservations, long version) {
+        this.version = version;
+        int capacity = Math.max(8, reservations.size());
+        starts = new long[capacity];
+        ends = new long[capacity];
+        ids = new int[capacity];
+        maxEnd = new long[capacity];
+        maxEndId = new int[capacity];
+        otherMaxEnd = new long[capacity];
+
+        Reservation[] sorted = reservations.stream()
+                .filter(r -> r.getStartDate() != null && r.getEndDate() != null)
+                .sorted((a, b) -> a.getStartDate().compareTo(b.getStartDate()))
+                .toArray(Reservation[]::new);
+        for (Reservation reservation : sorted) {
+            starts[size] = reservation.getStartDate().toEpochDay();
+            ends[size] = reservation.getEndDate().toEpochDay();
+            ids[size] = reservation.getId();
+            size++;
+        }
+        recomputeFrom(0);
+    }
+
+    // does [start, end] touch any booked range?
+    synchronized boolean overlaps(LocalDate start, LocalDate end) {
+        return overlapsExcept(start, end, NO_ID);
+    }
+
+    // does [start, end] touch any booked range that doesn't belong to reservation excludedId?
+    synchronized boolean overlapsExcept(LocalDate start, LocalDate end, int excludedId) {
+        // only ranges that start on or before our end can overlap; of those, one must end on or after our start
+        int count = countStartingOnOrBefore(end.toEpochDay());
+        if (count == 0) {
+            return false;
+        }
+        int last = count - 1;
+        long latestEnd = maxEndId[last] == excludedId ? otherMaxEnd[last] : maxEnd[last];
+        return latestEnd >= start.toEpochDay();
+    }
+
+    synchronized long version() {
+        return version;
+    }
+
+    synchronized boolean contains(int id) {
+        return indexOf(id) >= 0;
+    }
+
+    synchronized void add(Reservation reservation) {
+        long start = reservation.getStartDate().toEpochDay();
+        int position = countStartingOnOrBefore(start);
+        ensureCapacity(size + 1);
+
+        int moved = size - position;
+        System.arraycopy(starts, position, starts, position + 1, moved);
+        System.arraycopy(ends, position, ends, position + 1, moved);
+        System.arraycopy(ids, position, ids, position + 1, moved);
+        starts[position] = start;
+        ends[position] = reservation.getEndDate().toEpochDay();
+        ids[position] = reservation.getId();
+        size++;
+        version++;
+
+        recomputeFrom(position);
+    }
+
+    synchronized void remove(int id) {
+        int first = size;
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == id) {
+                first = Math.min(first, i);
+                continue;
+            }
+            starts[kept] = starts[i];
+            ends[kept] = ends[i];
+            ids[kept] = ids[i];
+            kept++;
+        }
+        size = kept;
+        version++;
+        recomputeFrom(first);
+    }
+
+    synchronized void update(Reservation reservation) {
+        remove(reservation.getId());
+        add(reservation);
+        // one change, not two
+        version--;
+    }
+
+    // HELPERS
+    private int countStartingOnOrBefore(long day) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int indexOf(int id) {
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void recomputeFrom(int position) {
+        for (int i = position; i < size; i++) {
+            long end = ends[i];
+            int id = ids[i];
+            if (i == 0) {
+                maxEnd[i] = end;
+                maxEndId[i] = id;
+                otherMaxEnd[i] = Long.MIN_VALUE;
+            } else if (id == maxEndId[i - 1]) {
+                maxEnd[i] = Math.max(maxEnd[i - 1], end);
+                maxEndId[i] = id;
+                otherMaxEnd[i] = otherMaxEnd[i - 1];
+            } else if (end > maxEnd[i - 1]) {
+                maxEnd[i] = end;
+                maxEndId[i] = id;
+                otherMaxEnd[i] = maxEnd[i - 1];
+            } else {
+                maxEnd[i] = maxEnd[i - 1];
+                maxEndId[i] = maxEndId[i - 1];
+                otherMaxEnd[i] = Math.max(otherMaxEnd[i - 1], end);
+            }
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= starts.length) {
+            return;
+        }
+        int grown = Math.max(capacity, starts.length * 2);
+        starts = Arrays.copyOf(starts, grown);
+        ends = Arrays.copyOf(ends, grown);
+        ids = Arrays.copyOf(ids, grown);
+        maxEnd = Arrays.copyOf(maxEnd, grown);
+        maxEndId = Arrays.copyOf(maxEndId, grown);
+        otherMaxEnd = Arrays.copyOf(otherMaxEnd, grown);
+    }
+}
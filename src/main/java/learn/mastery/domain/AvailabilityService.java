@@ -0,0 +1,220 @@
+package learn.mastery.domain;
+
+import learn.mastery.data.DataException;
+import learn.mastery.data.HostRepository;
+import learn.mastery.data.ReservationRepository;
+import learn.mastery.models.AvailableHost;
+import learn.mastery.models.Host;
+import learn.mastery.models.Reservation;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// answers "which hosts are free from X to Y" without reading every host's reservations per search.
+// each host's booked days are kept as an OccupancyBitmap from today over horizonDays days, so a search
+// is a few word ANDs per host. a bitmap is rebuilt when the host's repository version moves or the
+// day rolls over; the first search, or the first one on a new day, builds them all with one loadAll.
+// stays that run past the horizon are checked against the host's reservations instead.
+public class AvailabilityService {
+    private static final int HOSTS_PER_TASK = 64;
+
+    private final HostRepository hostRepository;
+    private final ReservationRepository reservationRepository;
+    private final PricingEngine pricingEngine;
+    private final Map<String, OccupancyBitmap> occupancy = new ConcurrentHashMap<>();
+    private volatile long loadedDay = Long.MIN_VALUE;
+    private volatile int horizonDays = 730;
+    private volatile int searchParallelism = Runtime.getRuntime().availableProcessors();
+
+    public AvailabilityService(HostRepository hostRepository, ReservationRepository reservationRepository) {
+        this(hostRepository, reservationRepository, new PricingEngine());
+    }
+
+    public AvailabilityService(HostRepository hostRepository, ReservationRepository reservationRepository,
+                               PricingEngine pricingEngine) {
+        this.hostRepository = hostRepository;
+        this.reservationRepository = reservationRepository;
+        this.pricingEngine = pricingEngine;
+    }
+
+    public int getHorizonDays() {
+        return horizonDays;
+    }
+
+    public void setHorizonDays(int horizonDays) {
+        if (horizonDays < 1) {
+            throw new IllegalArgumentException("horizonDays must be at least 1");
+        }
+        this.horizonDays = horizonDays;
+        occupancy.clear();
+        loadedDay = Long.MIN_VALUE;
+    }
+
+    public int getSearchParallelism() {
+        return searchParallelism;
+    }
+
+    public void setSearchParallelism(int searchParallelism) {
+        if (searchParallelism < 1) {
+            throw new IllegalArgumentException("searchParallelism must be at least 1");
+        }
+        this.searchParallelism = searchParallelism;
+    }
+
+    // hosts with nothing booked from startDate through endDate, cheapest stay first.
+    // state and city match ignoring case; they and maxTotal are left out of the search when null.
+    public Result<List<AvailableHost>> findAvailableHosts(LocalDate startDate, LocalDate endDate, String state,
+                                                          String city, BigDecimal maxTotal) throws IOException {
+        Result<List<AvailableHost>> result = new Result<>();
+        if (startDate == null || endDate == null) {
+            result.addErrorMessage("Start and end dates are required.");
+            return result;
+        }
+        if (!startDate.isBefore(endDate)) {
+            result.addErrorMessage("Start date must come before end date.");
+        }
+        if (!startDate.isAfter(LocalDate.now())) {
+            result.addErrorMessage("Start date must be in the future.");
+        }
+        if (!result.isSuccess()) {
+            return result;
+        }
+
+        List<Host> hosts = hostRepository.findAll();
+        long today = LocalDate.now().toEpochDay();
+        if (loadedDay != today) {
+            try {
+                loadAll(hosts, today);
+            } catch (DataException e) {
+                result.addErrorMessage("Could not load reservations: " + e.getMessage());
+                return result;
+            }
+        }
+
+        List<Host> candidates = new ArrayList<>();
+        for (Host host : hosts) {
+            if ((state == null || state.equalsIgnoreCase(host.getState()))
+                    && (city == null || city.equalsIgnoreCase(host.getCity()))) {
+                candidates.add(host);
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(searchParallelism);
+        List<AvailableHost> available;
+        try {
+            available = pool.invoke(new SearchTask(candidates, 0, candidates.size(), startDate, endDate,
+                    maxTotal, today));
+        } finally {
+            pool.shutdown();
+        }
+        available.sort(Comparator.comparing(AvailableHost::getTotal)
+                .thenComparing(availableHost -> availableHost.getHost().getId()));
+        result.setPayload(available);
+        return result;
+    }
+
+    // HELPERS
+    // versions are read before the reservations, so a change that lands in between only makes
+    // the bitmap look stale and get rebuilt on the next search. a failed load keeps nothing, so the
+    // next search tries again rather than trusting empty bitmaps.
+    private synchronized void loadAll(List<Host> hosts, long today) throws DataException {
+        if (loadedDay == today) {
+            return;
+        }
+        Map<String, Long> versions = new HashMap<>();
+        for (Host host : hosts) {
+            versions.put(host.getId(), reservationRepository.getVersion(host.getId()));
+        }
+        Map<String, List<Reservation>> reservations = reservationRepository.loadAll();
+        occupancy.clear();
+        for (Host host : hosts) {
+            occupancy.put(host.getId(), new OccupancyBitmap(reservations.getOrDefault(host.getId(), List.of()),
+                    today, horizonDays, versions.get(host.getId())));
+        }
+        loadedDay = today;
+    }
+
+    private boolean isFree(String hostId, LocalDate startDate, LocalDate endDate, long today) {
+        long startDay = startDate.toEpochDay();
+        long endDay = endDate.toEpochDay();
+        OccupancyBitmap bitmap = occupancyFor(hostId, today);
+        if (bitmap.covers(startDay, endDay)) {
+            return bitmap.isFree(startDay, endDay);
+        }
+
+        boolean[] free = {true};
+        reservationRepository.forEachByHostId(hostId, reservation -> {
+            if (reservation.getStartDate().toEpochDay() <= endDay && reservation.getEndDate().toEpochDay() >= startDay) {
+                free[0] = false;
+            }
+            return free[0];
+        });
+        return free[0];
+    }
+
+    private OccupancyBitmap occupancyFor(String hostId, long today) {
+        long version = reservationRepository.getVersion(hostId);
+        OccupancyBitmap bitmap = occupancy.get(hostId);
+        if (bitmap == null || bitmap.version() != version || bitmap.firstDay() != today) {
+            bitmap = new OccupancyBitmap(reservationRepository.findByHostId(hostId), today, horizonDays, version);
+            occupancy.put(hostId, bitmap);
+        }
+        return bitmap;
+    }
+
+    // splits the hosts in half until a piece is small enough to check on one thread
+    private class SearchTask extends RecursiveTask<List<AvailableHost>> {
+        private final List<Host> hosts;
+        private final int from;
+        private final int to;
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final BigDecimal maxTotal;
+        private final long today;
+
+        SearchTask(List<Host> hosts, int from, int to, LocalDate startDate, LocalDate endDate,
+                   BigDecimal maxTotal, long today) {
+            this.hosts = hosts;
+            this.from = from;
+            this.to = to;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.maxTotal = maxTotal;
+            this.today = today;
+        }
+
+        @Override
+        protected List<AvailableHost> compute() {
+            if (to - from <= HOSTS_PER_TASK) {
+                List<AvailableHost> available = new ArrayList<>();
+                for (int i = from; i < to; i++) {
+                    Host host = hosts.get(i);
+                    if (!isFree(host.getId(), startDate, endDate, today)) {
+                        continue;
+                    }
+                    BigDecimal total = pricingEngine.calculateTotal(startDate, endDate, host);
+                    if (maxTotal == null || total.compareTo(maxTotal) <= 0) {
+                        available.add(new AvailableHost(host, total));
+                    }
+                }
+                return available;
+            }
+            int middle = (from + to) >>> 1;
+            SearchTask left = new SearchTask(hosts, from, middle, startDate, endDate, maxTotal, today);
+            left.fork();
+            List<AvailableHost> available = new SearchTask(hosts, middle, to, startDate, endDate, maxTotal, today)
+                    .compute();
+            available.addAll(0, left.join());
+            return available;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package learn.mastery.domain;
+
+// how ReservationService keeps two changes to the same host from double-booking it
+public enum ConcurrencyStrategy {
+    // hold the host's write lock from validation through the save
+    LOCKING,
+    // validate without a lock, save only if the host's version hasn't moved, and retry if it has
+    OPTIMISTIC
+}
@@ -37,9 +37,8 @@ public class HostService {
         }
 
         Host host = result.getPayload();
-        var reservations = reservationRepository.findByHostId(host.getId());
 
-        if (reservations.isEmpty()) {
+        if (!reservationRepository.existsForHost(host.getId())) {
             result.addErrorMessage("Host does not have any reservations.");
         }
 
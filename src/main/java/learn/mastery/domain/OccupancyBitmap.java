@@ -0,0 +1,77 @@
+package learn.mastery.domain;
+
+import learn.mastery.models.Reservation;
+
+import java.util.List;
+
+// one host's booked days as bits, one per day for a fixed number of days from firstDay (an epoch day).
+// ranges are inclusive on both ends, like AvailabilityIndex. it's built once at a repository version
+// and never changed, so any number of searches can read it at the same time.
+class OccupancyBitmap {
+    private final long firstDay;
+    private final int days;
+    private final long version;
+    private final long[] words;
+
+    OccupancyBitmap(List<Reservation> reservations, long firstDay, int days, long version) {
+        this.firstDay = firstDay;
+        this.days = days;
+        this.version = version;
+        words = new long[(days + 63) >>> 6];
+        for (Reservation reservation : reservations) {
+            if (reservation.getStartDate() != null && reservation.getEndDate() != null) {
+                book(reservation.getStartDate().toEpochDay(), reservation.getEndDate().toEpochDay());
+            }
+        }
+    }
+
+    long firstDay() {
+        return firstDay;
+    }
+
+    long version() {
+        return version;
+    }
+
+    // can isFree answer for [startDay, endDay]?
+    boolean covers(long startDay, long endDay) {
+        return startDay >= firstDay && endDay < firstDay + days && startDay <= endDay;
+    }
+
+    // true when no day in [startDay, endDay] is booked; only meaningful when covers says so
+    boolean isFree(long startDay, long endDay) {
+        int from = (int) (startDay - firstDay);
+        int to = (int) (endDay - firstDay);
+        for (int word = from >>> 6; word <= to >>> 6; word++) {
+            if ((words[word] & mask(word, from, to)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // HELPERS
+    // marks the part of [startDay, endDay] that falls inside the bitmap
+    private void book(long startDay, long endDay) {
+        long from = Math.max(startDay - firstDay, 0);
+        long to = Math.min(endDay - firstDay, days - 1);
+        if (from > to) {
+            return;
+        }
+        for (int word = (int) from >>> 6; word <= (int) to >>> 6; word++) {
+            words[word] |= mask(word, (int) from, (int) to);
+        }
+    }
+
+    // the bits of word that lie between bit from and bit to, inclusive
+    private static long mask(int word, int from, int to) {
+        long mask = -1L;
+        if (word == from >>> 6) {
+            mask &= -1L << (from & 63);
+        }
+        if (word == to >>> 6) {
+            mask &= -1L >>> (63 - (to & 63));
+        }
+        return mask;
+    }
+}
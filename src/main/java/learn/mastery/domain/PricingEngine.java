@@ -0,0 +1,80 @@
+package learn.mastery.domain;
+
+import learn.mastery.models.Host;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// prices a stay from the start date through the end date (both charged), saturdays and sundays
+// at the host's weekend rate and every other day at the standard rate.
+// nights are counted arithmetically, so the cost doesn't depend on the length of the stay.
+public class PricingEngine {
+
+    public BigDecimal calculateTotal(LocalDate startDate, LocalDate endDate, Host host) {
+        long days = countDays(startDate, endDate);
+        if (days <= 0) {
+            return BigDecimal.ZERO;
+        }
+        long weekendDays = countWeekendDays(startDate, days);
+        long weekdays = days - weekendDays;
+
+        // a rate that's never charged is left out so the scale matches adding night by night
+        BigDecimal total = BigDecimal.ZERO;
+        if (weekdays > 0) {
+            total = total.add(host.getStandardRate().multiply(BigDecimal.valueOf(weekdays)));
+        }
+        if (weekendDays > 0) {
+            total = total.add(host.getWeekendRate().multiply(BigDecimal.valueOf(weekendDays)));
+        }
+        return total;
+    }
+
+    // the same total in whole cents, for rates already in cents. throws ArithmeticException
+    // instead of overflowing when the total doesn't fit in a long.
+    public long calculateTotalCents(LocalDate startDate, LocalDate endDate, long standardRateCents,
+                                    long weekendRateCents) {
+        long days = countDays(startDate, endDate);
+        if (days <= 0) {
+            return 0;
+        }
+        long weekendDays = countWeekendDays(startDate, days);
+        return calculateTotalCents(days - weekendDays, weekendDays, standardRateCents, weekendRateCents);
+    }
+
+    // for pricing one range at many hosts: count its days once, then price each host with this
+    public long calculateTotalCents(long weekdays, long weekendDays, long standardRateCents, long weekendRateCents) {
+        return Math.addExact(Math.multiplyExact(weekdays, standardRateCents),
+                Math.multiplyExact(weekendDays, weekendRateCents));
+    }
+
+    // a rate as whole cents; throws ArithmeticException for fractions of a cent or a rate too big for a long
+    public static long toCents(BigDecimal rate) {
+        return rate.movePointRight(2).longValueExact();
+    }
+
+    public long countDays(LocalDate startDate, LocalDate endDate) {
+        return Math.max(0, endDate.toEpochDay() - startDate.toEpochDay() + 1);
+    }
+
+    public long countWeekendDays(LocalDate startDate, LocalDate endDate) {
+        long days = countDays(startDate, endDate);
+        return days <= 0 ? 0 : countWeekendDays(startDate, days);
+    }
+
+    // HELPERS
+    private long countWeekendDays(LocalDate startDate, long days) {
+        // every full week holds exactly one saturday and one sunday
+        long weekendDays = (days / 7) * 2;
+
+        // the leftover days start on the same weekday as the stay does
+        int firstDay = startDate.getDayOfWeek().getValue();
+        int remainder = (int) (days % 7);
+        for (int i = 0; i < remainder; i++) {
+            int day = (firstDay - 1 + i) % 7 + 1;
+            if (day >= 6) {
+                weekendDays++;
+            }
+        }
+        return weekendDays;
+    }
+}
@@ -0,0 +1,106 @@
+package learn.mastery.domain;
+
+import learn.mastery.data.GuestRepository;
+import learn.mastery.data.HostRepository;
+import learn.mastery.models.Guest;
+import learn.mastery.models.Host;
+import learn.mastery.models.ReservationImportRow;
+import learn.mastery.models.Reservation;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// turns imported rows into bookings. emails are looked up in one pass over all hosts and guests instead
+// of once per row, rows that can't become a reservation are rejected here, and the rest are booked
+// together through ReservationService.makeReservations.
+public class ReservationImportService {
+
+    private final ReservationService reservationService;
+    private final HostRepository hostRepository;
+    private final GuestRepository guestRepository;
+
+    public ReservationImportService(ReservationService reservationService, HostRepository hostRepository,
+                                    GuestRepository guestRepository) {
+        this.reservationService = reservationService;
+        this.hostRepository = hostRepository;
+        this.guestRepository = guestRepository;
+    }
+
+    // one result per row, in the same order; an accepted row's payload is the saved reservation
+    public List<Result<Reservation>> importRows(List<ReservationImportRow> rows) throws IOException {
+        Map<String, Host> hostsByEmail = new HashMap<>();
+        for (Host host : hostRepository.findAll()) {
+            hostsByEmail.put(host.getEmail().toLowerCase(), host);
+        }
+        Map<String, Guest> guestsByEmail = new HashMap<>();
+        for (Guest guest : guestRepository.findAll()) {
+            guestsByEmail.put(guest.getEmail().toLowerCase(), guest);
+        }
+
+        List<Result<Reservation>> results = new ArrayList<>(rows.size());
+        List<Reservation> batch = new ArrayList<>();
+        List<Integer> batchRows = new ArrayList<>();
+        for (ReservationImportRow row : rows) {
+            Result<Reservation> result = new Result<>();
+            Reservation reservation = toReservation(row, hostsByEmail, guestsByEmail, result);
+            if (result.isSuccess()) {
+                batchRows.add(results.size());
+                batch.add(reservation);
+            }
+            results.add(result);
+        }
+
+        List<Result<Reservation>> booked = reservationService.makeReservations(batch);
+        for (int i = 0; i < booked.size(); i++) {
+            results.set(batchRows.get(i), booked.get(i));
+        }
+        return results;
+    }
+
+    // HELPERS
+    private static Reservation toReservation(ReservationImportRow row, Map<String, Host> hostsByEmail,
+                                             Map<String, Guest> guestsByEmail, Result<Reservation> result) {
+        if (row.getProblem() != null) {
+            result.addErrorMessage(row.getProblem());
+            return null;
+        }
+
+        Host host = find(hostsByEmail, row.getHostEmail());
+        if (host == null) {
+            result.addErrorMessage("Host does not exist.");
+        }
+        Guest guest = find(guestsByEmail, row.getGuestEmail());
+        if (guest == null) {
+            result.addErrorMessage("Guest does not exist.");
+        }
+        LocalDate startDate = parseDate(row.getStartDate(), "Start date", result);
+        LocalDate endDate = parseDate(row.getEndDate(), "End date", result);
+        if (!result.isSuccess()) {
+            return null;
+        }
+
+        return new Reservation(0, startDate, endDate, guest, host, guest.getGuestId(), null);
+    }
+
+    private static <T> T find(Map<String, T> byEmail, String email) {
+        return email == null ? null : byEmail.get(email.toLowerCase());
+    }
+
+    private static LocalDate parseDate(String text, String name, Result<Reservation> result) {
+        if (text == null || text.isBlank()) {
+            result.addErrorMessage(name + " is required.");
+            return null;
+        }
+        try {
+            return LocalDate.parse(text);
+        } catch (DateTimeParseException e) {
+            result.addErrorMessage(name + " must look like 2030-01-31.");
+            return null;
+        }
+    }
+}
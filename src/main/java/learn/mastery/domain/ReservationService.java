@@ -3,34 +3,119 @@ package learn.mastery.domain;
 import learn.mastery.data.DataException;
 import learn.mastery.data.GuestRepository;
 import learn.mastery.data.ReservationRepository;
+import learn.mastery.data.StaleVersionException;
 import learn.mastery.data.HostRepository;
 import learn.mastery.models.Host;
+import learn.mastery.models.QuoteRequest;
 import learn.mastery.models.Reservation;
 
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.time.DayOfWeek;
+import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.Lock;
+import java.util.function.IntConsumer;
 
 public class ReservationService {
 
     private final ReservationRepository reservationRepository;
     private final HostRepository hostRepository;
     private  final GuestRepository guestRepository;
+    private final PricingEngine pricingEngine;
+    private final Map<String, AvailabilityIndex> availability = new ConcurrentHashMap<>();
+    private volatile ConcurrencyStrategy concurrencyStrategy = ConcurrencyStrategy.LOCKING;
+    private volatile int batchParallelism = Runtime.getRuntime().availableProcessors();
+
+    private static final int MAX_OPTIMISTIC_ATTEMPTS = 10;
+    private static final int QUOTES_PER_TASK = 2048;
 
     public ReservationService(ReservationRepository reservationRepository, HostRepository hostRepository, GuestRepository guestRepository) {
+        this(reservationRepository, hostRepository, guestRepository, new PricingEngine());
+    }
+
+    public ReservationService(ReservationRepository reservationRepository, HostRepository hostRepository,
+                              GuestRepository guestRepository, PricingEngine pricingEngine) {
         this.reservationRepository = reservationRepository;
         this.hostRepository = hostRepository;
         this.guestRepository = guestRepository;
+        this.pricingEngine = pricingEngine;
+    }
+
+    public ConcurrencyStrategy getConcurrencyStrategy() {
+        return concurrencyStrategy;
+    }
+
+    public void setConcurrencyStrategy(ConcurrencyStrategy concurrencyStrategy) {
+        this.concurrencyStrategy = concurrencyStrategy;
+    }
+
+    public int getBatchParallelism() {
+        return batchParallelism;
+    }
+
+    public void setBatchParallelism(int batchParallelism) {
+        if (batchParallelism < 1) {
+            throw new IllegalArgumentException("batchParallelism must be at least 1");
+        }
+        this.batchParallelism = batchParallelism;
     }
 
     public List<Reservation> findByHostId(String hostId) throws IOException {
         return reservationRepository.findByHostId(hostId);
     }
 
+    // null if the host has no reservation with that id
+    public Reservation findReservation(String hostId, int reservationId) {
+        return reservationRepository.findOne(hostId, reservationId);
+    }
+
+    // the overlap check and the write happen under the host's write lock, so two bookings
+    // for the same host can't both pass validation and then both be saved
     public Result<Reservation> makeReservation(Reservation reservation) throws IOException {
-        Result<Reservation> result = validateReservation(reservation, false);
+        if (reservation.getHost() == null) {
+            return validateReservation(reservation, false, null);
+        }
+        String hostId = reservation.getHost().getId();
+
+        if (concurrencyStrategy == ConcurrencyStrategy.OPTIMISTIC) {
+            for (int attempt = 0; attempt < MAX_OPTIMISTIC_ATTEMPTS; attempt++) {
+                try {
+                    return tryMakeReservation(reservation, reservationRepository.getVersion(hostId));
+                } catch (StaleVersionException ignored) {
+                    // someone else got there first; validate again against their change
+                }
+            }
+            return busy();
+        }
+
+        Lock lock = reservationRepository.lockFor(hostId).writeLock();
+        lock.lock();
+        try {
+            return tryMakeReservation(reservation, reservationRepository.getVersion(hostId));
+        } catch (StaleVersionException e) {
+            // can't happen while the lock is held
+            return busy();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Result<Reservation> tryMakeReservation(Reservation reservation, long version)
+            throws IOException, StaleVersionException {
+        AvailabilityIndex index = availabilityFor(reservation.getHost().getId(), version);
+        Result<Reservation> result = validateReservation(reservation, false, index);
 
         if (!result.isSuccess()) {
             return result;
@@ -40,8 +125,11 @@ public class ReservationService {
         reservation.setTotal(total);
 
         try {
-            reservationRepository.add(reservation);
+            reservationRepository.add(reservation, version);
+            index.add(reservation);
             result.setPayload(reservation);
+        } catch (StaleVersionException e) {
+            throw e;
         } catch (Exception | DataException e) {
             result.addErrorMessage("Failed to save the reservation: " + e.getMessage());
         }
@@ -49,52 +137,168 @@ public class ReservationService {
         return result;
     }
 
+    // books many reservations at once and returns one result per reservation, in the same order.
+    // each host's reservations are checked on their own thread, under the host's write lock, against an
+    // index that also holds the batch's earlier bookings, so the batch can't double-book itself either.
+    // a host's accepted bookings are saved together with one addAll; if that fails they're all rejected.
+    // batches always lock, whatever the concurrency strategy: retrying a whole host's batch isn't worth it.
+    public List<Result<Reservation>> makeReservations(List<Reservation> reservations) throws IOException {
+        List<Result<Reservation>> results = new ArrayList<>(Collections.nCopies(reservations.size(), null));
+        Map<String, List<Integer>> rowsByHost = new LinkedHashMap<>();
+        for (int row = 0; row < reservations.size(); row++) {
+            Reservation reservation = reservations.get(row);
+            if (reservation.getHost() == null) {
+                results.set(row, validateReservation(reservation, false, null));
+            } else {
+                rowsByHost.computeIfAbsent(reservation.getHost().getId(), hostId -> new ArrayList<>()).add(row);
+            }
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        rowsByHost.forEach((hostId, rows) -> tasks.add(() -> {
+            makeHostReservations(hostId, reservations, rows, results);
+            return null;
+        }));
+
+        ForkJoinPool pool = new ForkJoinPool(batchParallelism);
+        try {
+            for (Future<Void> task : pool.invokeAll(tasks)) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while saving reservations.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return results;
+    }
+
+    private void makeHostReservations(String hostId, List<Reservation> reservations, List<Integer> rows,
+                                      List<Result<Reservation>> results) throws IOException {
+        Lock lock = reservationRepository.lockFor(hostId).writeLock();
+        lock.lock();
+        try {
+            // a private index: the shared one only moves forward as changes are saved
+            AvailabilityIndex index = new AvailabilityIndex(reservationRepository.findByHostId(hostId));
+            List<Reservation> accepted = new ArrayList<>();
+            List<Integer> acceptedRows = new ArrayList<>();
+            for (int row : rows) {
+                Reservation reservation = reservations.get(row);
+                Result<Reservation> result = validateReservation(reservation, false, index);
+                if (result.isSuccess()) {
+                    reservation.setTotal(calculateTotal(reservation.getStartDate(), reservation.getEndDate(),
+                            reservation.getHost()));
+                    index.add(reservation);
+                    accepted.add(reservation);
+                    acceptedRows.add(row);
+                }
+                results.set(row, result);
+            }
+            if (accepted.isEmpty()) {
+                return;
+            }
+
+            try {
+                reservationRepository.addAll(hostId, accepted);
+            } catch (Exception | DataException e) {
+                for (int row : acceptedRows) {
+                    Result<Reservation> failed = new Result<>();
+                    failed.addErrorMessage("Failed to save the reservation: " + e.getMessage());
+                    results.set(row, failed);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
     public Result<Reservation> updateReservation(Reservation updatedReservation) throws DataException, IOException {
-        Result<Reservation> result = validateReservation(updatedReservation, false);
+        if (updatedReservation.getHost() == null) {
+            return validateReservation(updatedReservation, true, null);
+        }
+        String hostId = updatedReservation.getHost().getId();
+
+        if (concurrencyStrategy == ConcurrencyStrategy.OPTIMISTIC) {
+            for (int attempt = 0; attempt < MAX_OPTIMISTIC_ATTEMPTS; attempt++) {
+                try {
+                    return tryUpdateReservation(updatedReservation, reservationRepository.getVersion(hostId));
+                } catch (StaleVersionException ignored) {
+                    // someone else got there first; validate again against their change
+                }
+            }
+            return busy();
+        }
+
+        Lock lock = reservationRepository.lockFor(hostId).writeLock();
+        lock.lock();
+        try {
+            return tryUpdateReservation(updatedReservation, reservationRepository.getVersion(hostId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Result<Reservation> tryUpdateReservation(Reservation updatedReservation, long version)
+            throws DataException, IOException {
+        Result<Reservation> result = validateReservation(updatedReservation, true, null);
 
         if (!result.isSuccess()) {
             return result;
         }
 
 
-        List<Reservation> existingReservations = reservationRepository.findByHostId(updatedReservation.getHost().getId());
-        boolean exists = existingReservations.stream()
-                .anyMatch(r -> r.getId() == updatedReservation.getId());
+        AvailabilityIndex index = availabilityFor(updatedReservation.getHost().getId(), version);
 
-        if (!exists) {
+        if (!index.contains(updatedReservation.getId())) {
             result.addErrorMessage("Reservation does not exist.");
             return result;
         }
 
-        boolean conflict = existingReservations.stream()
-                .filter(r -> r.getId() != updatedReservation.getId())
-                .anyMatch(existing -> !isDateRangeValid(updatedReservation, existing));
+        boolean conflict = index.overlapsExcept(updatedReservation.getStartDate(), updatedReservation.getEndDate(),
+                updatedReservation.getId());
 
         if (conflict) {
             result.addErrorMessage("Updated reservation conflicts with an existing reservation.");
             return result;
         }
 
-        boolean success = reservationRepository.update(updatedReservation);
+        // the stay may have new dates, so it's priced again rather than keeping the old total
+        updatedReservation.setTotal(calculateTotal(updatedReservation.getStartDate(),
+                updatedReservation.getEndDate(), updatedReservation.getHost()));
+
+        boolean success = reservationRepository.update(updatedReservation, version);
         if (!success) {
             result.addErrorMessage("Failed to update the reservation.");
             return result;
         }
+        index.update(updatedReservation);
 
         result.setPayload(updatedReservation);
         return result;
     }
 
+    // deletes have nothing to double-book, so they always just take the host's lock
     public Result<Boolean> deleteReservation(int reservationId, String hostId) {
+        Lock lock = reservationRepository.lockFor(hostId).writeLock();
+        lock.lock();
+        try {
+            return deleteReservationLocked(reservationId, hostId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Result<Boolean> deleteReservationLocked(int reservationId, String hostId) {
         Result<Boolean> result = new Result<>();
 
         try {
-            List<Reservation> existingReservations = reservationRepository.findByHostId(hostId);
-
-            Reservation reservationToDelete = existingReservations.stream()
-                    .filter(r -> r.getId() == reservationId)
-                    .findFirst()
-                    .orElse(null);
+            Reservation reservationToDelete = reservationRepository.findOne(hostId, reservationId);
 
             if (reservationToDelete == null) {
                 result.addErrorMessage("Reservation with ID " + reservationId + " does not exist.");
@@ -114,6 +318,11 @@ public class ReservationService {
                 result.setPayload(false);
                 return result;
             }
+            // a host that isn't indexed yet is built from the file the next time it's booked
+            AvailabilityIndex index = availability.get(hostId);
+            if (index != null) {
+                index.remove(reservationId);
+            }
 
             result.setPayload(true);
         } catch (Exception | DataException e) {
@@ -124,9 +333,17 @@ public class ReservationService {
         return result;
     }
 
+    private static <T> Result<T> busy() {
+        Result<T> result = new Result<>();
+        result.addErrorMessage("The host's reservations kept changing while saving. Please try again.");
+        return result;
+    }
+
     // VALIDATIONS VALIDATIONS VALIDATIONS VALIDATIONS VALIDATIONS VALIDATIONS VALIDATIONS VALIDATIONS
 
-    private Result<Reservation> validateReservation(Reservation reservation, boolean isUpdate) throws IOException {
+    // overlaps are checked against index when there is one; updates check their own in updateReservation
+    private Result<Reservation> validateReservation(Reservation reservation, boolean isUpdate,
+                                                    AvailabilityIndex index) throws IOException {
         Result<Reservation> result = new Result<>();
 
         if (reservation.getGuest() == null) {
@@ -141,7 +358,6 @@ public class ReservationService {
             result.addErrorMessage("Start and end dates are required.");
         } else if (!reservation.getStartDate().isBefore(reservation.getEndDate())) {
             result.addErrorMessage("Start date must come before end date.");
-        } else if (!isUpdate && !isReservationDateValid(reservation)) {
         }
 
         if (reservation.getStartDate() != null && !reservation.getStartDate().isAfter(LocalDate.now())) {
@@ -156,7 +372,9 @@ public class ReservationService {
             result.addErrorMessage("Host does not exist.");
         }
 
-        if (!isReservationDateValid(reservation)) {
+        if (!isUpdate && index != null && reservation.getStartDate() != null
+                && reservation.getEndDate() != null
+                && index.overlaps(reservation.getStartDate(), reservation.getEndDate())) {
             result.addErrorMessage("Reservation dates overlap with an existing reservation.");
         }
 
@@ -171,76 +389,122 @@ public class ReservationService {
 
     // HELPERS HELPERS HELPERS HELPERS HELPERS HELPERS HELPERS HELPERS HELPERS HELPERS HELPERS
     public BigDecimal calculateTotal(LocalDate startDate, LocalDate endDate, Host host) {
-        BigDecimal total = BigDecimal.ZERO;
-        LocalDate date = startDate;
+        return pricingEngine.calculateTotal(startDate, endDate, host);
+    }
 
-        while (!date.isAfter(endDate)) {
-            if (isWeekend(date)) {
-                total = total.add(host.getWeekendRate());
-            } else {
-                total = total.add(host.getStandardRate());
+    // prices many stays at once, without booking them; totals come back in the same order.
+    // totals are worked out in whole cents, then given the scale calculateTotal would, so a quote equals
+    // what booking the stay would charge, digits and all. a host whose rates have fractions of a cent is
+    // priced by calculateTotal itself. a request without a host or dates gets null.
+    public List<BigDecimal> quoteAll(List<QuoteRequest> requests) {
+        BigDecimal[] totals = new BigDecimal[requests.size()];
+        forEachQuote(requests.size(), i -> {
+            QuoteRequest request = requests.get(i);
+            Host host = request.getHost();
+            if (host == null || request.getStartDate() == null || request.getEndDate() == null) {
+                return;
             }
-            date = date.plusDays(1);
-        }
-        return total;
+            long days = pricingEngine.countDays(request.getStartDate(), request.getEndDate());
+            long weekendDays = pricingEngine.countWeekendDays(request.getStartDate(), request.getEndDate());
+            try {
+                totals[i] = quoteInCents(days - weekendDays, weekendDays, host);
+            } catch (ArithmeticException e) {
+                totals[i] = calculateTotal(request.getStartDate(), request.getEndDate(), host);
+            }
+        });
+        return Arrays.asList(totals);
     }
 
-    private boolean isWeekend(LocalDate date) {
-        DayOfWeek day = date.getDayOfWeek();
-        return day == DayOfWeek.SATURDAY || day == DayOfWeek.SUNDAY;
+    // the same stay at every host, in the same order as hosts. the stay's days are counted once.
+    // totals are the same as quoteAll's; a null host gets null, and missing dates give every host null.
+    public List<BigDecimal> quoteHostsForRange(LocalDate startDate, LocalDate endDate, List<Host> hosts) {
+        BigDecimal[] totals = new BigDecimal[hosts.size()];
+        if (startDate == null || endDate == null) {
+            return Arrays.asList(totals);
+        }
+        long days = pricingEngine.countDays(startDate, endDate);
+        long weekendDays = pricingEngine.countWeekendDays(startDate, endDate);
+        forEachQuote(hosts.size(), i -> {
+            Host host = hosts.get(i);
+            if (host == null) {
+                return;
+            }
+            try {
+                totals[i] = quoteInCents(days - weekendDays, weekendDays, host);
+            } catch (ArithmeticException e) {
+                totals[i] = calculateTotal(startDate, endDate, host);
+            }
+        });
+        return Arrays.asList(totals);
     }
 
-    private boolean isReservationDateValid(Reservation newReservation) {
-        List<Reservation> existingReservations = reservationRepository.findByHostId(newReservation.getHost().getId());
-
-        for (Reservation existingReservation : existingReservations) {
-            boolean isStartBeforeOrOnExistingEnd = newReservation.getStartDate().isBefore(existingReservation.getEndDate())
-                    || newReservation.getStartDate().isEqual(existingReservation.getEndDate());
-
-            boolean isEndAfterOrOnExistingStart = newReservation.getEndDate().isAfter(existingReservation.getStartDate())
-                    || newReservation.getEndDate().isEqual(existingReservation.getStartDate());
-
-            if (isStartBeforeOrOnExistingEnd && isEndAfterOrOnExistingStart) {
-                // this means new reservation overlaps with an existing reservation
-                return false;
-            }
+    // calculateTotal adds each charged rate to BigDecimal.ZERO, so its scale is the largest of zero and
+    // those rates' scales. a rate in whole cents times whole days always fits that scale exactly.
+    // throws ArithmeticException for fractions of a cent or a total too big for a long.
+    private BigDecimal quoteInCents(long weekdays, long weekendDays, Host host) {
+        long cents = pricingEngine.calculateTotalCents(weekdays, weekendDays,
+                PricingEngine.toCents(host.getStandardRate()), PricingEngine.toCents(host.getWeekendRate()));
+        int scale = 0;
+        if (weekdays > 0) {
+            scale = Math.max(scale, host.getStandardRate().scale());
         }
-
-        return true;
+        if (weekendDays > 0) {
+            scale = Math.max(scale, host.getWeekendRate().scale());
+        }
+        return BigDecimal.valueOf(cents, 2).setScale(scale, RoundingMode.UNNECESSARY);
     }
 
-
-    private boolean isReservationDateValidForUpdate(Reservation newReservation, Integer updatingReservationId) {
-        List<Reservation> existingReservations = reservationRepository.findByHostId(newReservation.getHost().getId());
-
-        for (Reservation existingReservation : existingReservations) {
-            // skip the reservation being updated
-            if (existingReservation.getId() == updatingReservationId) {
-                continue;
+    // small batches are priced on the calling thread; bigger ones are split across batchParallelism threads
+    private void forEachQuote(int count, IntConsumer quote) {
+        if (count <= QUOTES_PER_TASK) {
+            for (int i = 0; i < count; i++) {
+                quote.accept(i);
             }
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool(batchParallelism);
+        try {
+            pool.invoke(new QuoteTask(0, count, quote));
+        } finally {
+            pool.shutdown();
+        }
+    }
 
-            boolean isStartBeforeOrOnExistingEnd = newReservation.getStartDate().isBefore(existingReservation.getEndDate())
-                    || newReservation.getStartDate().isEqual(existingReservation.getEndDate());
+    private static class QuoteTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final IntConsumer quote;
 
-            boolean isEndAfterOrOnExistingStart = newReservation.getEndDate().isAfter(existingReservation.getStartDate())
-                    || newReservation.getEndDate().isEqual(existingReservation.getStartDate());
+        QuoteTask(int from, int to, IntConsumer quote) {
+            this.from = from;
+            this.to = to;
+            this.quote = quote;
+        }
 
-            if (isStartBeforeOrOnExistingEnd && isEndAfterOrOnExistingStart) {
-                // this means new/updated reservation overlaps with another existing reservation
-                return false;
+        @Override
+        protected void compute() {
+            if (to - from <= QUOTES_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    quote.accept(i);
+                }
+                return;
             }
+            int middle = (from + to) >>> 1;
+            invokeAll(new QuoteTask(from, middle, quote), new QuoteTask(middle, to, quote));
         }
-
-        return true;
     }
 
-    private boolean isDateRangeValid(Reservation updatedReservation, Reservation existingReservation) {
-        LocalDate updatedStart = updatedReservation.getStartDate();
-        LocalDate updatedEnd = updatedReservation.getEndDate();
-        LocalDate existingStart = existingReservation.getStartDate();
-        LocalDate existingEnd = existingReservation.getEndDate();
-
-        return updatedStart.isAfter(existingEnd) || updatedEnd.isBefore(existingStart);
+    // the host's index as of version. an index built or kept at any other version is rebuilt; one that's
+    // newer than it claims is harmless, since a save at that version will fail its version check.
+    // the version also moves when the host's reservations are changed outside this service, by another
+    // process or by hand, so the index never outlives the data it was built from.
+    private AvailabilityIndex availabilityFor(String hostId, long version) {
+        AvailabilityIndex index = availability.get(hostId);
+        if (index == null || index.version() != version) {
+            index = new AvailabilityIndex(reservationRepository.findByHostId(hostId), version);
+            availability.put(hostId, index);
+        }
+        return index;
     }
 
 }
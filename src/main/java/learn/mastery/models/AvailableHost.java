@@ -0,0 +1,38 @@
+package learn.mastery.models;
+
+import java.math.BigDecimal;
+
+// a host that's free for a searched stay, and what the stay would cost there
+public class AvailableHost {
+    private Host host;
+    private BigDecimal total;
+
+    public AvailableHost(Host host, BigDecimal total) {
+        this.host = host;
+        this.total = total;
+    }
+
+    public Host getHost() {
+        return host;
+    }
+
+    public void setHost(Host host) {
+        this.host = host;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    @Override
+    public String toString() {
+        return "AvailableHost{" +
+                "host=" + host +
+                ", total=" + total +
+                '}';
+    }
+}
@@ -0,0 +1,49 @@
+package learn.mastery.models;
+
+import java.time.LocalDate;
+
+// a stay to price without booking it
+public class QuoteRequest {
+    private Host host;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    public QuoteRequest(Host host, LocalDate startDate, LocalDate endDate) {
+        this.host = host;
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+
+    public Host getHost() {
+        return host;
+    }
+
+    public void setHost(Host host) {
+        this.host = host;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+
+    @Override
+    public String toString() {
+        return "QuoteRequest{" +
+                "host=" + host +
+                ", startDate=" + startDate +
+                ", endDate=" + endDate +
+                '}';
+    }
+}
@@ -0,0 +1,85 @@
+package learn.mastery.models;
+
+// one line of a reservation import file, as text. problem is set when the line couldn't be read at all.
+public class ReservationImportRow {
+    private int lineNumber;
+    private String hostEmail;
+    private String guestEmail;
+    private String startDate;
+    private String endDate;
+    private String problem;
+
+    public ReservationImportRow(int lineNumber, String hostEmail, String guestEmail, String startDate, String endDate) {
+        this.lineNumber = lineNumber;
+        this.hostEmail = hostEmail;
+        this.guestEmail = guestEmail;
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+
+    public static ReservationImportRow unreadable(int lineNumber, String problem) {
+        ReservationImportRow row = new ReservationImportRow(lineNumber, null, null, null, null);
+        row.setProblem(problem);
+        return row;
+    }
+
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    public void setLineNumber(int lineNumber) {
+        this.lineNumber = lineNumber;
+    }
+
+    public String getHostEmail() {
+        return hostEmail;
+    }
+
+    public void setHostEmail(String hostEmail) {
+        this.hostEmail = hostEmail;
+    }
+
+    public String getGuestEmail() {
+        return guestEmail;
+    }
+
+    public void setGuestEmail(String guestEmail) {
+        this.guestEmail = guestEmail;
+    }
+
+    public String getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(String startDate) {
+        this.startDate = startDate;
+    }
+
+    public String getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(String endDate) {
+        this.endDate = endDate;
+    }
+
+    public String getProblem() {
+        return problem;
+    }
+
+    public void setProblem(String problem) {
+        this.problem = problem;
+    }
+
+    @Override
+    public String toString() {
+        return "ReservationImportRow{" +
+                "lineNumber=" + lineNumber +
+                ", hostEmail='" + hostEmail + '\'' +
+                ", guestEmail='" + guestEmail + '\'' +
+                ", startDate='" + startDate + '\'' +
+                ", endDate='" + endDate + '\'' +
+                ", problem='" + problem + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,120 @@
+package learn.mastery.models;
+
+import java.math.BigDecimal;
+
+// occupancy and revenue for one group of hosts over a report's date range. scope says what the group is
+// ("total", "state", "month" or "host") and key which one (a state, a yyyy-MM month or a host id).
+// nights count the way stays are priced: the start date through the end date.
+public class ReservationStats {
+    private String scope;
+    private String key;
+    private long reservations;
+    private long stayNights;
+    private long bookedNights;
+    private long availableNights;
+    private long weekendNights;
+    private long revenueCents;
+
+    public ReservationStats(String scope, String key) {
+        this.scope = scope;
+        this.key = key;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public void setScope(String scope) {
+        this.scope = scope;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    // stays with at least one night in the range
+    public long getReservations() {
+        return reservations;
+    }
+
+    public void setReservations(long reservations) {
+        this.reservations = reservations;
+    }
+
+    // the full length of those stays, including nights outside the range
+    public long getStayNights() {
+        return stayNights;
+    }
+
+    public void setStayNights(long stayNights) {
+        this.stayNights = stayNights;
+    }
+
+    // nights booked inside the range
+    public long getBookedNights() {
+        return bookedNights;
+    }
+
+    public void setBookedNights(long bookedNights) {
+        this.bookedNights = bookedNights;
+    }
+
+    // hosts times nights in the range
+    public long getAvailableNights() {
+        return availableNights;
+    }
+
+    public void setAvailableNights(long availableNights) {
+        this.availableNights = availableNights;
+    }
+
+    public long getWeekendNights() {
+        return weekendNights;
+    }
+
+    public void setWeekendNights(long weekendNights) {
+        this.weekendNights = weekendNights;
+    }
+
+    public long getRevenueCents() {
+        return revenueCents;
+    }
+
+    public void setRevenueCents(long revenueCents) {
+        this.revenueCents = revenueCents;
+    }
+
+    public long getWeekdayNights() {
+        return bookedNights - weekendNights;
+    }
+
+    public double getOccupancyRate() {
+        return availableNights == 0 ? 0 : (double) bookedNights / availableNights;
+    }
+
+    public double getAverageStay() {
+        return reservations == 0 ? 0 : (double) stayNights / reservations;
+    }
+
+    public BigDecimal getRevenue() {
+        return BigDecimal.valueOf(revenueCents, 2);
+    }
+
+    @Override
+    public String toString() {
+        return "ReservationStats{" +
+                "scope='" + scope + '\'' +
+                ", key='" + key + '\'' +
+                ", reservations=" + reservations +
+                ", stayNights=" + stayNights +
+                ", bookedNights=" + bookedNights +
+                ", availableNights=" + availableNights +
+                ", weekendNights=" + weekendNights +
+                ", revenueCents=" + revenueCents +
+                '}';
+    }
+}
@@ -1,10 +1,12 @@
 package learn.mastery.ui;
 
 import learn.mastery.data.DataException;
+import learn.mastery.domain.AvailabilityService;
 import learn.mastery.domain.GuestService;
 import learn.mastery.domain.HostService;
 import learn.mastery.domain.ReservationService;
 import learn.mastery.domain.Result;
+import learn.mastery.models.AvailableHost;
 import learn.mastery.models.Guest;
 import learn.mastery.models.Host;
 import learn.mastery.models.Reservation;
@@ -20,12 +22,15 @@ public class Controller {
     private final GuestService guestService;
     private final HostService hostService;
     private final ReservationService reservationService;
+    private final AvailabilityService availabilityService;
     private final View view;
 
-    public Controller(GuestService guestService, HostService hostService, ReservationService reservationService, View view) {
+    public Controller(GuestService guestService, HostService hostService, ReservationService reservationService,
+                      AvailabilityService availabilityService, View view) {
         this.guestService = guestService;
         this.hostService = hostService;
         this.reservationService = reservationService;
+        this.availabilityService = availabilityService;
         this.view = view;
     }
 
@@ -62,6 +67,9 @@ public class Controller {
                 case CANCEL_RESERVATION:
                     cancelReservation();
                     break;
+                case FIND_AVAILABLE_HOSTS:
+                    findAvailableHosts();
+                    break;
                 default:
                     view.displayMessage("Invalid selection. Please try again.");
             }
@@ -82,6 +90,22 @@ public class Controller {
         view.displayReservations(reservations);
     }
 
+    private void findAvailableHosts() throws IOException {
+        LocalDate startDate = view.readDate("Start date (MM/dd/yyyy): ");
+        LocalDate endDate = view.readDate("End date (MM/dd/yyyy): ");
+        String state = view.readOptionalString("State (Enter for any): ");
+        String city = view.readOptionalString("City (Enter for any): ");
+        BigDecimal maxTotal = view.readOptionalBigDecimal("Highest total (Enter for any): ");
+
+        Result<List<AvailableHost>> result = availabilityService.findAvailableHosts(startDate, endDate, state, city,
+                maxTotal);
+        if (!result.isSuccess()) {
+            view.displayStatus(false, result.getErrorMessages());
+            return;
+        }
+        view.displayAvailableHosts(result.getPayload());
+    }
+
     private void makeReservation() throws IOException {
         // verifying host exists
         String hostEmail = view.readHostEmail();
@@ -5,7 +5,8 @@ public enum MainMenuOption {
     VIEW_RESERVATIONS_FOR_HOST(1, "View Reservations for Host"),
     MAKE_RESERVATION(2, "Make a Reservation"),
     EDIT_RESERVATION(3, "Edit a Reservation"),
-    CANCEL_RESERVATION(4, "Cancel a Reservation");
+    CANCEL_RESERVATION(4, "Cancel a Reservation"),
+    FIND_AVAILABLE_HOSTS(5, "Find Available Hosts");
 
     private final int value;
     private final String message;
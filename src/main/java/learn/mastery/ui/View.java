@@ -1,5 +1,6 @@
 package learn.mastery.ui;
 
+import learn.mastery.models.AvailableHost;
 import learn.mastery.models.Host;
 import learn.mastery.models.Reservation;
 
@@ -28,7 +29,8 @@ public class View {
     }
 
     public int getMainMenuSelection() {
-        return io.readInt("Select [0-4]: ", 0, 4);
+        int max = MainMenuOption.values().length - 1;
+        return io.readInt("Select [0-" + max + "]: ", 0, max);
     }
 
     public void displayReservations(List<Reservation> reservations) {
@@ -58,6 +60,43 @@ public class View {
 
 
 
+    public void displayAvailableHosts(List<AvailableHost> hosts) {
+        io.println(" ");
+
+        if (hosts.isEmpty()) {
+            io.println("No hosts are available for those dates.");
+            return;
+        }
+
+        hosts.forEach(availableHost ->
+                io.printf("%s: %s, %s, Email: %s, Total: $%.2f%n",
+                        availableHost.getHost().getLastName(),
+                        availableHost.getHost().getCity(),
+                        availableHost.getHost().getState(),
+                        availableHost.getHost().getEmail(),
+                        availableHost.getTotal()));
+    }
+
+    // null when left blank
+    public String readOptionalString(String prompt) {
+        String input = io.readString(prompt).trim();
+        return input.isEmpty() ? null : input;
+    }
+
+    // null when left blank
+    public BigDecimal readOptionalBigDecimal(String prompt) {
+        String input = io.readString(prompt).trim();
+        if (input.isEmpty()) {
+            return null;
+        }
+        try {
+            return new BigDecimal(input);
+        } catch (NumberFormatException e) {
+            io.println("[INVALID] Enter a number or press Enter to skip.");
+            return readOptionalBigDecimal(prompt);
+        }
+    }
+
     public String readHostEmail() {
         return io.readRequiredString("Enter host email: ");
     }
@@ -0,0 +1,188 @@
+package learn.mastery.api;
+
+import learn.mastery.data.GuestRepositoryDouble;
+import learn.mastery.data.HostRepositoryDouble;
+import learn.mastery.data.Json;
+import learn.mastery.data.ReservationRepositoryDouble;
+import learn.mastery.domain.GuestService;
+import learn.mastery.domain.HostService;
+import learn.mastery.domain.ReservationService;
+import learn.mastery.models.Host;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApiServerTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+    private ApiServer server;
+    private ReservationRepositoryDouble reservationRepository;
+    private HostRepositoryDouble hostRepository;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        GuestRepositoryDouble guestRepository = new GuestRepositoryDouble();
+        hostRepository = new HostRepositoryDouble();
+        reservationRepository = new ReservationRepositoryDouble(guestRepository, hostRepository);
+        server = new ApiServer(new HostService(hostRepository, reservationRepository),
+                new GuestService(guestRepository),
+                new ReservationService(reservationRepository, hostRepository, guestRepository), 0, 4);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void shouldFindHostByEmail() throws IOException, InterruptedException {
+        HttpResponse<String> response = send("GET", "/api/hosts?email=john%40example.com", null);
+
+        assertEquals(200, response.statusCode());
+        assertEquals("3effa6vf-ab45-52a8-6462-d50x55h84b15", Json.parseObject(response.body()).get("id"));
+        assertEquals(404, send("GET", "/api/hosts?email=nobody%40example.com", null).statusCode());
+    }
+
+    @Test
+    void shouldListReservationsForHost() throws IOException, InterruptedException {
+        HttpResponse<String> response = send("GET", "/api/reservations?hostEmail=john@example.com", null);
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().startsWith("[{\"id\":1,"));
+    }
+
+    @Test
+    void shouldQuoteWithoutSaving() throws IOException, InterruptedException {
+        LocalDate start = LocalDate.now().plusDays(30);
+        HttpResponse<String> response = send("POST", "/api/quotes", "{\"hostEmail\": \"john@example.com\", " +
+                "\"startDate\": \"" + start + "\", \"endDate\": \"" + start.plusDays(3) + "\"}");
+
+        assertEquals(200, response.statusCode());
+        assertNotNull(Json.parseObject(response.body()).get("total"));
+
+        HttpResponse<String> backwards = send("POST", "/api/quotes", "{\"hostEmail\": \"john@example.com\", " +
+                "\"startDate\": \"" + start + "\", \"endDate\": \"" + start + "\"}");
+        assertEquals(400, backwards.statusCode());
+    }
+
+    @Test
+    void shouldCompareQuotesAcrossHosts() throws IOException, InterruptedException {
+        String dates = "\"startDate\": \"2030-01-01\", \"endDate\": \"2030-01-07\"";
+        HttpResponse<String> response = send("POST", "/api/quotes", "{\"hostEmails\": [\"john@example.com\", " +
+                "\"noreservations@example.com\"], " + dates + "}");
+
+        assertEquals(200, response.statusCode());
+        List<?> quotes = (List<?>) Json.parseObject(response.body()).get("quotes");
+        assertEquals(2, quotes.size());
+        assertEquals(new BigDecimal("800.00"), ((Map<?, ?>) quotes.get(0)).get("total"));
+
+        HttpResponse<String> unknown = send("POST", "/api/quotes", "{\"hostEmails\": [\"nobody@example.com\"], " +
+                dates + "}");
+        assertEquals(404, unknown.statusCode());
+    }
+
+    @Test
+    void singleAndComparedQuotesShouldGiveTheSameTotal() throws IOException, InterruptedException {
+        // whole-number rates, like the ones in data/hosts.csv
+        hostRepository.add(new Host("whole-rates-host", "Whole", "whole@example.com", "1", "1 Rd", "Town", "CA",
+                "90000", new BigDecimal("100"), new BigDecimal("150")));
+        String dates = "\"startDate\": \"2030-01-01\", \"endDate\": \"2030-01-07\"";
+
+        for (String email : List.of("whole@example.com", "john@example.com")) {
+            HttpResponse<String> single = send("POST", "/api/quotes", "{\"hostEmail\": \"" + email + "\", " +
+                    dates + "}");
+            HttpResponse<String> compared = send("POST", "/api/quotes", "{\"hostEmails\": [\"" + email + "\"], " +
+                    dates + "}");
+
+            Object singleTotal = Json.parseObject(single.body()).get("total");
+            List<?> quotes = (List<?>) Json.parseObject(compared.body()).get("quotes");
+            assertEquals(singleTotal, ((Map<?, ?>) quotes.get(0)).get("total"));
+        }
+    }
+
+    @Test
+    void shouldMakeEditAndCancelReservation() throws IOException, InterruptedException {
+        LocalDate start = LocalDate.now().plusDays(30);
+        HttpResponse<String> made = send("POST", "/api/reservations", "{\"hostEmail\": \"john@example.com\", " +
+                "\"guestEmail\": \"tester@test.com\", \"startDate\": \"" + start + "\", " +
+                "\"endDate\": \"" + start.plusDays(3) + "\"}");
+        assertEquals(201, made.statusCode());
+        Object id = Json.parseObject(made.body()).get("id");
+
+        HttpResponse<String> edited = send("PUT", "/api/reservations/" + id, "{\"hostEmail\": \"john@example.com\", " +
+                "\"endDate\": \"" + start.plusDays(5) + "\"}");
+        assertEquals(200, edited.statusCode());
+        Map<String, Object> reservation = Json.parseObject(edited.body());
+        assertEquals(start.toString(), reservation.get("startDate"));
+        assertEquals(start.plusDays(5).toString(), reservation.get("endDate"));
+
+        assertEquals(200, send("DELETE", "/api/reservations/" + id + "?hostEmail=john@example.com", null)
+                .statusCode());
+        assertEquals(404, send("PUT", "/api/reservations/" + id, "{\"hostEmail\": \"john@example.com\"}")
+                .statusCode());
+    }
+
+    @Test
+    void shouldRepriceAnEditedReservation() throws IOException, InterruptedException {
+        LocalDate start = LocalDate.now().plusDays(60);
+        HttpResponse<String> made = send("POST", "/api/reservations", "{\"hostEmail\": \"john@example.com\", " +
+                "\"guestEmail\": \"tester@test.com\", \"startDate\": \"" + start + "\", " +
+                "\"endDate\": \"" + start.plusDays(1) + "\"}");
+        Map<String, Object> before = Json.parseObject(made.body());
+
+        HttpResponse<String> edited = send("PUT", "/api/reservations/" + before.get("id"),
+                "{\"hostEmail\": \"john@example.com\", \"endDate\": \"" + start.plusDays(6) + "\"}");
+        HttpResponse<String> quote = send("POST", "/api/quotes", "{\"hostEmail\": \"john@example.com\", " +
+                "\"startDate\": \"" + start + "\", \"endDate\": \"" + start.plusDays(6) + "\"}");
+
+        assertEquals(200, edited.statusCode());
+        Object total = Json.parseObject(edited.body()).get("total");
+        assertEquals(Json.parseObject(quote.body()).get("total"), total);
+        assertNotEquals(before.get("total"), total);
+        assertEquals(total, reservationRepository.findOne("3effa6vf-ab45-52a8-6462-d50x55h84b15",
+                ((BigDecimal) before.get("id")).intValue()).getTotal());
+    }
+
+    @Test
+    void shouldReturnConflictWhenDatesOverlap() throws IOException, InterruptedException {
+        LocalDate start = LocalDate.now().plusDays(201);
+        HttpResponse<String> response = send("POST", "/api/reservations", "{\"hostEmail\": \"john@example.com\", " +
+                "\"guestEmail\": \"tester@test.com\", \"startDate\": \"" + start + "\", " +
+                "\"endDate\": \"" + start.plusDays(2) + "\"}");
+
+        assertEquals(409, response.statusCode());
+        assertEquals(List.of("Reservation dates overlap with an existing reservation."),
+                Json.parseObject(response.body()).get("errors"));
+    }
+
+    @Test
+    void shouldRejectBadRequests() throws IOException, InterruptedException {
+        assertEquals(400, send("POST", "/api/reservations", "{not json").statusCode());
+        assertEquals(400, send("GET", "/api/reservations", null).statusCode());
+        assertEquals(400, send("POST", "/api/quotes", "{\"hostEmail\": \"john@example.com\", " +
+                "\"startDate\": \"01/01/2030\", \"endDate\": \"2030-01-05\"}").statusCode());
+        assertEquals(400, send("DELETE", "/api/reservations/abc?hostEmail=john@example.com", null).statusCode());
+        assertEquals(405, send("DELETE", "/api/hosts?email=john@example.com", null).statusCode());
+    }
+
+    private HttpResponse<String> send(String method, String path, String body)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,69 @@
+package learn.mastery.data;
+
+import learn.mastery.models.Guest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachedGuestRepositoryTest {
+    static final String SEED_FILE_PATH = "./data/guests_test.csv";
+
+    @TempDir
+    Path tempDir;
+
+    Path guestsFile;
+    CachedGuestRepository repository;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        guestsFile = tempDir.resolve("guests.csv");
+        Files.copy(Paths.get(SEED_FILE_PATH), guestsFile);
+        repository = new CachedGuestRepository(new GuestFileRepository(guestsFile.toString()));
+    }
+
+    @Test
+    void findByIdShouldReturnCorrectGuest() throws IOException {
+        Guest result = repository.findById(18);
+        assertNotNull(result);
+        assertEquals("Test", result.getFirstName());
+        assertNull(repository.findById(6));
+        assertNull(repository.findById(-1));
+    }
+
+    @Test
+    void findByEmailShouldIgnoreCase() throws IOException {
+        Guest result = repository.findByEmail("KBAIK1@mediafire.com");
+        assertNotNull(result);
+        assertEquals(1, result.getGuestId());
+        assertNull(repository.findByEmail("nobody@example.com"));
+    }
+
+    @Test
+    void findByIdsShouldReturnOnlyExistingGuests() throws IOException {
+        Map<Integer, Guest> result = repository.findByIds(Set.of(2, 3, 42));
+        assertEquals(2, result.size());
+        assertEquals("Respicio", result.get(3).getLastName());
+    }
+
+    @Test
+    void shouldReturnSameInstanceUntilFileChanges() throws IOException {
+        Guest first = repository.findById(1);
+        assertSame(first, repository.findById(1));
+
+        Files.writeString(guestsFile, "\n7,New,Guest,newguest@example.com,(123) 4567890,WA",
+                StandardOpenOption.APPEND);
+
+        assertNotNull(repository.findByEmail("newguest@example.com"));
+        assertEquals(7, repository.findAll().size());
+    }
+}
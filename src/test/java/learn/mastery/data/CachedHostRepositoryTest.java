@@ -0,0 +1,68 @@
+package learn.mastery.data;
+
+import learn.mastery.models.Host;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachedHostRepositoryTest {
+    static final String SEED_FILE_PATH = "./data/hosts_test.csv";
+
+    @TempDir
+    Path tempDir;
+
+    Path hostsFile;
+    CachedHostRepository repository;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        hostsFile = tempDir.resolve("hosts.csv");
+        Files.copy(Paths.get(SEED_FILE_PATH), hostsFile);
+        repository = new CachedHostRepository(new HostFileRepository(hostsFile.toString()));
+    }
+
+    @Test
+    void findByIdShouldIgnoreCase() throws IOException {
+        Host result = repository.findById("3ZZZZ6BC-ab95-49a8-8962-d50b53f84333");
+        assertNotNull(result);
+        assertEquals("Tester", result.getLastName());
+        assertNull(repository.findById("not-a-host"));
+    }
+
+    @Test
+    void findByEmailShouldReturnCorrectHost() throws IOException {
+        Host result = repository.findByEmail("test2@example.com");
+        assertNotNull(result);
+        assertEquals("TesterTwo", result.getLastName());
+    }
+
+    @Test
+    void findByStateAndCityShouldUseIndexes() throws IOException {
+        assertEquals(1, repository.findByState("TX").size());
+        assertEquals(1, repository.findByState("CA").size());
+        assertEquals("TesterThree", repository.findByCity("north little rock").get(0).getLastName());
+        assertTrue(repository.findByState("ZZ").isEmpty());
+    }
+
+    @Test
+    void shouldReloadWhenFileChanges() throws IOException {
+        Host first = repository.findByEmail("test1@example.com");
+        assertSame(first, repository.findByEmail("test1@example.com"));
+
+        Files.writeString(hostsFile, "\nnew-host-id,Newer,new@example.com,(555) 5555555,5 New St,Amarillo,TX,79182,100,150",
+                StandardOpenOption.APPEND);
+
+        List<Host> texas = repository.findByState("TX");
+        assertEquals(2, texas.size());
+        assertNotNull(repository.findById("new-host-id"));
+    }
+}
@@ -0,0 +1,118 @@
+package learn.mastery.data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CsvReaderTest {
+
+    private CsvReader reader(String text) {
+        return new CsvReader(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void shouldSplitLinesAndFields() {
+        CsvReader reader = reader("id,start_date\r\n1,2020-07-01\n\n2,,\n");
+
+        assertTrue(reader.nextLine());
+        assertEquals(2, reader.fieldCount());
+        assertEquals("start_date", reader.getString(1));
+
+        assertTrue(reader.nextLine());
+        assertEquals(1, reader.parseInt(0));
+        assertEquals(LocalDate.of(2020, 7, 1), reader.parseDate(1));
+
+        assertTrue(reader.nextLine());
+        assertEquals(1, reader.fieldCount());
+        assertTrue(reader.isEmpty(0));
+
+        assertTrue(reader.nextLine());
+        assertEquals(3, reader.fieldCount());
+        assertEquals(1, reader.fieldCountWithoutTrailingEmpties());
+
+        assertFalse(reader.nextLine());
+    }
+
+    @Test
+    void shouldParseDecimalsWithTheSameScaleAsText() {
+        CsvReader reader = reader("340,368.75,-12.50,0.1,12345678901234567890.5");
+        assertTrue(reader.nextLine());
+
+        assertEquals(new BigDecimal("340"), reader.parseDecimal(0));
+        assertEquals(new BigDecimal("368.75"), reader.parseDecimal(1));
+        assertEquals(new BigDecimal("-12.50"), reader.parseDecimal(2));
+        assertEquals(new BigDecimal("0.1"), reader.parseDecimal(3));
+        assertEquals(new BigDecimal("12345678901234567890.5"), reader.parseDecimal(4));
+    }
+
+    @Test
+    void shouldRejectBadNumbersLikeTheJdkParsers() {
+        CsvReader reader = reader("abc,99999999999,2020-13-01");
+        assertTrue(reader.nextLine());
+
+        assertThrows(NumberFormatException.class, () -> reader.parseInt(0));
+        assertThrows(NumberFormatException.class, () -> reader.parseInt(1));
+        assertThrows(java.time.DateTimeException.class, () -> reader.parseDate(2));
+    }
+
+    @Test
+    void shouldCompareFieldsWithoutDecoding() {
+        CsvReader reader = reader("KBaik1@MediaFire.com,Zoë");
+        assertTrue(reader.nextLine());
+
+        assertTrue(reader.fieldEqualsIgnoreCase(0, "kbaik1@mediafire.com"));
+        assertFalse(reader.fieldEquals(0, "kbaik1@mediafire.com"));
+        assertFalse(reader.fieldEqualsIgnoreCase(0, "kbaik@mediafire.com"));
+        assertTrue(reader.fieldEqualsIgnoreCase(1, "ZOË"));
+        assertEquals("Zoë", reader.getString(1));
+    }
+
+    @Test
+    void shouldReadFromDirectBuffers() {
+        byte[] bytes = "1,Kevin\n2,Ian".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        CsvReader reader = new CsvReader(direct);
+
+        assertTrue(reader.nextLine());
+        assertTrue(reader.nextLine());
+        assertEquals(2, reader.parseInt(0));
+        assertEquals("Ian", reader.getString(1));
+        assertFalse(reader.nextLine());
+    }
+
+    @Test
+    void shouldReadAFileInBlocks(@TempDir Path tempDir) throws IOException {
+        StringBuilder text = new StringBuilder("id,name\n");
+        for (int i = 0; i < 2000; i++) {
+            text.append(i).append(",name").append(i).append("\r\n");
+        }
+        String longName = "x".repeat(20000);
+        text.append("2000,").append(longName);
+        Path file = tempDir.resolve("blocks.csv");
+        Files.writeString(file, text);
+
+        try (CsvReader reader = CsvReader.openInBlocks(file)) {
+            assertTrue(reader.nextLine());
+            assertEquals("name", reader.getString(1));
+            for (int i = 0; i < 2000; i++) {
+                assertTrue(reader.nextLine());
+                assertEquals(i, reader.parseInt(0));
+                assertEquals("name" + i, reader.getString(1));
+            }
+            assertTrue(reader.nextLine());
+            assertEquals(2000, reader.parseInt(0));
+            assertEquals(longName, reader.getString(1));
+            assertFalse(reader.nextLine());
+        }
+    }
+}
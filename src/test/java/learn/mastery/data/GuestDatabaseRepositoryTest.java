@@ -0,0 +1,55 @@
+package learn.mastery.data;
+
+import learn.mastery.models.Guest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GuestDatabaseRepositoryTest {
+    private Database database;
+    private GuestDatabaseRepository repository;
+
+    @BeforeEach
+    void setUp(@TempDir Path tempDir) throws DataException {
+        database = new Database(tempDir.resolve("mastery").toString());
+        DatabaseImporter.importGuests(database, "./data/guests_test.csv");
+        repository = new GuestDatabaseRepository(database);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.close();
+    }
+
+    @Test
+    void shouldMatchTheCsvFile() throws IOException {
+        GuestFileRepository fileRepository = new GuestFileRepository("./data/guests_test.csv");
+
+        assertEquals(fileRepository.findAll().size(), repository.findAll().size());
+        assertEquals(fileRepository.findById(18).toString(), repository.findById(18).toString());
+    }
+
+    @Test
+    void shouldFindByEmailIgnoringCase() throws IOException {
+        Guest guest = repository.findByEmail("KBAIK1@mediafire.com");
+
+        assertNotNull(guest);
+        assertEquals(1, guest.getGuestId());
+        assertNull(repository.findByEmail("nobody@nowhere.com"));
+    }
+
+    @Test
+    void shouldFindByIds() throws IOException {
+        Map<Integer, Guest> guests = repository.findByIds(Set.of(1, 2, 99999));
+
+        assertEquals(Set.of(1, 2), guests.keySet());
+    }
+}
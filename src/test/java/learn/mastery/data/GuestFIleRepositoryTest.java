@@ -4,12 +4,18 @@ import learn.mastery.models.Guest;
 import learn.mastery.models.Host;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 public class GuestFIleRepositoryTest {
     static final String TEST_FILE_PATH = "./data/guests_test.csv";
@@ -43,4 +49,41 @@ public class GuestFIleRepositoryTest {
         assertEquals(expectedEmail, result.getEmail());
         assertEquals("Baik", result.getLastName());
     }
+
+    @Test
+    void findByIdsShouldReturnOnlyRequestedGuests() throws IOException {
+        Map<Integer, Guest> result = repository.findByIds(Set.of(1, 18, 999));
+        assertEquals(2, result.size());
+        assertEquals("Kevin", result.get(1).getFirstName());
+        assertEquals("testguest@yahoo.com", result.get(18).getEmail());
+    }
+
+    @Test
+    void memoryMappedLookupsShouldMatchFileLookups() throws IOException {
+        GuestFileRepository mapped = new GuestFileRepository(TEST_FILE_PATH, true);
+
+        assertEquals(6, mapped.findAll().size());
+        assertEquals("Kevin", mapped.findById(1).getFirstName());
+        assertEquals("Baik", mapped.findByEmail("KBAIK1@mediafire.com").getLastName());
+        assertEquals(2, mapped.findByIds(Set.of(1, 18, 999)).size());
+        assertNull(mapped.findById(999));
+        assertNull(mapped.findByEmail("nobody@example.com"));
+    }
+
+    @Test
+    void memoryMappedFindByIdShouldMatchIdsWrittenWithLeadingZeros(@TempDir Path tempDir) throws IOException {
+        Path guestsFile = tempDir.resolve("guests.csv");
+        Files.writeString(guestsFile, "guest_id,first_name,last_name,email,phone,state\n" +
+                "007,James,Bond,jbond@example.com,(555) 0000007,CA\n" +
+                "+12,Plus,Sign,plus@example.com,(555) 0000012,CA\n");
+        GuestFileRepository scanned = new GuestFileRepository(guestsFile.toString());
+        GuestFileRepository mapped = new GuestFileRepository(guestsFile.toString(), true);
+
+        for (int guestId : new int[]{7, 12}) {
+            assertNotNull(scanned.findById(guestId));
+            assertEquals(scanned.findById(guestId).getEmail(), mapped.findById(guestId).getEmail());
+        }
+        assertEquals(scanned.findByIds(Set.of(7, 12, 999)).keySet(), mapped.findByIds(Set.of(7, 12, 999)).keySet());
+        assertNull(mapped.findById(999));
+    }
 }
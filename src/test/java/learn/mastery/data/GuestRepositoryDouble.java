@@ -4,7 +4,10 @@ import learn.mastery.models.Guest;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class GuestRepositoryDouble implements GuestRepository {
     private final List<Guest> guests = new ArrayList<>();
@@ -16,7 +19,7 @@ public class GuestRepositoryDouble implements GuestRepository {
     }
     @Override
     public List<Guest> findAll() throws IOException {
-        return null;
+        return new ArrayList<>(guests);
     }
 
     @Override
@@ -33,4 +36,15 @@ public class GuestRepositoryDouble implements GuestRepository {
         }
         return null;
     }
+
+    @Override
+    public Map<Integer, Guest> findByIds(Set<Integer> guestIds) throws IOException {
+        Map<Integer, Guest> result = new HashMap<>();
+        for (Guest guest : guests) {
+            if (guestIds.contains(guest.getGuestId())) {
+                result.put(guest.getGuestId(), guest);
+            }
+        }
+        return result;
+    }
 }
@@ -0,0 +1,82 @@
+package learn.mastery.data;
+
+import learn.mastery.models.Reservation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GuestReservationIndexTest {
+
+    @Test
+    void shouldTrackAddsAndRemovesAcrossReloads(@TempDir Path tempDir) throws IOException {
+        String file = tempDir.resolve("index.csv").toString();
+        GuestReservationIndex index = new GuestReservationIndex(file);
+        assertFalse(index.exists());
+
+        index.add(18, "host-a", 1);
+        index.add(18, "host-b", 4);
+        index.add(18, "host-b", 5);
+        index.remove(18, "host-b", 4);
+        index.add(2, "host-a", 2);
+
+        Map<String, Set<Integer>> reloaded = new GuestReservationIndex(file).findByGuestId(18);
+        assertEquals(Map.of("host-a", Set.of(1), "host-b", Set.of(5)), reloaded);
+        assertTrue(new GuestReservationIndex(file).findByGuestId(99).isEmpty());
+        assertEquals(6, Files.readAllLines(Path.of(file)).size());
+    }
+
+    @Test
+    void replaceAllShouldWriteOnlyLiveEntries(@TempDir Path tempDir) throws IOException {
+        String file = tempDir.resolve("index.csv").toString();
+        GuestReservationIndex index = new GuestReservationIndex(file);
+        index.add(18, "host-a", 1);
+        index.remove(18, "host-a", 1);
+
+        index.replaceAll(Map.of(3, Map.of("host-c", Set.of(7))));
+
+        assertEquals(List.of("op,guest_id,host_id,reservation_id", "A,3,host-c,7"), Files.readAllLines(Path.of(file)));
+        assertTrue(index.findByGuestId(18).isEmpty());
+    }
+
+    @Test
+    void addAllShouldAppendTheWholeBatch(@TempDir Path tempDir) throws IOException {
+        String file = tempDir.resolve("index.csv").toString();
+        Reservation first = new Reservation();
+        first.setId(1);
+        first.setGuestId(18);
+        Reservation second = new Reservation();
+        second.setId(2);
+        second.setGuestId(3);
+
+        new GuestReservationIndex(file).addAll("host-a", List.of(first, second));
+
+        GuestReservationIndex reloaded = new GuestReservationIndex(file);
+        assertEquals(Map.of("host-a", Set.of(1)), reloaded.findByGuestId(18));
+        assertEquals(Map.of("host-a", Set.of(2)), reloaded.findByGuestId(3));
+        assertEquals(3, Files.readAllLines(Path.of(file)).size());
+    }
+
+    @Test
+    void shouldCompactWhileRunningOnceDeadLinesPileUp(@TempDir Path tempDir) throws IOException {
+        String file = tempDir.resolve("index.csv").toString();
+        GuestReservationIndex index = new GuestReservationIndex(file);
+        index.add(18, "host-a", 1);
+
+        for (int i = 2; i < 600; i++) {
+            index.add(3, "host-b", i);
+            index.remove(3, "host-b", i);
+        }
+
+        assertTrue(Files.readAllLines(Path.of(file)).size() < 1000);
+        assertEquals(Map.of("host-a", Set.of(1)), new GuestReservationIndex(file).findByGuestId(18));
+        assertTrue(new GuestReservationIndex(file).findByGuestId(3).isEmpty());
+    }
+}
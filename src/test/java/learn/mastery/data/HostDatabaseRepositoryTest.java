@@ -0,0 +1,58 @@
+package learn.mastery.data;
+
+import learn.mastery.models.Host;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HostDatabaseRepositoryTest {
+    private Database database;
+    private HostDatabaseRepository repository;
+
+    @BeforeEach
+    void setUp(@TempDir Path tempDir) throws DataException {
+        database = new Database(tempDir.resolve("mastery").toString());
+        DatabaseImporter.importHosts(database, "./data/hosts_test.csv");
+        repository = new HostDatabaseRepository(database);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.close();
+    }
+
+    @Test
+    void shouldFindByIdAndEmail() throws IOException {
+        Host host = repository.findById("3zzzz6bc-ab95-49a8-8962-d50b53f84333");
+
+        assertNotNull(host);
+        assertEquals("test1@example.com", host.getEmail());
+        assertEquals(0, new BigDecimal("425").compareTo(host.getWeekendRate()));
+        assertEquals(host.getId(), repository.findByEmail("TEST1@example.com").getId());
+        assertNull(repository.findById("testing-fake-uuid-123"));
+    }
+
+    @Test
+    void shouldFindByStateAndCity() throws IOException {
+        List<Host> texas = repository.findByState(" tx ");
+        List<Host> macon = repository.findByCity("macon");
+
+        assertEquals(1, texas.size());
+        assertEquals("Amarillo", texas.get(0).getCity());
+        assertEquals(1, macon.size());
+        assertEquals("GA", macon.get(0).getState());
+    }
+
+    @Test
+    void shouldMatchTheCsvFile() throws IOException {
+        assertEquals(new HostFileRepository("./data/hosts_test.csv").findAll().size(), repository.findAll().size());
+    }
+}
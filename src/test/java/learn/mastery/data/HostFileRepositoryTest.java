@@ -41,4 +41,30 @@ public class HostFileRepositoryTest {
         assertEquals(expectedEmail, result.getEmail());
         assertEquals("TesterTwo", result.getLastName());
     }
+
+    @Test
+    void findByStateShouldReturnMatchingHosts() throws IOException {
+        List<Host> result = repository.findByState("ca");
+        assertEquals(1, result.size());
+        assertEquals("TestHost", result.get(0).getLastName());
+    }
+
+    @Test
+    void findByCityShouldReturnMatchingHosts() throws IOException {
+        List<Host> result = repository.findByCity("Macon");
+        assertEquals(1, result.size());
+        assertEquals("test2@example.com", result.get(0).getEmail());
+        assertTrue(repository.findByCity("Nowhere").isEmpty());
+    }
+
+    @Test
+    void memoryMappedLookupsShouldMatchFileLookups() throws IOException {
+        HostFileRepository mapped = new HostFileRepository(TEST_FILE_PATH, true);
+
+        assertEquals(4, mapped.findAll().size());
+        assertEquals("Tester", mapped.findById("3ZZZZ6BC-ab95-49a8-8962-d50b53f84333").getLastName());
+        assertEquals("TesterTwo", mapped.findByEmail("test2@example.com").getLastName());
+        assertEquals(1, mapped.findByState("AR").size());
+        assertNull(mapped.findById("not-a-host"));
+    }
 }
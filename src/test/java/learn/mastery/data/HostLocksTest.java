@@ -0,0 +1,48 @@
+package learn.mastery.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.locks.ReadWriteLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HostLocksTest {
+
+    @Test
+    void shouldReturnSameLockForSameHost() {
+        HostLocks locks = new HostLocks();
+
+        assertSame(locks.lockFor("9d469342-ad0b-4f5a-8d28-e81e690ba29a"),
+                locks.lockFor("9d469342-ad0b-4f5a-8d28-e81e690ba29a"));
+    }
+
+    @Test
+    void shouldSpreadHostsAcrossStripes() {
+        HostLocks locks = new HostLocks(8);
+        ReadWriteLock first = locks.lockFor("host-0");
+
+        boolean different = false;
+        for (int i = 1; i < 50 && !different; i++) {
+            different = locks.lockFor("host-" + i) != first;
+        }
+        assertTrue(different);
+    }
+
+    @Test
+    void writerShouldAlsoBeAbleToRead() {
+        ReadWriteLock lock = new HostLocks().lockFor("host");
+
+        lock.writeLock().lock();
+        try {
+            assertTrue(lock.readLock().tryLock());
+            lock.readLock().unlock();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Test
+    void shouldHandleNullHost() {
+        assertNotNull(new HostLocks(1).lockFor(null));
+    }
+}
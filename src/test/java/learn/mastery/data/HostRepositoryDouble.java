@@ -6,6 +6,7 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 public class HostRepositoryDouble implements HostRepository{
     private final List<Host> hosts = new ArrayList<>();
@@ -17,6 +18,12 @@ public class HostRepositoryDouble implements HostRepository{
         hosts.add(new Host("xxxx-223-dfdada", "NoReservations", "noreservations@example.com", "23333",
                 "0 reservations", "test", "TA", "99999", new BigDecimal("2.00"), new BigDecimal("20.00")));
     }
+
+    // for a test that needs a host the two above don't cover
+    public void add(Host host) {
+        hosts.add(host);
+    }
+
     @Override
     public List<Host> findAll() throws IOException {
         return new ArrayList<>(hosts);
@@ -37,4 +44,18 @@ public class HostRepositoryDouble implements HostRepository{
                 .findFirst()
                 .orElse(null);
     }
+
+    @Override
+    public List<Host> findByState(String state) throws IOException {
+        return hosts.stream()
+                .filter(host -> host.getState().equalsIgnoreCase(state))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Host> findByCity(String city) throws IOException {
+        return hosts.stream()
+                .filter(host -> host.getCity().equalsIgnoreCase(city))
+                .collect(Collectors.toList());
+    }
 }
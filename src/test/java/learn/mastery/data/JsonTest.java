@@ -0,0 +1,47 @@
+package learn.mastery.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonTest {
+
+    @Test
+    void shouldWriteValues() {
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("name", "a \"quoted\"\nline");
+        value.put("date", LocalDate.of(2030, 1, 31));
+        value.put("total", new BigDecimal("1E+2"));
+        value.put("items", Arrays.asList(1, true, null));
+
+        assertEquals("{\"name\":\"a \\\"quoted\\\"\\nline\",\"date\":\"2030-01-31\",\"total\":100," +
+                "\"items\":[1,true,null]}", Json.write(value));
+    }
+
+    @Test
+    void shouldParseWhatItWrites() {
+        Map<String, Object> parsed = Json.parseObject(" {\"name\": \"caf\\u00e9 \\\"x\\\"\", \"n\": -1.5, " +
+                "\"ok\": false, \"none\": null, \"list\": [\"a\", {}]} ");
+
+        assertEquals("café \"x\"", parsed.get("name"));
+        assertEquals(new BigDecimal("-1.5"), parsed.get("n"));
+        assertEquals(false, parsed.get("ok"));
+        assertTrue(parsed.containsKey("none"));
+        assertEquals(List.of("a", Map.of()), parsed.get("list"));
+    }
+
+    @Test
+    void shouldRejectAnythingButOneObject() {
+        assertThrows(IllegalArgumentException.class, () -> Json.parseObject("[1]"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parseObject("{\"a\": 1} x"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parseObject("{\"a\": }"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parseObject("{\"a\": \"open"));
+    }
+}
@@ -0,0 +1,184 @@
+package learn.mastery.data;
+
+import learn.mastery.models.Guest;
+import learn.mastery.models.Host;
+import learn.mastery.models.Reservation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationBinaryRepositoryTest {
+    private static final String HOST_ID = "9d469342-ad0b-4f5a-8d28-e81e690ba29a";
+
+    @TempDir
+    Path tempDir;
+
+    private GuestFileRepository guestRepository;
+    private HostFileRepository hostRepository;
+    private ReservationBinaryRepository repository;
+
+    @BeforeEach
+    void setUp() throws DataException {
+        guestRepository = new GuestFileRepository("./data/guests_test.csv");
+        hostRepository = new HostFileRepository("./data/hosts_test.csv");
+        ReservationFormatConverter.csvToBinary("./data/reservations_test", tempDir.resolve("bin").toString());
+        repository = new ReservationBinaryRepository(tempDir.resolve("bin").toString(), guestRepository, hostRepository);
+    }
+
+    @Test
+    void shouldReadConvertedReservations() {
+        List<Reservation> reservations = repository.findByHostId(HOST_ID);
+
+        assertEquals(1, reservations.size());
+        Reservation reservation = reservations.get(0);
+        assertEquals(1, reservation.getId());
+        assertEquals(LocalDate.of(2020, 7, 1), reservation.getStartDate());
+        assertEquals(LocalDate.of(2020, 7, 2), reservation.getEndDate());
+        assertEquals(18, reservation.getGuest().getGuestId());
+        assertEquals(HOST_ID, reservation.getHost().getId());
+        assertEquals(0, new BigDecimal("870").compareTo(reservation.getTotal()));
+    }
+
+    @Test
+    void shouldReturnEmptyForMissingHost() {
+        assertTrue(repository.findByHostId("testing-fake-uuid-123").isEmpty());
+    }
+
+    @Test
+    void shouldKeepRecordsSortedByStartDate() throws DataException, IOException {
+        add(LocalDate.of(2030, 3, 1));
+        add(LocalDate.of(2030, 1, 1));
+        add(LocalDate.of(2030, 2, 1));
+
+        List<Reservation> reservations = repository.findByHostId(HOST_ID);
+        assertEquals(List.of(1, 3, 4, 2), reservations.stream().map(Reservation::getId).toList());
+        assertEquals(BinaryReservationFile.HEADER_BYTES + 4 * BinaryReservationFile.RECORD_BYTES,
+                Files.size(tempDir.resolve("bin").resolve(HOST_ID + ".bin")));
+    }
+
+    @Test
+    void shouldFindReservationsStartingInRange() throws DataException, IOException {
+        add(LocalDate.of(2030, 1, 1));
+        add(LocalDate.of(2030, 2, 1));
+        add(LocalDate.of(2030, 3, 1));
+
+        List<Reservation> reservations = repository.findByHostIdStartingBetween(HOST_ID,
+                LocalDate.of(2030, 1, 1), LocalDate.of(2030, 2, 15));
+
+        assertEquals(List.of(2, 3), reservations.stream().map(Reservation::getId).toList());
+        assertTrue(repository.findByHostIdStartingBetween(HOST_ID,
+                LocalDate.of(2031, 1, 1), LocalDate.of(2031, 2, 1)).isEmpty());
+    }
+
+    @Test
+    void shouldUpdateInPlaceAndReorderWhenStartMoves() throws DataException, IOException {
+        Reservation first = add(LocalDate.of(2030, 1, 1));
+        add(LocalDate.of(2030, 2, 1));
+
+        first.setTotal(new BigDecimal("123.45"));
+        assertTrue(repository.update(first));
+        assertEquals(new BigDecimal("123.45"), repository.findByHostId(HOST_ID).get(1).getTotal());
+
+        first.setStartDate(LocalDate.of(2030, 3, 1));
+        first.setEndDate(LocalDate.of(2030, 3, 3));
+        assertTrue(repository.update(first));
+        assertEquals(first.getId(), repository.findByHostId(HOST_ID).get(2).getId());
+    }
+
+    @Test
+    void shouldNotReuseDeletedIds() throws DataException, IOException {
+        Reservation added = add(LocalDate.of(2030, 1, 1));
+        assertTrue(repository.delete(added));
+        assertFalse(repository.delete(added));
+
+        assertEquals(added.getId() + 1, add(LocalDate.of(2030, 2, 1)).getId());
+    }
+
+    @Test
+    void shouldMoveTheVersionWhenAnotherRepositoryWritesTheFile() throws DataException, IOException {
+        add(LocalDate.of(2030, 1, 1));
+        long version = repository.getVersion(HOST_ID);
+
+        Host host = hostRepository.findById(HOST_ID);
+        Guest guest = guestRepository.findById(18);
+        new ReservationBinaryRepository(tempDir.resolve("bin").toString(), guestRepository, hostRepository)
+                .add(new Reservation(0, LocalDate.of(2030, 2, 1), LocalDate.of(2030, 2, 3), guest, host, 18,
+                        new BigDecimal("600")));
+
+        assertTrue(repository.getVersion(HOST_ID) > version);
+    }
+
+    @Test
+    void loadAllShouldResolveEveryHost() throws DataException {
+        Map<String, List<Reservation>> loaded = repository.loadAll();
+
+        assertEquals(3, loaded.size());
+        assertEquals(repository.findByHostId(HOST_ID).size(), loaded.get(HOST_ID).size());
+        assertEquals(HOST_ID, loaded.get(HOST_ID).get(0).getHost().getId());
+    }
+
+    @Test
+    void loadAllShouldThrowForACorruptFile() throws IOException {
+        Files.write(tempDir.resolve("bin").resolve("corrupt-host" + BinaryReservationFile.EXTENSION), new byte[]{1, 2, 3});
+
+        assertThrows(DataException.class, repository::loadAll);
+    }
+
+    @Test
+    void loadAllShouldThrowWhenGuestsCannotBeRead() {
+        ReservationBinaryRepository unreadable = new ReservationBinaryRepository(tempDir.resolve("bin").toString(),
+                new GuestFileRepository("./data/missing_guests.csv"), hostRepository);
+
+        assertThrows(DataException.class, unreadable::loadAll);
+    }
+
+    @Test
+    void shouldRefuseTotalsWithFractionsOfACent() throws DataException, IOException {
+        Host host = hostRepository.findById(HOST_ID);
+        Guest guest = guestRepository.findById(18);
+        int before = repository.findByHostId(HOST_ID).size();
+
+        DataException thrown = assertThrows(DataException.class, () -> repository.add(new Reservation(0,
+                LocalDate.of(2030, 1, 1), LocalDate.of(2030, 1, 3), guest, host, 18, new BigDecimal("90.025"))));
+
+        assertTrue(thrown.getMessage().contains("90.025"));
+        assertEquals(before, repository.findByHostId(HOST_ID).size());
+    }
+
+    @Test
+    void conversionShouldFailRatherThanRoundATotal() throws IOException {
+        Path csv = Files.createDirectory(tempDir.resolve("fractional"));
+        Files.writeString(csv.resolve(HOST_ID + ".csv"), ReservationFileRepository.HEADER + "\n" +
+                "1,2030-01-01,2030-01-03,18,90.025\n");
+
+        assertThrows(DataException.class, () -> ReservationFormatConverter.csvToBinary(csv.toString(),
+                tempDir.resolve("fractional-bin").toString()));
+    }
+
+    @Test
+    void shouldConvertBackToCsv() throws DataException, IOException {
+        Path csv = tempDir.resolve("csv");
+        assertEquals(3, ReservationFormatConverter.binaryToCsv(tempDir.resolve("bin").toString(), csv.toString()));
+
+        List<Reservation> reservations = new ReservationFileRepository(csv.toString(), guestRepository, hostRepository)
+                .findByHostId("bzzzz829-c663-48fc-8bf3-7fca47a7a333");
+        assertEquals(21, reservations.size());
+        assertEquals(0, new BigDecimal("100").compareTo(reservations.get(13).getTotal()));
+    }
+
+    private Reservation add(LocalDate start) throws DataException, IOException {
+        Host host = hostRepository.findById(HOST_ID);
+        Guest guest = guestRepository.findById(18);
+        return repository.add(new Reservation(0, start, start.plusDays(2), guest, host, 18, new BigDecimal("600")));
+    }
+}
@@ -0,0 +1,41 @@
+package learn.mastery.data;
+
+import learn.mastery.models.Reservation;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReservationCacheTest {
+    static final String EXISTING_FILE_PATH = "./data/hosts_test.csv";
+
+    private FileStamp stamp() {
+        FileStamp stamp = new FileStamp(EXISTING_FILE_PATH);
+        stamp.hasChanged();
+        return stamp;
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedHost() {
+        ReservationCache cache = new ReservationCache(2);
+        List<Reservation> empty = List.of();
+
+        cache.put("a", empty, stamp());
+        cache.put("b", empty, stamp());
+        assertNotNull(cache.get("a"));
+        cache.put("c", empty, stamp());
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+    }
+
+    @Test
+    void shouldNotCacheWhenCapacityIsZero() {
+        ReservationCache cache = new ReservationCache(0);
+        cache.put("a", List.of(), stamp());
+        assertNull(cache.get("a"));
+    }
+}
@@ -0,0 +1,109 @@
+package learn.mastery.data;
+
+import learn.mastery.models.Guest;
+import learn.mastery.models.Host;
+import learn.mastery.models.Reservation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationDatabaseRepositoryTest {
+    private static final String HOST_ID = "9d469342-ad0b-4f5a-8d28-e81e690ba29a";
+
+    private Database database;
+    private GuestDatabaseRepository guestRepository;
+    private HostDatabaseRepository hostRepository;
+    private ReservationDatabaseRepository repository;
+
+    @BeforeEach
+    void setUp(@TempDir Path tempDir) throws DataException {
+        database = new Database(tempDir.resolve("mastery").toString());
+        DatabaseImporter.importGuests(database, "./data/guests_test.csv");
+        DatabaseImporter.importHosts(database, "./data/hosts_test.csv");
+        assertEquals(23, DatabaseImporter.importReservations(database, "./data/reservations_test"));
+        guestRepository = new GuestDatabaseRepository(database);
+        hostRepository = new HostDatabaseRepository(database);
+        repository = new ReservationDatabaseRepository(database, guestRepository, hostRepository);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.close();
+    }
+
+    @Test
+    void shouldReadImportedReservations() {
+        List<Reservation> reservations = repository.findByHostId(HOST_ID);
+
+        assertEquals(1, reservations.size());
+        assertEquals(LocalDate.of(2020, 7, 1), reservations.get(0).getStartDate());
+        assertEquals(18, reservations.get(0).getGuest().getGuestId());
+        assertEquals(HOST_ID, reservations.get(0).getHost().getId());
+        assertEquals(21, repository.findByHostId("bzzzz829-c663-48fc-8bf3-7fca47a7a333").size());
+        assertTrue(repository.findByHostId("testing-fake-uuid-123").isEmpty());
+    }
+
+    @Test
+    void shouldFindOneReservationAndCheckExistence() {
+        Reservation reservation = repository.findOne("bzzzz829-c663-48fc-8bf3-7fca47a7a333", 2);
+
+        assertEquals(2, reservation.getId());
+        assertEquals(1, reservation.getGuest().getGuestId());
+        assertNull(repository.findOne(HOST_ID, 99999));
+        assertTrue(repository.existsForHost(HOST_ID));
+        assertFalse(repository.existsForHost("testing-fake-uuid-123"));
+    }
+
+    @Test
+    void shouldAddUpdateAndDelete() throws DataException, IOException {
+        Reservation added = add(LocalDate.of(2030, 1, 1));
+        assertEquals(2, added.getId());
+        assertEquals(2, repository.findByHostId(HOST_ID).size());
+
+        added.setTotal(new BigDecimal("650.00"));
+        assertTrue(repository.update(added));
+        assertEquals(new BigDecimal("650.00"), repository.findByHostId(HOST_ID).get(1).getTotal());
+
+        assertTrue(repository.delete(added));
+        assertFalse(repository.delete(added));
+        // the deleted id isn't handed out again
+        assertEquals(3, add(LocalDate.of(2030, 2, 1)).getId());
+    }
+
+    @Test
+    void shouldFindReservationsStartingInRange() throws DataException, IOException {
+        add(LocalDate.of(2030, 1, 1));
+        add(LocalDate.of(2030, 2, 1));
+
+        List<Reservation> reservations = repository.findByHostIdStartingBetween(HOST_ID,
+                LocalDate.of(2030, 1, 1), LocalDate.of(2030, 1, 31));
+
+        assertEquals(1, reservations.size());
+        assertEquals(2, reservations.get(0).getId());
+    }
+
+    @Test
+    void conditionalWritesShouldFailOnceTheVersionMoves() throws DataException, IOException {
+        long version = repository.getVersion(HOST_ID);
+        add(LocalDate.of(2030, 1, 1));
+
+        Reservation reservation = new Reservation(0, LocalDate.of(2030, 2, 1), LocalDate.of(2030, 2, 3),
+                guestRepository.findById(18), hostRepository.findById(HOST_ID), 18, new BigDecimal("600"));
+        assertThrows(StaleVersionException.class, () -> repository.add(reservation, version));
+    }
+
+    private Reservation add(LocalDate start) throws DataException, IOException {
+        Host host = hostRepository.findById(HOST_ID);
+        Guest guest = guestRepository.findById(18);
+        return repository.add(new Reservation(0, start, start.plusDays(2), guest, host, 18, new BigDecimal("600")));
+    }
+}
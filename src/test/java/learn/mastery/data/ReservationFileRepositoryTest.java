@@ -3,13 +3,28 @@ package learn.mastery.data;
 import learn.mastery.models.Guest;
 import learn.mastery.models.Host;
 import learn.mastery.models.Reservation;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -17,16 +32,32 @@ public class ReservationFileRepositoryTest {
     private ReservationFileRepository repository;
     private GuestFileRepository guestRepository;
     private HostFileRepository hostRepository;
+    private Path reservationsDir;
 
+    // the tests that add, update and delete work on a copy, so ./data/reservations_test stays as checked in
     @BeforeEach
-    void setUp() {
+    void setUp() throws IOException {
         String guestsFilePath = "./data/guests_test.csv";
         String hostsFilePath = "./data/hosts_test.csv";
-        String reservationsDirPath = "./data/reservations_test";
+        reservationsDir = Files.createTempDirectory("reservations_test");
+        try (Stream<Path> files = Files.list(Paths.get("./data/reservations_test"))) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.copy(file, reservationsDir.resolve(file.getFileName()));
+            }
+        }
 
         guestRepository = new GuestFileRepository(guestsFilePath);
         hostRepository = new HostFileRepository(hostsFilePath);
-        repository = new ReservationFileRepository(reservationsDirPath, guestRepository, hostRepository);
+        repository = new ReservationFileRepository(reservationsDir.toString(), guestRepository, hostRepository);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(reservationsDir)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
     }
 
 
@@ -104,5 +135,474 @@ public class ReservationFileRepositoryTest {
         List<Reservation> reservationsAfterDeletion = repository.findByHostId("test-host-id");
         assertFalse(reservationsAfterDeletion.contains(addedReservation), "Deleted reservation should not be in the list.");
     }
-}
 
+    @Test
+    void findByHostIdShouldReturnCopiesThatDoNotChangeTheCache() {
+        String hostId = "9d469342-ad0b-4f5a-8d28-e81e690ba29a";
+
+        Reservation first = repository.findByHostId(hostId).get(0);
+        LocalDate originalEnd = first.getEndDate();
+        first.setEndDate(originalEnd.plusDays(30));
+
+        Reservation second = repository.findByHostId(hostId).get(0);
+        assertNotSame(first, second);
+        assertEquals(originalEnd, second.getEndDate());
+    }
+
+    @Test
+    void findByHostIdShouldSeeChangesMadeOutsideTheRepository(@TempDir Path tempDir) throws IOException {
+        String hostId = "9d469342-ad0b-4f5a-8d28-e81e690ba29a";
+        Path file = tempDir.resolve(hostId + ".csv");
+        Files.copy(Paths.get("./data/reservations_test", hostId + ".csv"), file);
+        ReservationFileRepository tempRepository = new ReservationFileRepository(tempDir.toString(),
+                guestRepository, hostRepository, 2);
+
+        assertEquals(1, tempRepository.findByHostId(hostId).size());
+
+        Files.writeString(file, "\n2,2020-08-01,2020-08-03,18,600", StandardOpenOption.APPEND);
+
+        assertEquals(2, tempRepository.findByHostId(hostId).size());
+    }
+
+    @Test
+    void shouldReplaceFileWithoutLeavingTempFiles(@TempDir Path tempDir) throws DataException, IOException {
+        String hostId = "9d469342-ad0b-4f5a-8d28-e81e690ba29a";
+        Files.copy(Paths.get("./data/reservations_test", hostId + ".csv"), tempDir.resolve(hostId + ".csv"));
+        ReservationFileRepository tempRepository = new ReservationFileRepository(tempDir.toString(),
+                guestRepository, hostRepository);
+
+        Reservation reservation = tempRepository.findByHostId(hostId).get(0);
+        reservation.setTotal(new BigDecimal("999.99"));
+        assertTrue(tempRepository.update(reservation));
+
+        List<String> lines = Files.readAllLines(tempDir.resolve(hostId + ".csv"));
+        assertEquals(List.of("id,start_date,end_date,guest_id,total", "1,2020-07-01,2020-07-02,18,999.99"), lines);
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void shouldThrowDataExceptionWhenFileCannotBeWritten(@TempDir Path tempDir) throws IOException {
+        Host host = hostRepository.findById("9d469342-ad0b-4f5a-8d28-e81e690ba29a");
+        Guest guest = guestRepository.findById(18);
+        ReservationFileRepository missingDirectory = new ReservationFileRepository(
+                tempDir.resolve("missing").toString(), guestRepository, hostRepository);
+        Reservation reservation = new Reservation(0, LocalDate.of(2030, 1, 1), LocalDate.of(2030, 1, 3),
+                guest, host, 18, new BigDecimal("600"));
+
+        DataException ex = assertThrows(DataException.class, () -> missingDirectory.add(reservation));
+        assertTrue(ex.getMessage().contains(host.getId()));
+    }
+
+    @Test
+    void appendOnlyModeShouldAppendOneLinePerChangeAndFoldOnRead(@TempDir Path tempDir) throws DataException, IOException {
+        String hostId = "9d469342-ad0b-4f5a-8d28-e81e690ba29a";
+        Path file = tempDir.resolve(hostId + ".csv");
+        Files.copy(Paths.get("./data/reservations_test", hostId + ".csv"), file);
+        ReservationFileRepository appendOnly = new ReservationFileRepository(tempDir.toString(),
+                guestRepository, hostRepository, 256, true);
+        Host host = hostRepository.findById(hostId);
+        Guest guest = guestRepository.findById(18);
+
+        Reservation added = appendOnly.add(new Reservation(0, LocalDate.of(2030, 1, 1), LocalDate.of(2030, 1, 3),
+                guest, host, 18, new BigDecimal("600")));
+        added.setTotal(new BigDecimal("650"));
+        assertTrue(appendOnly.update(added));
+        assertTrue(appendOnly.delete(appendOnly.findByHostId(hostId).get(0)));
+        appendOnly.close();
+
+        assertEquals(5, Files.readAllLines(file).size());
+
+        // a fresh repository has to fold the log from disk
+        List<Reservation> reservations = new ReservationFileRepository(tempDir.toString(),
+                guestRepository, hostRepository, 0, true).findByHostId(hostId);
+        assertEquals(1, reservations.size());
+        assertEquals(2, reservations.get(0).getId());
+        assertEquals(new BigDecimal("650"), reservations.get(0).getTotal());
+    }
+
+    @Test
+    void appendOnlyModeShouldCompactMostlyDeadFiles(@TempDir Path tempDir) throws DataException, IOException {
+        String hostId = "9d469342-ad0b-4f5a-8d28-e81e690ba29a";
+        Path file = tempDir.resolve(hostId + ".csv");
+        Files.copy(Paths.get("./data/reservations_test", hostId + ".csv"), file);
+        ReservationFileRepository appendOnly = new ReservationFileRepository(tempDir.toString(),
+                guestRepository, hostRepository, 256, true);
+        Host host = hostRepository.findById(hostId);
+        Guest guest = guestRepository.findById(18);
+
+        Reservation reservation = appendOnly.add(new Reservation(0, LocalDate.of(2030, 1, 1),
+                LocalDate.of(2030, 1, 3), guest, host, 18, new BigDecimal("600")));
+        for (int i = 0; i < 20; i++) {
+            reservation.setTotal(new BigDecimal(700 + i));
+            appendOnly.update(reservation);
+        }
+        appendOnly.close();
+        appendOnly.compact(hostId);
+
+        assertEquals(3, Files.readAllLines(file).size());
+        assertEquals(new BigDecimal("719"), appendOnly.findByHostId(hostId).get(1).getTotal());
+    }
+
+    @Test
+    void concurrentAddsToOneHostShouldAllBeSavedWithUniqueIds(@TempDir Path tempDir) throws Exception {
+        String hostId = "9d469342-ad0b-4f5a-8d28-e81e690ba29a";
+        Files.copy(Paths.get("./data/reservations_test", hostId + ".csv"), tempDir.resolve(hostId + ".csv"));
+        ReservationFileRepository tempRepository = new ReservationFileRepository(tempDir.toString(),
+                guestRepository, hostRepository);
+        Host host = hostRepository.findById(hostId);
+        Guest guest = guestRepository.findById(18);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Reservation>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            LocalDate start = LocalDate.of(2030, 1, 1).plusDays(i * 3L);
+            futures.add(executor.submit(() -> {
+                try {
+                    return tempRepository.add(new Reservation(0, start, start.plusDays(2),
+                            guest, host, 18, new BigDecimal("600")));
+                } catch (DataException e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+        }
+        HashSet<Integer> ids = new HashSet<>();
+        for (Future<Reservation> future : futures) {
+            ids.add(future.get().getId());
+        }
+        executor.shutdown();
+
+        assertEquals(20, ids.size());
+        assertEquals(21, new ReservationFileRepository(tempDir.toString(), guestRepository, hostRepository, 0)
+                .findByHostId(hostId).size());
+    }
+
+    @Test
+    void conditionalWritesShouldFailOnceTheVersionMoves(@TempDir Path tempDir) throws DataException, IOException {
+        String hostId = "9d469342-ad0b-4f5a-8d28-e81e690ba29a";
+        Files.copy(Paths.get("./data/reservations_test", hostId + ".csv"), tempDir.resolve(hostId + ".csv"));
+        ReservationFileRepository tempRepository = new ReservationFileRepository(tempDir.toString(),
+                guestRepository, hostRepository);
+        Host host = hostRepository.findById(hostId);
+        Guest guest = guestRepository.findById(18);
+
+        long version = tempRepository.getVersion(hostId);
+        Reservation added = tempRepository.add(new Reservation(0, LocalDate.of(2030, 1, 1),
+                LocalDate.of(2030, 1, 3), guest, host, 18, new BigDecimal("600")), version);
+        assertEquals(version + 1, tempRepository.getVersion(hostId));
+
+        added.setTotal(new BigDecimal("650"));
+        StaleVersionException ex = assertThrows(StaleVersionException.class,
+                () -> tempRepository.update(added, version));
+        assertEquals(version + 1, ex.getActualVersion());
+        assertTrue(tempRepository.update(added, version + 1));
+        assertEquals(new BigDecimal("650"), tempRepository.findByHostId(hostId).get(1).getTotal());
+    }
+
+    @Test
+    void addShouldNotReuseTheIdOfADeletedReservation(@TempDir Path tempDir) throws DataException, IOException {
+        String hostId = "9d469342-ad0b-4f5a-8d28-e81e690ba29a";
+        Files.copy(Paths.get("./data/reservations_test", hostId + ".csv"), tempDir.resolve(hostId + ".csv"));
+        ReservationFileRepository tempRepository = new ReservationFileRepository(tempDir.toString(),
+                guestRepository, hostRepository);
+        Host host = hostRepository.findById(hostId);
+        Guest guest = guestRepository.findById(18);
+
+        Reservation first = tempRepository.add(new Reservation(0, LocalDate.of(2030, 1, 1),
+                LocalDate.of(2030, 1, 3), guest, host, 18, new BigDecimal("600")));
+        assertEquals(2, first.getId());
+        assertTrue(tempRepository.delete(first));
+
+        Reservation second = tempRepository.add(new Reservation(0, LocalDate.of(2030, 2, 1),
+                LocalDate.of(2030, 2, 3), guest, host, 18, new BigDecimal("600")));
+        assertEquals(3, second.getId());
+    }
+
+    @Test
+    void findByGuestIdShouldScanEveryHostWithoutAnIndex() {
+        List<Reservation> reservations = repository.findByGuestId(18);
+
+        assertEquals(1, reservations.size());
+        assertEquals("9d469342-ad0b-4f5a-8d28-e81e690ba29a", reservations.get(0).getHost().getId());
+        assertTrue(repository.findByGuestId(99999).isEmpty());
+    }
+
+    @Test
+    void findByGuestIdShouldUseAndMaintainTheGuestIndex(@TempDir Path tempDir) throws DataException, IOException {
+        Path reservations = Files.createDirectory(tempDir.resolve("reservations"));
+        try (Stream<Path> files = Files.list(Paths.get("./data/reservations_test"))) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.copy(file, reservations.resolve(file.getFileName()));
+            }
+        }
+        Path indexFile = tempDir.resolve("guest-reservations.csv");
+        ReservationFileRepository indexed = new ReservationFileRepository(reservations.toString(),
+                guestRepository, hostRepository, 256, false, new GuestReservationIndex(indexFile.toString()));
+
+        // built from the files on first use
+        assertEquals(21, indexed.findByGuestId(1).size());
+        assertTrue(Files.exists(indexFile));
+
+        String hostId = "9d469342-ad0b-4f5a-8d28-e81e690ba29a";
+        Reservation added = indexed.add(new Reservation(0, LocalDate.of(2030, 1, 1), LocalDate.of(2030, 1, 3),
+                guestRepository.findById(18), hostRepository.findById(hostId), 18, new BigDecimal("600")));
+        assertEquals(2, indexed.findByGuestId(18).size());
+
+        added.setGuest(guestRepository.findById(1));
+        added.setGuestId(1);
+        assertTrue(indexed.update(added));
+        assertEquals(1, indexed.findByGuestId(18).size());
+        assertEquals(22, indexed.findByGuestId(1).size());
+
+        assertTrue(indexed.delete(added));
+        assertEquals(21, indexed.findByGuestId(1).size());
+        assertEquals(23, indexed.rebuildGuestIndex());
+    }
+
+    @Test
+    void loadAllShouldMatchFindByHostIdForEveryHost() throws DataException {
+        repository.setLoadParallelism(2);
+
+        Map<String, List<Reservation>> loaded = repository.loadAll();
+
+        assertEquals(List.of("9d469342-ad0b-4f5a-8d28-e81e690ba29a", "bzzzz829-c663-48fc-8bf3-7fca47a7a333",
+                "testing-123-add"), new ArrayList<>(loaded.keySet()));
+        for (Map.Entry<String, List<Reservation>> entry : loaded.entrySet()) {
+            assertEquals(ids(repository.findByHostId(entry.getKey())), ids(entry.getValue()));
+        }
+        assertTrue(loaded.get("bzzzz829-c663-48fc-8bf3-7fca47a7a333").stream()
+                .allMatch(reservation -> reservation.getGuest() != null && reservation.getHost() != null));
+        assertEquals(loaded.values().stream().mapToInt(List::size).sum(), repository.streamAll().count());
+    }
+
+    @Test
+    void loadAllShouldThrowWhenGuestsCannotBeRead() {
+        ReservationFileRepository unreadable = new ReservationFileRepository(reservationsDir.toString(),
+                new GuestFileRepository("./data/missing_guests.csv"), hostRepository);
+
+        assertThrows(DataException.class, unreadable::loadAll);
+    }
+
+    @Test
+    void loadAllShouldThrowWhenAHostFileCannotBeRead() throws IOException {
+        // a directory with a host file's name shows up in the listing but can't be read as a file
+        Files.createDirectory(reservationsDir.resolve("unreadable-host.csv"));
+
+        assertThrows(DataException.class, repository::loadAll);
+    }
+
+    @Test
+    void setLoadParallelismShouldRejectLessThanOne() {
+        assertThrows(IllegalArgumentException.class, () -> repository.setLoadParallelism(0));
+    }
+
+    @Test
+    void forEachByHostIdShouldStopWhenTheVisitorDoes() {
+        String hostId = "bzzzz829-c663-48fc-8bf3-7fca47a7a333";
+        List<Integer> visited = new ArrayList<>();
+
+        repository.forEachByHostId(hostId, reservation -> {
+            visited.add(reservation.getId());
+            return visited.size() < 3;
+        });
+
+        assertEquals(ids(repository.findByHostId(hostId)).subList(0, 3), visited);
+    }
+
+    @Test
+    void forEachByHostIdShouldLookUpGuestsInGrowingBatches() {
+        String hostId = "bzzzz829-c663-48fc-8bf3-7fca47a7a333";
+        int[] findByIdCalls = {0};
+        List<Set<Integer>> lookups = new ArrayList<>();
+        GuestFileRepository counting = new GuestFileRepository("./data/guests_test.csv") {
+            @Override
+            public Guest findById(int guestId) throws IOException {
+                findByIdCalls[0]++;
+                return super.findById(guestId);
+            }
+
+            @Override
+            public Map<Integer, Guest> findByIds(Set<Integer> guestIds) throws IOException {
+                lookups.add(Set.copyOf(guestIds));
+                return super.findByIds(guestIds);
+            }
+        };
+        ReservationFileRepository uncached = new ReservationFileRepository(reservationsDir.toString(), counting,
+                hostRepository, 0);
+        List<Integer> visited = new ArrayList<>();
+
+        uncached.forEachByHostId(hostId, reservation -> visited.add(reservation.getId()));
+
+        assertEquals(ids(repository.findByHostId(hostId)), visited);
+        assertEquals(0, findByIdCalls[0]);
+        // 21 rows come in batches of 1, 2, 4, 8 and 6, and only a batch with a new guest looks anything up
+        assertTrue(lookups.size() <= 5);
+
+        lookups.clear();
+        assertTrue(uncached.existsForHost(hostId));
+        assertNotNull(uncached.findOne(hostId, visited.get(0)));
+        assertEquals(2, lookups.size());
+        assertEquals(1, lookups.get(0).size());
+        assertEquals(1, lookups.get(1).size());
+    }
+
+    @Test
+    void existsForHostShouldMatchFindByHostId() {
+        assertTrue(repository.existsForHost("9d469342-ad0b-4f5a-8d28-e81e690ba29a"));
+        assertFalse(repository.existsForHost("testing-fake-uuid-123"));
+        // rows on file, but the host isn't in hosts_test.csv, so findByHostId is empty too
+        assertFalse(repository.existsForHost("testing-123-add"));
+    }
+
+    @Test
+    void findOneShouldReturnOnlyTheMatchingReservation() {
+        String hostId = "bzzzz829-c663-48fc-8bf3-7fca47a7a333";
+
+        Reservation reservation = repository.findOne(hostId, 2);
+
+        assertNotNull(reservation);
+        assertEquals(2, reservation.getId());
+        assertEquals(hostId, reservation.getHost().getId());
+        assertNotNull(reservation.getGuest());
+        assertNull(repository.findOne(hostId, 99999));
+    }
+
+    @Test
+    void findOneShouldSeeTheFoldedRowInAppendOnlyMode(@TempDir Path tempDir) throws DataException, IOException {
+        String hostId = "9d469342-ad0b-4f5a-8d28-e81e690ba29a";
+        Files.copy(Paths.get("./data/reservations_test", hostId + ".csv"), tempDir.resolve(hostId + ".csv"));
+        ReservationFileRepository appendOnly = new ReservationFileRepository(tempDir.toString(),
+                guestRepository, hostRepository, 0, true);
+
+        Reservation added = appendOnly.add(new Reservation(0, LocalDate.of(2030, 1, 1), LocalDate.of(2030, 1, 3),
+                guestRepository.findById(18), hostRepository.findById(hostId), 18, new BigDecimal("600")));
+        added.setTotal(new BigDecimal("650"));
+        assertTrue(appendOnly.update(added));
+        assertEquals(new BigDecimal("650"), appendOnly.findOne(hostId, added.getId()).getTotal());
+
+        assertTrue(appendOnly.delete(added));
+        assertNull(appendOnly.findOne(hostId, added.getId()));
+        appendOnly.close();
+    }
+
+    @Test
+    void reservationsShouldShareOneHostAndGuestInstance() {
+        ReservationFileRepository shared = new ReservationFileRepository("./data/reservations_test",
+                new CachedGuestRepository(guestRepository), new CachedHostRepository(hostRepository));
+        String hostId = "bzzzz829-c663-48fc-8bf3-7fca47a7a333";
+
+        List<Reservation> first = shared.findByHostId(hostId);
+        List<Reservation> second = shared.findByHostId(hostId);
+
+        assertEquals(21, first.size());
+        for (Reservation reservation : first) {
+            assertSame(first.get(0).getHost(), reservation.getHost());
+            assertSame(first.get(0).getGuest(), reservation.getGuest());
+        }
+        assertSame(first.get(0).getHost(), second.get(0).getHost());
+        assertSame(first.get(0).getGuest(), shared.findOne(hostId, 5).getGuest());
+        // callers still get their own Reservation objects
+        assertNotSame(first.get(0), second.get(0));
+    }
+
+    @Test
+    void writesShouldKeepRowsWhoseHostCannotBeResolved(@TempDir Path tempDir) throws DataException, IOException {
+        Path file = tempDir.resolve("testing-123-add.csv");
+        Files.copy(Paths.get("./data/reservations_test/testing-123-add.csv"), file);
+        ReservationFileRepository unresolved = new ReservationFileRepository(tempDir.toString(),
+                guestRepository, hostRepository);
+        Host host = new Host("testing-123-add", "AddTest", "Addtest@hoster.com", "(444) 2930495", "1 TestHost Rd",
+                "Chino Hills", "CA", "91709", new BigDecimal("200.00"), new BigDecimal("250.00"));
+
+        unresolved.add(new Reservation(0, LocalDate.of(2030, 1, 1), LocalDate.of(2030, 1, 3),
+                guestRepository.findById(12), host, 12, new BigDecimal("600.00")));
+
+        // the host isn't in hosts_test.csv, so nothing comes back, but the first row is still on disk
+        assertTrue(unresolved.findByHostId("testing-123-add").isEmpty());
+        assertEquals(3, Files.readAllLines(file).size());
+    }
+
+    @Test
+    void getVersionShouldMoveWhenTheFileIsChangedOnDisk() throws DataException, IOException {
+        String hostId = "9d469342-ad0b-4f5a-8d28-e81e690ba29a";
+        Host host = hostRepository.findById(hostId);
+        Guest guest = guestRepository.findById(18);
+        long version = repository.getVersion(hostId);
+
+        // another process adds a line to the file
+        Files.writeString(reservationsDir.resolve(hostId + ".csv"), "99,2030-05-01,2030-05-03,18,600\n",
+                StandardOpenOption.APPEND);
+        long changed = repository.getVersion(hostId);
+        assertTrue(changed > version);
+        assertEquals(changed, repository.getVersion(hostId));
+
+        // our own writes still count once
+        repository.add(new Reservation(0, LocalDate.of(2030, 6, 1), LocalDate.of(2030, 6, 3), guest, host, 18,
+                new BigDecimal("600")));
+        assertEquals(changed + 1, repository.getVersion(hostId));
+    }
+
+    @Test
+    void rereadingAChangedFileShouldMoveTheVersionOnce() throws IOException {
+        String hostId = "9d469342-ad0b-4f5a-8d28-e81e690ba29a";
+        long version = repository.getVersion(hostId);
+        int before = repository.findByHostId(hostId).size();
+
+        Files.writeString(reservationsDir.resolve(hostId + ".csv"), "99,2030-05-01,2030-05-03,18,600\n",
+                StandardOpenOption.APPEND);
+        assertEquals(before + 1, repository.findByHostId(hostId).size());
+        assertEquals(version + 1, repository.getVersion(hostId));
+    }
+
+    @Test
+    void addAllShouldSaveTheBatchInOneChangeWithSequentialIds() throws DataException, IOException {
+        String hostId = "9d469342-ad0b-4f5a-8d28-e81e690ba29a";
+        Host host = hostRepository.findById(hostId);
+        Guest guest = guestRepository.findById(18);
+        int before = repository.findByHostId(hostId).size();
+        long version = repository.getVersion(hostId);
+
+        List<Reservation> added = repository.addAll(hostId, List.of(
+                new Reservation(0, LocalDate.of(2030, 1, 1), LocalDate.of(2030, 1, 3), guest, host, 18,
+                        new BigDecimal("600")),
+                new Reservation(0, LocalDate.of(2030, 2, 1), LocalDate.of(2030, 2, 3), guest, host, 18,
+                        new BigDecimal("600"))));
+
+        assertEquals(added.get(0).getId() + 1, added.get(1).getId());
+        assertEquals(version + 1, repository.getVersion(hostId));
+        List<Reservation> reservations = new ReservationFileRepository(reservationsDir.toString(),
+                guestRepository, hostRepository).findByHostId(hostId);
+        assertEquals(before + 2, reservations.size());
+        assertTrue(ids(reservations).containsAll(ids(added)));
+    }
+
+    @Test
+    void addAllShouldAppendEveryRowInAppendOnlyMode(@TempDir Path tempDir) throws DataException, IOException {
+        String hostId = "9d469342-ad0b-4f5a-8d28-e81e690ba29a";
+        Path file = tempDir.resolve(hostId + ".csv");
+        Files.copy(Paths.get("./data/reservations_test", hostId + ".csv"), file);
+        ReservationFileRepository appendOnly = new ReservationFileRepository(tempDir.toString(),
+                guestRepository, hostRepository, 256, true);
+        Host host = hostRepository.findById(hostId);
+        Guest guest = guestRepository.findById(18);
+        int lines = Files.readAllLines(file).size();
+
+        appendOnly.addAll(hostId, List.of(
+                new Reservation(0, LocalDate.of(2030, 1, 1), LocalDate.of(2030, 1, 3), guest, host, 18,
+                        new BigDecimal("600")),
+                new Reservation(0, LocalDate.of(2030, 2, 1), LocalDate.of(2030, 2, 3), guest, host, 18,
+                        new BigDecimal("600"))));
+        appendOnly.close();
+
+        assertEquals(lines + 2, Files.readAllLines(file).size());
+        assertEquals(3, new ReservationFileRepository(tempDir.toString(), guestRepository, hostRepository, 0, true)
+                .findByHostId(hostId).size());
+    }
+
+    private static List<Integer> ids(List<Reservation> reservations) {
+        List<Integer> ids = new ArrayList<>();
+        reservations.forEach(reservation -> ids.add(reservation.getId()));
+        return ids;
+    }
+}
@@ -0,0 +1,57 @@
+package learn.mastery.data;
+
+import learn.mastery.models.ReservationImportRow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationImportFileTest {
+
+    @Test
+    void shouldReadCsvRowsWithTheirLineNumbers(@TempDir Path tempDir) throws IOException, DataException {
+        Path file = tempDir.resolve("import.csv");
+        Files.writeString(file, "host_email,guest_email,start_date,end_date\r\n" +
+                "host@example.com, guest@example.com ,2030-01-01,2030-01-03\r\n" +
+                "\r\n" +
+                "host@example.com,2030-01-01\r\n");
+
+        List<ReservationImportRow> rows = ReservationImportFile.read(file.toString());
+
+        assertEquals(2, rows.size());
+        assertEquals(2, rows.get(0).getLineNumber());
+        assertEquals("guest@example.com", rows.get(0).getGuestEmail());
+        assertEquals("2030-01-03", rows.get(0).getEndDate());
+        assertNull(rows.get(0).getProblem());
+        assertEquals(4, rows.get(1).getLineNumber());
+        assertEquals("Expected 4 fields but found 2.", rows.get(1).getProblem());
+    }
+
+    @Test
+    void shouldReadJsonLines(@TempDir Path tempDir) throws IOException, DataException {
+        Path file = tempDir.resolve("import.jsonl");
+        Files.writeString(file, "{\"hostEmail\": \"host@example.com\", \"guestEmail\": \"guest@example.com\", " +
+                "\"startDate\": \"2030-01-01\", \"endDate\": \"2030-01-03\"}\n" +
+                "not json\n" +
+                "{\"hostEmail\": \"host@example.com\"}\n");
+
+        List<ReservationImportRow> rows = ReservationImportFile.read(file.toString());
+
+        assertEquals(3, rows.size());
+        assertEquals("host@example.com", rows.get(0).getHostEmail());
+        assertEquals("2030-01-01", rows.get(0).getStartDate());
+        assertNotNull(rows.get(1).getProblem());
+        assertNull(rows.get(2).getStartDate());
+    }
+
+    @Test
+    void shouldThrowDataExceptionForAMissingFile(@TempDir Path tempDir) {
+        assertThrows(DataException.class,
+                () -> ReservationImportFile.read(tempDir.resolve("missing.csv").toString()));
+    }
+}
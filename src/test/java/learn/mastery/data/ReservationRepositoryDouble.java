@@ -9,12 +9,19 @@ import java.time.LocalDate;
 import java.time.Month;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class ReservationRepositoryDouble implements ReservationRepository {
     private final List<Reservation> reservations = new ArrayList<>();
     private final GuestRepositoryDouble guestRepositoryDouble;
     private final HostRepositoryDouble hostRepositoryDouble;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long version;
 
     public ReservationRepositoryDouble(GuestRepositoryDouble guestRepositoryDouble, HostRepositoryDouble hostRepositoryDouble) throws IOException {
         this.guestRepositoryDouble = guestRepositoryDouble;
@@ -35,7 +42,7 @@ public class ReservationRepositoryDouble implements ReservationRepository {
     }
 
     @Override
-    public List<Reservation> findByHostId(String hostId) {
+    public synchronized List<Reservation> findByHostId(String hostId) {
         return reservations.stream()
                 .filter(reservation -> reservation.getHost().getId().equals(hostId))
                 .collect(Collectors.toList());
@@ -43,17 +50,38 @@ public class ReservationRepositoryDouble implements ReservationRepository {
 
 
     @Override
-    public Reservation add(Reservation reservation) {
+    public synchronized List<Reservation> findByGuestId(int guestId) {
+        return reservations.stream()
+                .filter(reservation -> reservation.getGuestId() == guestId)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public synchronized Map<String, List<Reservation>> loadAll() throws DataException {
+        return reservations.stream()
+                .collect(Collectors.groupingBy(reservation -> reservation.getHost().getId(), TreeMap::new,
+                        Collectors.toList()));
+    }
+
+    @Override
+    public synchronized Stream<Reservation> streamAll() {
+        return new ArrayList<>(reservations).stream();
+    }
+
+    @Override
+    public synchronized Reservation add(Reservation reservation) {
         reservation.setId(reservations.size() + 1);
         reservations.add(reservation);
+        version++;
         return reservation;
     }
 
     @Override
-    public boolean update(Reservation reservation) {
+    public synchronized boolean update(Reservation reservation) {
         for (int i = 0; i < reservations.size(); i++) {
             if (reservations.get(i).getId() == reservation.getId()) {
                 reservations.set(i, reservation);
+                version++;
                 return true;
             }
         }
@@ -61,7 +89,37 @@ public class ReservationRepositoryDouble implements ReservationRepository {
     }
 
     @Override
-    public boolean delete(Reservation reservation) {
-        return reservations.removeIf(r -> r.getId() == reservation.getId());
+    public synchronized boolean delete(Reservation reservation) {
+        boolean removed = reservations.removeIf(r -> r.getId() == reservation.getId());
+        if (removed) {
+            version++;
+        }
+        return removed;
+    }
+
+    @Override
+    public synchronized long getVersion(String hostId) {
+        return version;
+    }
+
+    @Override
+    public synchronized Reservation add(Reservation reservation, long expectedVersion) throws DataException {
+        if (version != expectedVersion) {
+            throw new StaleVersionException(reservation.getHost().getId(), expectedVersion, version);
+        }
+        return add(reservation);
+    }
+
+    @Override
+    public synchronized boolean update(Reservation reservation, long expectedVersion) throws DataException {
+        if (version != expectedVersion) {
+            throw new StaleVersionException(reservation.getHost().getId(), expectedVersion, version);
+        }
+        return update(reservation);
+    }
+
+    @Override
+    public ReadWriteLock lockFor(String hostId) {
+        return lock;
     }
 }
@@ -0,0 +1,92 @@
+package learn.mastery.domain;
+
+import learn.mastery.data.DataException;
+import learn.mastery.data.GuestRepositoryDouble;
+import learn.mastery.data.HostRepositoryDouble;
+import learn.mastery.data.ReservationRepositoryDouble;
+import learn.mastery.models.Guest;
+import learn.mastery.models.Host;
+import learn.mastery.models.Reservation;
+import learn.mastery.models.ReservationStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalyticsServiceTest {
+    private static final String JOHN = "3effa6vf-ab45-52a8-6462-d50x55h84b15";
+
+    private AnalyticsService service;
+    private ReservationRepositoryDouble reservationRepositoryDouble;
+    private HostRepositoryDouble hostRepositoryDouble;
+    private Guest guest;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        GuestRepositoryDouble guestRepositoryDouble = new GuestRepositoryDouble();
+        hostRepositoryDouble = new HostRepositoryDouble();
+        reservationRepositoryDouble = new ReservationRepositoryDouble(guestRepositoryDouble, hostRepositoryDouble);
+        service = new AnalyticsService(hostRepositoryDouble, reservationRepositoryDouble);
+        guest = guestRepositoryDouble.findByEmail("tester@test.com");
+    }
+
+    @Test
+    void shouldSplitAStayAcrossMonthsByTheHostsRates() throws IOException, DataException {
+        Host john = hostRepositoryDouble.findById(JOHN);
+        // wednesday january 30th through saturday february 2nd: 200.00 of rates in january, 250.00 in february
+        reservationRepositoryDouble.add(new Reservation(0, LocalDate.of(2030, 1, 30), LocalDate.of(2030, 2, 2),
+                guest, john, guest.getGuestId(), new BigDecimal("900.00")));
+
+        List<ReservationStats> report = service.report(LocalDate.of(2030, 1, 1), LocalDate.of(2030, 12, 31))
+                .getPayload();
+
+        ReservationStats total = find(report, "total", "all");
+        assertEquals(1, total.getReservations());
+        assertEquals(4, total.getBookedNights());
+        assertEquals(2 * 365, total.getAvailableNights());
+        assertEquals(1, total.getWeekendNights());
+        assertEquals(new BigDecimal("900.00"), total.getRevenue());
+        assertEquals(4.0, total.getAverageStay());
+
+        assertEquals(new BigDecimal("400.00"), find(report, "month", "2030-01").getRevenue());
+        assertEquals(new BigDecimal("500.00"), find(report, "month", "2030-02").getRevenue());
+        assertEquals(2 * 28, find(report, "month", "2030-02").getAvailableNights());
+        assertEquals(4.0 / 365, find(report, "host", JOHN).getOccupancyRate(), 1e-9);
+        assertEquals(0, find(report, "state", "TA").getBookedNights());
+        assertEquals(1 + 2 + 12 + 2, report.size());
+    }
+
+    @Test
+    void shouldCountOnlyNightsInsideTheRange() throws IOException, DataException {
+        Host john = hostRepositoryDouble.findById(JOHN);
+        reservationRepositoryDouble.add(new Reservation(0, LocalDate.of(2029, 12, 30), LocalDate.of(2030, 1, 2),
+                guest, john, guest.getGuestId(), null));
+
+        ReservationStats total = find(service.report(LocalDate.of(2030, 1, 1), LocalDate.of(2030, 1, 31))
+                .getPayload(), "total", "all");
+
+        // tuesday and wednesday at the standard rate; the stay's full length still counts toward the average
+        assertEquals(2, total.getBookedNights());
+        assertEquals(new BigDecimal("200.00"), total.getRevenue());
+        assertEquals(4.0, total.getAverageStay());
+    }
+
+    @Test
+    void shouldRejectBackwardsRange() throws IOException {
+        Result<List<ReservationStats>> result = service.report(LocalDate.of(2030, 2, 1), LocalDate.of(2030, 1, 1));
+
+        assertFalse(result.isSuccess());
+    }
+
+    private static ReservationStats find(List<ReservationStats> report, String scope, String key) {
+        return report.stream()
+                .filter(stats -> stats.getScope().equals(scope) && stats.getKey().equals(key))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,95 @@
+package learn.mastery.domain;
+
+import learn.mastery.models.Reservation;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AvailabilityIndexTest {
+    private static final LocalDate BASE = LocalDate.of(2030, 1, 1);
+
+    private Reservation reservation(int id, int startOffset, int endOffset) {
+        Reservation reservation = new Reservation();
+        reservation.setId(id);
+        reservation.setStartDate(BASE.plusDays(startOffset));
+        reservation.setEndDate(BASE.plusDays(endOffset));
+        return reservation;
+    }
+
+    @Test
+    void shouldTreatRangesAsInclusive() {
+        AvailabilityIndex index = new AvailabilityIndex(List.of(reservation(1, 10, 14)));
+
+        assertTrue(index.overlaps(BASE.plusDays(14), BASE.plusDays(16)));
+        assertTrue(index.overlaps(BASE.plusDays(5), BASE.plusDays(10)));
+        assertFalse(index.overlaps(BASE.plusDays(15), BASE.plusDays(16)));
+        assertFalse(index.overlaps(BASE.plusDays(5), BASE.plusDays(9)));
+    }
+
+    @Test
+    void shouldSkipExcludedReservation() {
+        AvailabilityIndex index = new AvailabilityIndex(List.of(reservation(1, 0, 30), reservation(2, 10, 14)));
+
+        assertTrue(index.overlapsExcept(BASE.plusDays(20), BASE.plusDays(22), 2));
+        assertFalse(index.overlapsExcept(BASE.plusDays(20), BASE.plusDays(22), 1));
+        assertTrue(index.overlapsExcept(BASE.plusDays(12), BASE.plusDays(13), 1));
+    }
+
+    @Test
+    void shouldStayCurrentAfterAddUpdateAndRemove() {
+        AvailabilityIndex index = new AvailabilityIndex(new ArrayList<>());
+        assertFalse(index.overlaps(BASE, BASE.plusDays(100)));
+
+        index.add(reservation(1, 10, 14));
+        assertTrue(index.contains(1));
+        assertTrue(index.overlaps(BASE.plusDays(12), BASE.plusDays(20)));
+
+        index.update(reservation(1, 40, 44));
+        assertFalse(index.overlaps(BASE.plusDays(12), BASE.plusDays(20)));
+        assertTrue(index.overlaps(BASE.plusDays(44), BASE.plusDays(50)));
+
+        index.remove(1);
+        assertFalse(index.contains(1));
+        assertFalse(index.overlaps(BASE, BASE.plusDays(100)));
+    }
+
+    @Test
+    void shouldMatchLinearScan() {
+        Random random = new Random(42);
+        List<Reservation> reservations = new ArrayList<>();
+        for (int id = 1; id <= 200; id++) {
+            int start = random.nextInt(2000);
+            reservations.add(reservation(id, start, start + 1 + random.nextInt(20)));
+        }
+        AvailabilityIndex index = new AvailabilityIndex(reservations);
+
+        for (int i = 0; i < 2000; i++) {
+            int start = random.nextInt(2100);
+            LocalDate queryStart = BASE.plusDays(start);
+            LocalDate queryEnd = BASE.plusDays(start + 1 + random.nextInt(20));
+            int excluded = random.nextInt(220);
+
+            boolean expected = reservations.stream()
+                    .filter(r -> r.getId() != excluded)
+                    .anyMatch(r -> !queryStart.isAfter(r.getEndDate()) && !queryEnd.isBefore(r.getStartDate()));
+
+            assertEquals(expected, index.overlapsExcept(queryStart, queryEnd, excluded));
+        }
+    }
+
+    @Test
+    void shouldMoveVersionForwardOncePerChange() {
+        AvailabilityIndex index = new AvailabilityIndex(List.of(reservation(1, 10, 14)), 5);
+
+        index.add(reservation(2, 20, 22));
+        index.update(reservation(2, 24, 26));
+        index.remove(1);
+
+        assertEquals(8, index.version());
+    }
+}
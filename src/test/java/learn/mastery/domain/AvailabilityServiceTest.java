@@ -0,0 +1,122 @@
+package learn.mastery.domain;
+
+import learn.mastery.data.DataException;
+import learn.mastery.data.GuestRepositoryDouble;
+import learn.mastery.data.HostRepositoryDouble;
+import learn.mastery.data.ReservationRepositoryDouble;
+import learn.mastery.models.AvailableHost;
+import learn.mastery.models.Reservation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AvailabilityServiceTest {
+    private static final String JOHN = "3effa6vf-ab45-52a8-6462-d50x55h84b15";
+    private static final String NO_RESERVATIONS = "xxxx-223-dfdada";
+
+    private AvailabilityService service;
+    private ReservationRepositoryDouble reservationRepositoryDouble;
+    private HostRepositoryDouble hostRepositoryDouble;
+    private GuestRepositoryDouble guestRepositoryDouble;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        guestRepositoryDouble = new GuestRepositoryDouble();
+        hostRepositoryDouble = new HostRepositoryDouble();
+        reservationRepositoryDouble = new ReservationRepositoryDouble(guestRepositoryDouble, hostRepositoryDouble);
+        service = new AvailabilityService(hostRepositoryDouble, reservationRepositoryDouble);
+    }
+
+    @Test
+    void shouldReturnFreeHostsCheapestFirst() throws IOException {
+        Result<List<AvailableHost>> result = service.findAvailableHosts(LocalDate.now().plusDays(10),
+                LocalDate.now().plusDays(14), null, null, null);
+
+        assertTrue(result.isSuccess());
+        assertEquals(List.of(NO_RESERVATIONS, JOHN), hostIds(result.getPayload()));
+        assertTrue(result.getPayload().get(0).getTotal().compareTo(result.getPayload().get(1).getTotal()) < 0);
+    }
+
+    @Test
+    void shouldLeaveOutBookedHostsAndApplyFilters() throws IOException {
+        LocalDate start = LocalDate.now().plusDays(202);
+        LocalDate end = LocalDate.now().plusDays(206);
+
+        assertEquals(List.of(NO_RESERVATIONS), hostIds(service.findAvailableHosts(start, end, null, null, null)
+                .getPayload()));
+        assertTrue(service.findAvailableHosts(start, end, "ca", null, null).getPayload().isEmpty());
+        assertEquals(List.of(JOHN), hostIds(service.findAvailableHosts(start.plusDays(5), end.plusDays(5), null,
+                "chino hills", null).getPayload()));
+        assertEquals(List.of(NO_RESERVATIONS), hostIds(service.findAvailableHosts(start.plusDays(5),
+                end.plusDays(5), null, null, new BigDecimal("100")).getPayload()));
+    }
+
+    @Test
+    void shouldSeeReservationsMadeAfterTheFirstSearch() throws IOException, DataException {
+        LocalDate start = LocalDate.now().plusDays(30);
+        LocalDate end = LocalDate.now().plusDays(32);
+        assertEquals(2, service.findAvailableHosts(start, end, null, null, null).getPayload().size());
+
+        Reservation reservation = new Reservation(0, start, end, guestRepositoryDouble.findByEmail("tester@test.com"),
+                hostRepositoryDouble.findById(NO_RESERVATIONS), 1, BigDecimal.TEN);
+        reservationRepositoryDouble.add(reservation);
+
+        assertEquals(List.of(JOHN), hostIds(service.findAvailableHosts(start, end, null, null, null).getPayload()));
+    }
+
+    @Test
+    void shouldNotTreatAFailedLoadAsNoReservations() throws IOException {
+        boolean[] failing = {true};
+        ReservationRepositoryDouble flaky = new ReservationRepositoryDouble(guestRepositoryDouble,
+                hostRepositoryDouble) {
+            @Override
+            public synchronized Map<String, List<Reservation>> loadAll() throws DataException {
+                if (failing[0]) {
+                    throw new DataException("disk unavailable");
+                }
+                return super.loadAll();
+            }
+        };
+        service = new AvailabilityService(hostRepositoryDouble, flaky);
+        LocalDate start = LocalDate.now().plusDays(202);
+        LocalDate end = LocalDate.now().plusDays(206);
+
+        Result<List<AvailableHost>> result = service.findAvailableHosts(start, end, null, null, null);
+        assertFalse(result.isSuccess());
+        assertTrue(result.getErrorMessages().get(0).contains("disk unavailable"));
+
+        failing[0] = false;
+        assertEquals(List.of(NO_RESERVATIONS), hostIds(service.findAvailableHosts(start, end, null, null, null)
+                .getPayload()));
+    }
+
+    @Test
+    void shouldCheckStaysPastTheHorizonAgainstTheReservations() throws IOException {
+        service.setHorizonDays(30);
+
+        Result<List<AvailableHost>> result = service.findAvailableHosts(LocalDate.now().plusDays(203),
+                LocalDate.now().plusDays(210), null, null, null);
+
+        assertEquals(List.of(NO_RESERVATIONS), hostIds(result.getPayload()));
+    }
+
+    @Test
+    void shouldRejectBadDates() throws IOException {
+        Result<List<AvailableHost>> result = service.findAvailableHosts(LocalDate.now().plusDays(5),
+                LocalDate.now().plusDays(5), null, null, null);
+
+        assertFalse(result.isSuccess());
+        assertEquals(List.of("Start date must come before end date."), result.getErrorMessages());
+    }
+
+    private static List<String> hostIds(List<AvailableHost> hosts) {
+        return hosts.stream().map(availableHost -> availableHost.getHost().getId()).toList();
+    }
+}
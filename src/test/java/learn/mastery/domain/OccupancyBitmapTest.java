@@ -0,0 +1,66 @@
+package learn.mastery.domain;
+
+import learn.mastery.models.Reservation;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OccupancyBitmapTest {
+    private static final LocalDate BASE = LocalDate.of(2030, 1, 1);
+    private static final long FIRST_DAY = BASE.toEpochDay();
+
+    private Reservation reservation(int startOffset, int endOffset) {
+        Reservation reservation = new Reservation();
+        reservation.setStartDate(BASE.plusDays(startOffset));
+        reservation.setEndDate(BASE.plusDays(endOffset));
+        return reservation;
+    }
+
+    @Test
+    void shouldTreatRangesAsInclusiveAcrossWordBoundaries() {
+        OccupancyBitmap bitmap = new OccupancyBitmap(List.of(reservation(60, 70)), FIRST_DAY, 200, 0);
+
+        assertFalse(bitmap.isFree(FIRST_DAY + 70, FIRST_DAY + 75));
+        assertFalse(bitmap.isFree(FIRST_DAY + 50, FIRST_DAY + 60));
+        assertFalse(bitmap.isFree(FIRST_DAY, FIRST_DAY + 199));
+        assertTrue(bitmap.isFree(FIRST_DAY + 71, FIRST_DAY + 199));
+        assertTrue(bitmap.isFree(FIRST_DAY, FIRST_DAY + 59));
+    }
+
+    @Test
+    void shouldClipReservationsToTheHorizon() {
+        OccupancyBitmap bitmap = new OccupancyBitmap(List.of(reservation(-5, 2), reservation(95, 120)),
+                FIRST_DAY, 100, 0);
+
+        assertFalse(bitmap.isFree(FIRST_DAY, FIRST_DAY));
+        assertTrue(bitmap.isFree(FIRST_DAY + 3, FIRST_DAY + 94));
+        assertFalse(bitmap.isFree(FIRST_DAY + 99, FIRST_DAY + 99));
+        assertTrue(bitmap.covers(FIRST_DAY, FIRST_DAY + 99));
+        assertFalse(bitmap.covers(FIRST_DAY + 90, FIRST_DAY + 100));
+        assertFalse(bitmap.covers(FIRST_DAY - 1, FIRST_DAY + 5));
+    }
+
+    @Test
+    void shouldAgreeWithAvailabilityIndex() {
+        Random random = new Random(11);
+        List<Reservation> reservations = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            int start = random.nextInt(700);
+            reservations.add(reservation(start, start + random.nextInt(6)));
+        }
+        OccupancyBitmap bitmap = new OccupancyBitmap(reservations, FIRST_DAY, 730, 0);
+        AvailabilityIndex index = new AvailabilityIndex(reservations);
+
+        for (int i = 0; i < 2000; i++) {
+            int start = random.nextInt(720);
+            int end = start + random.nextInt(10);
+            assertEquals(!index.overlaps(BASE.plusDays(start), BASE.plusDays(end)),
+                    bitmap.isFree(FIRST_DAY + start, FIRST_DAY + end));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package learn.mastery.domain;
+
+import learn.mastery.models.Host;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PricingEngineTest {
+    private final PricingEngine engine = new PricingEngine();
+    private final Host host = new Host("host-id", "Doe", "john@example.com", "2483215", "2 Kingston Rd",
+            "Chino Hills", "CA", "91709", new BigDecimal("295"), new BigDecimal("368.75"));
+
+    // the night-by-night loop the engine replaced
+    private BigDecimal expectedTotal(LocalDate startDate, LocalDate endDate) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            DayOfWeek day = date.getDayOfWeek();
+            boolean weekend = day == DayOfWeek.SATURDAY || day == DayOfWeek.SUNDAY;
+            total = total.add(weekend ? host.getWeekendRate() : host.getStandardRate());
+        }
+        return total;
+    }
+
+    @Test
+    void shouldPriceAWeekendStay() {
+        // friday through sunday
+        BigDecimal total = engine.calculateTotal(LocalDate.of(2024, 1, 5), LocalDate.of(2024, 1, 7), host);
+        assertEquals(new BigDecimal("1032.50"), total);
+    }
+
+    @Test
+    void shouldKeepScaleOfRatesActuallyCharged() {
+        // monday through wednesday never charges the weekend rate
+        BigDecimal total = engine.calculateTotal(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 3), host);
+        assertEquals(new BigDecimal("885"), total);
+    }
+
+    @Test
+    void shouldReturnZeroWhenEndIsBeforeStart() {
+        assertEquals(BigDecimal.ZERO, engine.calculateTotal(LocalDate.of(2024, 1, 3), LocalDate.of(2024, 1, 1), host));
+    }
+
+    @Test
+    void shouldMatchNightByNightTotals() {
+        LocalDate base = LocalDate.of(2023, 12, 25);
+        for (int offset = 0; offset < 7; offset++) {
+            LocalDate startDate = base.plusDays(offset);
+            for (int length = 0; length < 60; length++) {
+                LocalDate endDate = startDate.plusDays(length);
+                assertEquals(expectedTotal(startDate, endDate), engine.calculateTotal(startDate, endDate, host));
+            }
+        }
+        LocalDate startDate = LocalDate.of(2024, 3, 13);
+        LocalDate endDate = startDate.plusYears(5);
+        assertEquals(expectedTotal(startDate, endDate), engine.calculateTotal(startDate, endDate, host));
+    }
+
+    @Test
+    void centsShouldMatchCalculateTotal() {
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        for (int length = 0; length < 30; length++) {
+            LocalDate end = start.plusDays(length);
+            long cents = engine.calculateTotalCents(start, end, PricingEngine.toCents(host.getStandardRate()),
+                    PricingEngine.toCents(host.getWeekendRate()));
+            assertEquals(0, BigDecimal.valueOf(cents, 2).compareTo(engine.calculateTotal(start, end, host)));
+        }
+    }
+
+    @Test
+    void toCentsShouldRejectFractionsOfACent() {
+        assertEquals(36875, PricingEngine.toCents(new BigDecimal("368.75")));
+        assertEquals(29500, PricingEngine.toCents(new BigDecimal("295")));
+        assertThrows(ArithmeticException.class, () -> PricingEngine.toCents(new BigDecimal("1.005")));
+    }
+}
@@ -0,0 +1,55 @@
+package learn.mastery.domain;
+
+import learn.mastery.data.GuestRepositoryDouble;
+import learn.mastery.data.HostRepositoryDouble;
+import learn.mastery.data.ReservationRepositoryDouble;
+import learn.mastery.models.Reservation;
+import learn.mastery.models.ReservationImportRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationImportServiceTest {
+    private ReservationImportService service;
+    private ReservationRepositoryDouble reservationRepositoryDouble;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        GuestRepositoryDouble guestRepositoryDouble = new GuestRepositoryDouble();
+        HostRepositoryDouble hostRepositoryDouble = new HostRepositoryDouble();
+        reservationRepositoryDouble = new ReservationRepositoryDouble(guestRepositoryDouble, hostRepositoryDouble);
+        service = new ReservationImportService(
+                new ReservationService(reservationRepositoryDouble, hostRepositoryDouble, guestRepositoryDouble),
+                hostRepositoryDouble, guestRepositoryDouble);
+    }
+
+    @Test
+    void shouldBookGoodRowsAndRejectTheRestInRowOrder() throws IOException {
+        String start = LocalDate.now().plusDays(10).toString();
+        String end = LocalDate.now().plusDays(14).toString();
+        List<ReservationImportRow> rows = List.of(
+                new ReservationImportRow(1, "NoReservations@example.com", "tester@test.com", start, end),
+                new ReservationImportRow(2, "nobody@example.com", "tester@test.com", start, end),
+                new ReservationImportRow(3, "noreservations@example.com", "nobody@test.com", start, "soon"),
+                ReservationImportRow.unreadable(4, "Expected 4 fields but found 2."),
+                new ReservationImportRow(5, "noreservations@example.com", "tester@test.com", start, end));
+
+        List<Result<Reservation>> results = service.importRows(rows);
+
+        assertEquals(5, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertEquals("xxxx-223-dfdada", results.get(0).getPayload().getHost().getId());
+        assertEquals(List.of("Host does not exist."), results.get(1).getErrorMessages());
+        assertEquals(List.of("Guest does not exist.", "End date must look like 2030-01-31."),
+                results.get(2).getErrorMessages());
+        assertEquals(List.of("Expected 4 fields but found 2."), results.get(3).getErrorMessages());
+        assertEquals(List.of("Reservation dates overlap with an existing reservation."),
+                results.get(4).getErrorMessages());
+        assertEquals(1, reservationRepositoryDouble.findByHostId("xxxx-223-dfdada").size());
+    }
+}
@@ -0,0 +1,112 @@
+package learn.mastery.domain;
+
+import learn.mastery.data.DataException;
+import learn.mastery.data.GuestFileRepository;
+import learn.mastery.data.HostFileRepository;
+import learn.mastery.data.ReservationFileRepository;
+import learn.mastery.models.Guest;
+import learn.mastery.models.Host;
+import learn.mastery.models.Reservation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// many threads booking the same few weeks of one host; whatever gets saved must never overlap
+class ReservationServiceConcurrencyTest {
+    private static final String HOST_ID = "3zzzz6bc-ab95-49a8-8962-d50b53f84333";
+    private static final int THREADS = 8;
+    private static final int BOOKINGS_PER_THREAD = 25;
+
+    private final GuestFileRepository guestRepository = new GuestFileRepository("./data/guests_test.csv");
+    private final HostFileRepository hostRepository = new HostFileRepository("./data/hosts_test.csv");
+
+    @Test
+    void lockingShouldNeverPersistOverlappingReservations(@TempDir Path tempDir) throws Exception {
+        bookConcurrently(tempDir, ConcurrencyStrategy.LOCKING);
+    }
+
+    @Test
+    void optimisticShouldNeverPersistOverlappingReservations(@TempDir Path tempDir) throws Exception {
+        bookConcurrently(tempDir, ConcurrencyStrategy.OPTIMISTIC);
+    }
+
+    // the other repository stands in for App import-reservations writing the same files from another process
+    @Test
+    void shouldNotBookOverAReservationWrittenByAnotherProcess(@TempDir Path tempDir)
+            throws DataException, IOException {
+        ReservationFileRepository repository = new ReservationFileRepository(tempDir.toString(),
+                guestRepository, hostRepository);
+        ReservationService service = new ReservationService(repository, hostRepository, guestRepository);
+        Host host = hostRepository.findById(HOST_ID);
+        Guest guest = guestRepository.findById(1);
+        LocalDate start = LocalDate.now().plusDays(10);
+        assertTrue(service.makeReservation(new Reservation(0, start, start.plusDays(2), guest, host,
+                guest.getGuestId(), null)).isSuccess());
+
+        new ReservationFileRepository(tempDir.toString(), guestRepository, hostRepository)
+                .add(new Reservation(0, start.plusDays(7), start.plusDays(9), guest, host, guest.getGuestId(),
+                        new BigDecimal("400")));
+
+        Result<Reservation> result = service.makeReservation(new Reservation(0, start.plusDays(8),
+                start.plusDays(10), guest, host, guest.getGuestId(), null));
+        assertFalse(result.isSuccess());
+        assertEquals(2, repository.findByHostId(HOST_ID).size());
+    }
+
+    private void bookConcurrently(Path tempDir, ConcurrencyStrategy strategy) throws Exception {
+        ReservationFileRepository repository = new ReservationFileRepository(tempDir.toString(),
+                guestRepository, hostRepository);
+        ReservationService service = new ReservationService(repository, hostRepository, guestRepository);
+        service.setConcurrencyStrategy(strategy);
+        Host host = hostRepository.findById(HOST_ID);
+        Guest guest = guestRepository.findById(1);
+        AtomicInteger saved = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Random random = new Random(t);
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < BOOKINGS_PER_THREAD; i++) {
+                    LocalDate start = LocalDate.now().plusDays(10 + random.nextInt(40));
+                    Reservation reservation = new Reservation(0, start, start.plusDays(1 + random.nextInt(4)),
+                            guest, host, guest.getGuestId(), null);
+                    if (service.makeReservation(reservation).isSuccess()) {
+                        saved.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // read back from disk with no cache
+        List<Reservation> persisted = new ArrayList<>(new ReservationFileRepository(tempDir.toString(),
+                guestRepository, hostRepository, 0).findByHostId(HOST_ID));
+        persisted.sort(Comparator.comparing(Reservation::getStartDate));
+
+        assertTrue(saved.get() > 0);
+        assertEquals(saved.get(), persisted.size());
+        for (int i = 1; i < persisted.size(); i++) {
+            assertTrue(persisted.get(i).getStartDate().isAfter(persisted.get(i - 1).getEndDate()),
+                    persisted.get(i - 1) + " overlaps " + persisted.get(i));
+        }
+    }
+}
@@ -6,6 +6,7 @@ import learn.mastery.data.HostRepositoryDouble;
 import learn.mastery.data.ReservationRepositoryDouble;
 import learn.mastery.models.Guest;
 import learn.mastery.models.Host;
+import learn.mastery.models.QuoteRequest;
 import learn.mastery.models.Reservation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,6 +14,8 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -174,6 +177,21 @@ public class ReservationServiceTest {
     }
 
 
+    @Test
+    void shouldRebookTheDatesOfACancelledReservation() throws IOException {
+        Reservation booked = createValidReservation();
+        booked.setStartDate(LocalDate.now().plusDays(40));
+        booked.setEndDate(LocalDate.now().plusDays(42));
+        assertTrue(service.makeReservation(booked).isSuccess());
+
+        assertTrue(service.deleteReservation(booked.getId(), booked.getHost().getId()).getPayload());
+
+        Reservation rebooked = createValidReservation();
+        rebooked.setStartDate(booked.getStartDate());
+        rebooked.setEndDate(booked.getEndDate());
+        assertTrue(service.makeReservation(rebooked).isSuccess());
+    }
+
     @Test
     void deleteReservation_PastStartDate() throws DataException, IOException {
         Reservation pastReservation = createValidReservation();
@@ -186,4 +204,81 @@ public class ReservationServiceTest {
         assertFalse(result.getPayload());
         assertTrue(result.getErrorMessages().contains("Cannot cancel a reservation that's in the past."));
     }
+
+    @Test
+    void makeReservationsShouldCheckTheBatchAgainstItselfAndKeepItsOrder() throws IOException {
+        Reservation first = createValidReservation();
+        Reservation overlapping = createValidReservation();
+        overlapping.setStartDate(first.getStartDate().plusDays(2));
+        overlapping.setEndDate(first.getEndDate().plusDays(2));
+        Reservation past = createValidReservation();
+        past.setStartDate(LocalDate.now().minusDays(3));
+        Reservation otherHost = createValidReservation();
+        otherHost.setHost(hostRepositoryDouble.findByEmail("noreservations@example.com"));
+        int before = reservationRepositoryDouble.findByHostId(first.getHost().getId()).size();
+
+        List<Result<Reservation>> results = service.makeReservations(List.of(first, overlapping, past, otherHost));
+
+        assertEquals(4, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertNotNull(results.get(0).getPayload().getTotal());
+        assertEquals(List.of("Reservation dates overlap with an existing reservation."),
+                results.get(1).getErrorMessages());
+        assertTrue(results.get(2).getErrorMessages().contains("Start date must be in the future."));
+        assertTrue(results.get(3).isSuccess());
+        assertEquals(before + 1, reservationRepositoryDouble.findByHostId(first.getHost().getId()).size());
+        assertEquals(1, reservationRepositoryDouble.findByHostId(otherHost.getHost().getId()).size());
+    }
+
+    @Test
+    void setBatchParallelismShouldRejectLessThanOne() {
+        assertThrows(IllegalArgumentException.class, () -> service.setBatchParallelism(0));
+    }
+
+    @Test
+    void quoteAllShouldMatchCalculateTotalInRequestOrder() throws IOException {
+        Host john = hostRepositoryDouble.findByEmail("john@example.com");
+        Host other = hostRepositoryDouble.findByEmail("noreservations@example.com");
+        LocalDate start = LocalDate.of(2030, 1, 4);
+        List<QuoteRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            requests.add(new QuoteRequest(i % 2 == 0 ? john : other, start.plusDays(i % 11), start.plusDays(i % 11 + i % 7)));
+        }
+        requests.add(new QuoteRequest(null, start, start.plusDays(1)));
+
+        List<BigDecimal> totals = service.quoteAll(requests);
+
+        assertEquals(requests.size(), totals.size());
+        for (int i = 0; i < 5000; i++) {
+            QuoteRequest request = requests.get(i);
+            // equals, not compareTo: the quote has to carry the same digits booking would save
+            assertEquals(service.calculateTotal(request.getStartDate(), request.getEndDate(), request.getHost()),
+                    totals.get(i));
+        }
+        assertNull(totals.get(5000));
+    }
+
+    @Test
+    void quoteHostsForRangeShouldFallBackForFractionsOfACent() throws IOException {
+        Host john = hostRepositoryDouble.findByEmail("john@example.com");
+        Host fractional = new Host("fractional", "Fraction", "fraction@example.com", "1", "1 Rd", "Town", "CA",
+                "90000", new BigDecimal("10.005"), new BigDecimal("20"));
+        LocalDate start = LocalDate.of(2030, 1, 1);
+
+        List<BigDecimal> totals = service.quoteHostsForRange(start, start.plusDays(6), List.of(john, fractional));
+
+        assertEquals(new BigDecimal("800.00"), totals.get(0));
+        assertEquals(new BigDecimal("90.025"), totals.get(1));
+    }
+
+    @Test
+    void quoteHostsForRangeShouldGiveNullForMissingInputLikeQuoteAll() throws IOException {
+        Host john = hostRepositoryDouble.findByEmail("john@example.com");
+        LocalDate start = LocalDate.of(2030, 1, 1);
+
+        assertEquals(Arrays.asList(null, null), service.quoteHostsForRange(null, start, List.of(john, john)));
+        assertEquals(Arrays.asList(null, new BigDecimal("800.00")),
+                service.quoteHostsForRange(start, start.plusDays(6), Arrays.asList(null, john)));
+        assertEquals(Arrays.asList((BigDecimal) null), service.quoteAll(List.of(new QuoteRequest(john, null, start))));
+    }
 }